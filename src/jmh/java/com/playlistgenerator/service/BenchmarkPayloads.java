@@ -0,0 +1,87 @@
+package com.playlistgenerator.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Synthetic upstream responses shaped like the real Gemini and Last.fm payloads.
+ * Sizes match what a single playlist generation typically receives.
+ */
+public final class BenchmarkPayloads {
+
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+
+    private BenchmarkPayloads() {
+    }
+
+    /**
+     * The model's text answer: a {@code {"tracks": [...]}} document wrapped in a markdown fence
+     */
+    public static String geminiTracksText(int trackCount) {
+        List<Map<String, String>> tracks = new ArrayList<>(trackCount);
+        for (int i = 0; i < trackCount; i++) {
+            tracks.add(Map.of("title", "Song Title " + i, "artist", "Artist Name " + (i % 12)));
+        }
+        return "```json\n" + toJson(Map.of("tracks", tracks)) + "\n```";
+    }
+
+    /**
+     * A complete {@code generateContent} response body carrying {@link #geminiTracksText(int)}
+     */
+    public static String geminiGenerateContentResponse(int trackCount) {
+        Map<String, Object> part = Map.of("text", geminiTracksText(trackCount));
+        Map<String, Object> content = Map.of("role", "model", "parts", List.of(part));
+        Map<String, Object> candidate = Map.of("content", content, "finishReason", "STOP");
+        return toJson(Map.of("candidates", List.of(candidate)));
+    }
+
+    /**
+     * A Last.fm list response such as tag.getTopArtists or artist.getSimilar. Items carry the
+     * extra fields Last.fm sends (mbid, url, images) so parsing pays for skipping them.
+     */
+    public static String lastFmNameList(String root, String list, String namePrefix, int itemCount) {
+        List<Map<String, Object>> items = new ArrayList<>(itemCount);
+        for (int i = 0; i < itemCount; i++) {
+            String name = namePrefix + " " + i;
+            items.add(Map.of(
+                    "name", name,
+                    "mbid", "5441c29d-3602-4898-b1a1-b77fa23b8e" + String.format("%02d", i % 100),
+                    "match", String.valueOf(1.0 - i / (double) itemCount),
+                    "url", "https://www.last.fm/music/" + name.replace(' ', '+'),
+                    "image", List.of(
+                            Map.of("#text", "https://lastfm.freetls.fastly.net/i/u/34s/" + i + ".png", "size", "small"),
+                            Map.of("#text", "https://lastfm.freetls.fastly.net/i/u/64s/" + i + ".png", "size", "medium"),
+                            Map.of("#text", "https://lastfm.freetls.fastly.net/i/u/174s/" + i + ".png", "size", "large"))));
+        }
+        return toJson(Map.of(root, Map.of(list, items, "@attr", Map.of("total", String.valueOf(itemCount)))));
+    }
+
+    /**
+     * Recommendation strings in the forms the resolver sees: separated, "by", featured artists,
+     * and bare word runs that fall back to halving
+     */
+    public static List<String> recommendationStrings(int count) {
+        List<String> strings = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            switch (i % 4) {
+                case 0 -> strings.add("Song Title " + i + " - Artist Name " + i);
+                case 1 -> strings.add("Song Title " + i + " by Artist Name " + i);
+                case 2 -> strings.add("Song Title " + i + " feat. Guest Artist " + i);
+                default -> strings.add("Some Longer Untagged Song Title Number " + i);
+            }
+        }
+        return strings;
+    }
+
+    private static String toJson(Object value) {
+        try {
+            return objectMapper.writeValueAsString(value);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package com.playlistgenerator.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.playlistgenerator.config.PlaylistGenerationConfig;
+import com.playlistgenerator.service.metrics.PlaylistMetrics;
+import com.playlistgenerator.service.ratelimit.RateLimiterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parsing of Gemini recommendation responses, alone and behind a stubbed {@code generateContent}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class GeminiParsingBenchmark {
+
+    @Param({"30", "100"})
+    private int trackCount;
+
+    private GoogleGeminiService geminiService;
+    private String responseBody;
+    private String tracksText;
+
+    @Setup
+    public void setUp() {
+        responseBody = BenchmarkPayloads.geminiGenerateContentResponse(trackCount);
+        tracksText = BenchmarkPayloads.geminiTracksText(trackCount);
+
+        PlaylistGenerationConfig config = new PlaylistGenerationConfig();
+        config.setGeminiRateLimitDelayMs(0);
+        StubRestTemplate restTemplate = new StubRestTemplate().respond(":generateContent", responseBody);
+        geminiService = new GoogleGeminiService(restTemplate, new ObjectMapper(), new RateLimiterRegistry(config),
+                new PlaylistMetrics(new SimpleMeterRegistry()));
+    }
+
+    @Benchmark
+    public List<GoogleGeminiService.Track> parseRecommendationsResponse() {
+        return geminiService.parseRecommendationsResponse(responseBody);
+    }
+
+    @Benchmark
+    public List<GoogleGeminiService.Track> parseTracksFromText() {
+        return geminiService.parseTracksFromText(tracksText);
+    }
+
+    @Benchmark
+    public List<String> getMusicRecommendationsAsStrings() {
+        return geminiService.getMusicRecommendationsAsStrings("benchmark prompt");
+    }
+}
@@ -0,0 +1,83 @@
+package com.playlistgenerator.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.playlistgenerator.config.LastFmConfig;
+import com.playlistgenerator.config.PlaylistGenerationConfig;
+import com.playlistgenerator.service.cache.TieredResponseCache;
+import com.playlistgenerator.service.metrics.PlaylistMetrics;
+import com.playlistgenerator.service.ratelimit.RateLimiterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parsing of Last.fm list responses, alone and behind a stubbed ws.audioscrobbler.com
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LastFmParsingBenchmark {
+
+    private static final List<String> TAGS = List.of("indie", "shoegaze");
+
+    private String topArtistsResponse;
+    private String similarArtistsResponse;
+    private String topTracksResponse;
+
+    private TieredResponseCache responseCache;
+    private ExecutorService upstreamExecutor;
+    private LastFMService lastFmService;
+
+    @Setup
+    public void setUp() {
+        topArtistsResponse = BenchmarkPayloads.lastFmNameList("topartists", "artist", "Tag Artist", 50);
+        similarArtistsResponse = BenchmarkPayloads.lastFmNameList("similarartists", "artist", "Similar Artist", 100);
+        topTracksResponse = BenchmarkPayloads.lastFmNameList("toptracks", "track", "Top Track", 50);
+
+        PlaylistGenerationConfig config = new PlaylistGenerationConfig();
+        config.setRateLimitDelayMs(0);
+        StubRestTemplate restTemplate = new StubRestTemplate()
+                .respond("method=tag.gettopartists", topArtistsResponse);
+
+        // A single memory slot and no disk tier: the two tags evict each other, so every
+        // getArtistsByTags call goes through the stub and the parser
+        responseCache = new TieredResponseCache("benchmark", 1, 0, null, new ObjectMapper());
+        upstreamExecutor = Executors.newVirtualThreadPerTaskExecutor();
+        lastFmService = new LastFMService(new LastFmConfig(), config, restTemplate, responseCache,
+                upstreamExecutor, new RateLimiterRegistry(config), new PlaylistMetrics(new SimpleMeterRegistry()));
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        upstreamExecutor.shutdownNow();
+        responseCache.close();
+    }
+
+    @Benchmark
+    public List<String> parseTopArtists() {
+        return LastFMService.parseNameList(topArtistsResponse, "topartists", "artist", Integer.MAX_VALUE);
+    }
+
+    @Benchmark
+    public List<String> parseSimilarArtists() {
+        return LastFMService.parseNameList(similarArtistsResponse, "similarartists", "artist", Integer.MAX_VALUE);
+    }
+
+    @Benchmark
+    public List<String> parseTopTracks() {
+        return LastFMService.parseNameList(topTracksResponse, "toptracks", "track", 20);
+    }
+
+    @Benchmark
+    public List<String> getArtistsByTags() {
+        return lastFmService.getArtistsByTags(TAGS);
+    }
+}
@@ -0,0 +1,96 @@
+package com.playlistgenerator.service;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.web.client.RequestCallback;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.ResponseExtractor;
+import org.springframework.web.client.RestTemplate;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * In-process stand-in for the upstream HTTP APIs. Each request is answered with the canned body
+ * of the first registered URL fragment it contains, without touching the network.
+ */
+public class StubRestTemplate extends RestTemplate {
+
+    private final Map<String, String> responses = new LinkedHashMap<>();
+
+    public StubRestTemplate respond(String urlFragment, String body) {
+        responses.put(urlFragment, body);
+        return this;
+    }
+
+    @Override
+    public <T> T getForObject(String url, Class<T> responseType, Object... uriVariables) {
+        return responseType.cast(lookup(url));
+    }
+
+    @Override
+    public <T> ResponseEntity<T> postForEntity(String url, Object request, Class<T> responseType,
+                                               Object... uriVariables) {
+        return new ResponseEntity<>(responseType.cast(lookup(url)), HttpStatus.OK);
+    }
+
+    @Override
+    public <T> T execute(URI url, HttpMethod method, RequestCallback requestCallback,
+                         ResponseExtractor<T> responseExtractor) {
+        try (ClientHttpResponse response = new StubResponse(lookup(url.toString()))) {
+            return responseExtractor.extractData(response);
+        } catch (IOException e) {
+            throw new ResourceAccessException(e.getMessage(), e);
+        }
+    }
+
+    private String lookup(String url) {
+        for (Map.Entry<String, String> entry : responses.entrySet()) {
+            if (url.contains(entry.getKey())) {
+                return entry.getValue();
+            }
+        }
+        throw new IllegalStateException("No stubbed response for " + url);
+    }
+
+    private static class StubResponse implements ClientHttpResponse {
+        private final byte[] body;
+
+        StubResponse(String body) {
+            this.body = body.getBytes(StandardCharsets.UTF_8);
+        }
+
+        @Override
+        public HttpStatusCode getStatusCode() {
+            return HttpStatus.OK;
+        }
+
+        @Override
+        public String getStatusText() {
+            return HttpStatus.OK.getReasonPhrase();
+        }
+
+        @Override
+        public HttpHeaders getHeaders() {
+            return new HttpHeaders();
+        }
+
+        @Override
+        public InputStream getBody() {
+            return new ByteArrayInputStream(body);
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package com.playlistgenerator.service;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import se.michaelthelin.spotify.model_objects.specification.ArtistSimplified;
+import se.michaelthelin.spotify.model_objects.specification.Track;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of verifying Spotify search results per recommended track: normalizing the recommendation
+ * and scoring the top five of a typical result page. Reported per track; run with
+ * {@code -prof gc} to confirm scoring does not allocate once the buffers are warm.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TrackMatchScorerBenchmark {
+
+    private static final int TRACKS = 40;
+    private static final int RESULTS_PER_SEARCH = 20;
+
+    private TrackMatchScorer scorer;
+    private String[][] recommendations;
+    private Track[][] searchResults;
+
+    @Setup
+    public void setUp() {
+        scorer = new TrackMatchScorer();
+        recommendations = new String[TRACKS][];
+        searchResults = new Track[TRACKS][];
+        for (int i = 0; i < TRACKS; i++) {
+            String title = "Sóng Títle Number " + i;
+            String artist = "Artist Name " + (i % 12);
+            recommendations[i] = new String[]{title, artist};
+            searchResults[i] = buildSearchResults(title, artist, i);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(TRACKS)
+    public void scoreTopResults(Blackhole blackhole) {
+        for (int i = 0; i < TRACKS; i++) {
+            scorer.setQuery(recommendations[i][0], recommendations[i][1]);
+            blackhole.consume(scorer.bestMatch(searchResults[i], 5, 0.6));
+        }
+    }
+
+    /**
+     * A result page where the right track sits behind a couple of near misses and carries the
+     * suffixes Spotify titles usually have
+     */
+    private static Track[] buildSearchResults(String title, String artist, int seed) {
+        Track[] results = new Track[RESULTS_PER_SEARCH];
+        results[0] = track(title + " (Live at Wembley)", artist);
+        results[1] = track("Another Song " + seed, "Someone Else");
+        results[2] = track(title + " - Remastered 2011", artist, "Guest Artist " + seed);
+        results[3] = track(title + " (feat. Guest Artist " + seed + ")", artist);
+        for (int i = 4; i < RESULTS_PER_SEARCH; i++) {
+            results[i] = track("Unrelated Title " + seed + "-" + i, "Band " + i);
+        }
+        return results;
+    }
+
+    private static Track track(String name, String... artists) {
+        ArtistSimplified[] artistObjects = new ArtistSimplified[artists.length];
+        for (int i = 0; i < artists.length; i++) {
+            artistObjects[i] = new ArtistSimplified.Builder().setName(artists[i]).build();
+        }
+        return new Track.Builder()
+                .setName(name)
+                .setArtists(artistObjects)
+                .setDurationMs(200_000)
+                .setIsPlayable(true)
+                .build();
+    }
+}
@@ -0,0 +1,77 @@
+package com.playlistgenerator.service;
+
+import com.playlistgenerator.config.PlaylistGenerationConfig;
+import com.playlistgenerator.service.metrics.PlaylistMetrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import se.michaelthelin.spotify.model_objects.specification.ArtistSimplified;
+import se.michaelthelin.spotify.model_objects.specification.Track;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * CPU-only parts of track resolution: splitting recommendation strings and filtering results.
+ * No Spotify client is involved, so the service is built without one.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TrackSearchBenchmark {
+
+    @Param({"40", "200"})
+    private int size;
+
+    private TrackSearchService trackSearchService;
+    private List<String> recommendations;
+    private List<Track> searchResults;
+
+    @Setup
+    public void setUp() {
+        trackSearchService = new TrackSearchService(null, null, new PlaylistGenerationConfig(), null, null, null,
+                new PlaylistMetrics(new SimpleMeterRegistry()));
+        recommendations = BenchmarkPayloads.recommendationStrings(size);
+        searchResults = buildSearchResults(size);
+    }
+
+    @Benchmark
+    public void extractTitleAndArtist(Blackhole blackhole) {
+        for (String recommendation : recommendations) {
+            blackhole.consume(trackSearchService.extractTitleAndArtist(recommendation));
+        }
+    }
+
+    @Benchmark
+    public List<Track> validateAndFilterResults() {
+        return trackSearchService.validateAndFilterResults(searchResults);
+    }
+
+    /**
+     * Search hits with the mix the filter sees in practice: mostly valid, some repeats,
+     * some too short or unplayable
+     */
+    private static List<Track> buildSearchResults(int count) {
+        List<Track> tracks = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            boolean unplayable = i % 10 == 3;
+            boolean tooShort = i % 10 == 7;
+            Track track = new Track.Builder()
+                    .setName("Song Title " + i)
+                    .setArtists(new ArtistSimplified.Builder().setName("Artist Name " + (i % 12)).build())
+                    .setUri("spotify:track:" + String.format("%022d", i))
+                    .setDurationMs(tooShort ? 25_000 : 180_000 + i)
+                    .setIsPlayable(!unplayable)
+                    .build();
+            tracks.add(track);
+            if (i % 8 == 0) {
+                tracks.add(track);
+            }
+        }
+        return tracks;
+    }
+}
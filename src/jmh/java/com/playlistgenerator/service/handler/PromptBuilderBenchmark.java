@@ -0,0 +1,80 @@
+package com.playlistgenerator.service.handler;
+
+import com.playlistgenerator.config.PlaylistGenerationConfig;
+import org.openjdk.jmh.annotations.*;
+import se.michaelthelin.spotify.model_objects.specification.Artist;
+import se.michaelthelin.spotify.model_objects.specification.ArtistSimplified;
+import se.michaelthelin.spotify.model_objects.specification.Paging;
+import se.michaelthelin.spotify.model_objects.specification.Track;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Prompt construction for each generation mode, with inputs of the size the forms and the
+ * Spotify top-items endpoints produce
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PromptBuilderBenchmark {
+
+    private PlaylistPromptBuilder promptBuilder;
+    private Paging<Artist> topArtists;
+    private Paging<Track> topTracks;
+    private List<String> artistNames;
+    private List<String> trackNames;
+    private List<String> genres;
+
+    @Setup
+    public void setUp() {
+        promptBuilder = new PlaylistPromptBuilder(new PlaylistGenerationConfig());
+
+        Artist[] artists = new Artist[20];
+        Track[] tracks = new Track[20];
+        artistNames = new ArrayList<>();
+        trackNames = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            artists[i] = new Artist.Builder().setName("Artist Name " + i).build();
+            tracks[i] = new Track.Builder()
+                    .setName("Song Title " + i)
+                    .setArtists(new ArtistSimplified.Builder().setName("Artist Name " + i).build())
+                    .build();
+            artistNames.add("Artist Name " + i);
+            trackNames.add("Artist Name " + i + " - Song Title " + i);
+        }
+        topArtists = new Paging.Builder<Artist>().setItems(artists).build();
+        topTracks = new Paging.Builder<Track>().setItems(tracks).build();
+        genres = List.of("indie rock", "shoegaze", "dream pop");
+    }
+
+    @Benchmark
+    public String inspiredFromSpotify() {
+        return promptBuilder.buildInspiredPrompt(topArtists, topTracks);
+    }
+
+    @Benchmark
+    public String inspiredFromNames() {
+        return promptBuilder.buildInspiredPrompt(artistNames, trackNames);
+    }
+
+    @Benchmark
+    public String custom() {
+        return promptBuilder.buildCustomPrompt("melancholic but hopeful", genres,
+                artistNames.subList(0, 5), trackNames.subList(0, 5), List.of("Loveless"));
+    }
+
+    @Benchmark
+    public String quickType() {
+        return promptBuilder.buildQuickTypePrompt("late night drive through the city");
+    }
+
+    @Benchmark
+    public String freeform() {
+        return promptBuilder.buildFreeformPrompt("songs for a rainy sunday morning with coffee");
+    }
+}
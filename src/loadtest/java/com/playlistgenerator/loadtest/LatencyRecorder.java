@@ -0,0 +1,90 @@
+package com.playlistgenerator.loadtest;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Latency samples per operation, summarized as percentiles and throughput over the run
+ */
+class LatencyRecorder {
+
+    private final Map<String, Operation> operations = new ConcurrentSkipListMap<>();
+
+    void recordSuccess(String operation, long nanos) {
+        operation(operation).record(nanos);
+    }
+
+    void recordFailure(String operation, String reason) {
+        operation(operation).fail(reason);
+    }
+
+    private Operation operation(String name) {
+        return operations.computeIfAbsent(name, key -> new Operation());
+    }
+
+    String report(Duration elapsed) {
+        double seconds = Math.max(elapsed.toMillis(), 1) / 1000.0;
+        StringBuilder report = new StringBuilder();
+        report.append(String.format("%-10s %7s %7s %10s %10s %10s %10s %10s%n",
+                "operation", "ok", "failed", "p50 ms", "p95 ms", "p99 ms", "max ms", "ops/s"));
+
+        for (Map.Entry<String, Operation> entry : operations.entrySet()) {
+            long[] samples = entry.getValue().sortedSamples();
+            report.append(String.format("%-10s %7d %7d %10.1f %10.1f %10.1f %10.1f %10.2f%n",
+                    entry.getKey(), samples.length, entry.getValue().failures.get(),
+                    percentileMillis(samples, 50), percentileMillis(samples, 95), percentileMillis(samples, 99),
+                    samples.length > 0 ? toMillis(samples[samples.length - 1]) : 0.0,
+                    samples.length / seconds));
+        }
+
+        for (Map.Entry<String, Operation> entry : operations.entrySet()) {
+            for (Map.Entry<String, AtomicLong> reason : entry.getValue().failureReasons.entrySet()) {
+                report.append(String.format("  %s failed %d times: %s%n",
+                        entry.getKey(), reason.getValue().get(), reason.getKey()));
+            }
+        }
+        return report.toString();
+    }
+
+    /**
+     * Nearest-rank percentile
+     */
+    private static double percentileMillis(long[] sorted, int percentile) {
+        if (sorted.length == 0) {
+            return 0.0;
+        }
+        int rank = (int) Math.ceil(percentile / 100.0 * sorted.length);
+        return toMillis(sorted[Math.max(0, rank - 1)]);
+    }
+
+    private static double toMillis(long nanos) {
+        return nanos / (double) TimeUnit.MILLISECONDS.toNanos(1);
+    }
+
+    private static class Operation {
+        private final List<Long> samples = new ArrayList<>();
+        private final AtomicLong failures = new AtomicLong();
+        private final Map<String, AtomicLong> failureReasons = new ConcurrentSkipListMap<>();
+
+        synchronized void record(long nanos) {
+            samples.add(nanos);
+        }
+
+        void fail(String reason) {
+            failures.incrementAndGet();
+            failureReasons.computeIfAbsent(reason, key -> new AtomicLong()).incrementAndGet();
+        }
+
+        synchronized long[] sortedSamples() {
+            long[] sorted = samples.stream().mapToLong(Long::longValue).toArray();
+            Arrays.sort(sorted);
+            return sorted;
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package com.playlistgenerator.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.playlistgenerator.SpotifyIntegrationApplication;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * End-to-end load test: starts the application against {@link UpstreamStubServer}, drives
+ * {@code --users} concurrent {@link VirtualUser}s through generation and confirmation, and prints
+ * latency percentiles and throughput per operation.
+ * <p>
+ * Run with {@code mvn -Ploadtest compile exec:exec -Dloadtest.args="--users=50 --iterations=10"}.
+ * See {@link LoadTestOptions} for the available options.
+ */
+public class LoadTestHarness {
+
+    public static void main(String[] args) throws Exception {
+        LoadTestOptions options = new LoadTestOptions(args);
+        LatencyRecorder recorder = new LatencyRecorder();
+
+        try (UpstreamStubServer stubs = new UpstreamStubServer(options)) {
+            stubs.start();
+            ConfigurableApplicationContext app = SpringApplication.run(SpotifyIntegrationApplication.class,
+                    applicationArgs(options, stubs.getBaseUrl()));
+            try {
+                String appBaseUrl = "http://127.0.0.1:" + ((WebServerApplicationContext) app).getWebServer().getPort();
+                System.out.println("Application at " + appBaseUrl + ", upstream stubs at " + stubs.getBaseUrl());
+
+                Duration elapsed = runUsers(options, appBaseUrl, recorder);
+                System.out.println();
+                System.out.println(describeRun(options, stubs, elapsed));
+                System.out.println(recorder.report(elapsed));
+            } finally {
+                app.close();
+            }
+        }
+        System.exit(0);
+    }
+
+    private static Duration runUsers(LoadTestOptions options, String appBaseUrl, LatencyRecorder recorder)
+            throws InterruptedException {
+        ObjectMapper objectMapper = new ObjectMapper();
+        long rampStepNanos = options.getUsers() > 1 ? options.getRampUp().toNanos() / (options.getUsers() - 1) : 0;
+
+        long start = System.nanoTime();
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < options.getUsers(); i++) {
+            long startDelayNanos = rampStepNanos * i;
+            VirtualUser user = new VirtualUser(i, appBaseUrl, options, recorder, objectMapper);
+            threads.add(Thread.ofVirtual().name("virtual-user-" + i).start(() -> {
+                try {
+                    Thread.sleep(Duration.ofNanos(startDelayNanos));
+                    user.run();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }));
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        return Duration.ofNanos(System.nanoTime() - start);
+    }
+
+    /**
+     * Placeholder credentials and every upstream pointed at the stubs. The disk cache goes to a
+     * fresh directory so earlier runs do not warm this one.
+     */
+    private static String[] applicationArgs(LoadTestOptions options, String stubBaseUrl) throws Exception {
+        Path cacheDirectory = Files.createTempDirectory("playlist-loadtest-cache");
+
+        List<String> args = new ArrayList<>(List.of(
+                "--server.port=0",
+                "--spotify.clientId=loadtest",
+                "--spotify.clientSecret=loadtest",
+                "--spotify.redirectUri=http://127.0.0.1/callback",
+                "--spotify.apiBaseUrl=" + stubBaseUrl,
+                "--spotify.accountsBaseUrl=" + stubBaseUrl,
+                "--lastfm.apiKey=loadtest",
+                "--lastfm.baseUrl=" + stubBaseUrl + "/lastfm/2.0/",
+                "--google.gemini.apiKey=loadtest",
+                "--google.gemini.baseUrl=" + stubBaseUrl + "/gemini/v1beta/models/stub-model",
+                "--generate.playlist.redirect.url=/api/generate-playlist",
+                "--playlist.generation.cache-directory=" + cacheDirectory));
+        // Explicit --app.* options come last so they win
+        args.addAll(options.getApplicationArgs());
+        return args.toArray(new String[0]);
+    }
+
+    private static String describeRun(LoadTestOptions options, UpstreamStubServer stubs, Duration elapsed) {
+        StringBuilder description = new StringBuilder();
+        description.append(String.format("%d users x %d iterations, mode %s, %.1f s elapsed%n",
+                options.getUsers(), options.getIterations(), options.getMode(), elapsed.toMillis() / 1000.0));
+        for (Map.Entry<String, LoadTestOptions.StubBehaviour> entry : stubs.getBehaviours().entrySet()) {
+            description.append(String.format("  %-8s %s; %d requests, %d failures injected%n",
+                    entry.getKey(), entry.getValue(), stubs.getRequestCount(entry.getKey()),
+                    stubs.getInjectedFailureCount(entry.getKey())));
+        }
+        return description.toString();
+    }
+}
@@ -0,0 +1,108 @@
+package com.playlistgenerator.loadtest;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Command-line options of the load test, given as {@code --name=value}.
+ * <p>
+ * Stub behaviour can be set for all upstreams ({@code --latency-ms=50}) or for one of
+ * {@code lastfm}, {@code spotify} and {@code gemini} ({@code --gemini.latency-ms=1500}).
+ * Arguments starting with {@code --app.} are passed to the application without the prefix.
+ */
+class LoadTestOptions {
+
+    private static final Map<String, StubBehaviour> DEFAULT_BEHAVIOUR = Map.of(
+            "lastfm", new StubBehaviour(80, 40, 0.0, 0.0),
+            "spotify", new StubBehaviour(60, 30, 0.0, 0.0),
+            "gemini", new StubBehaviour(1500, 500, 0.0, 0.0));
+
+    private final Map<String, String> values = new HashMap<>();
+    private final List<String> applicationArgs = new ArrayList<>();
+
+    LoadTestOptions(String[] args) {
+        for (String arg : args) {
+            if (!arg.startsWith("--") || !arg.contains("=")) {
+                throw new IllegalArgumentException("Expected --name=value, got: " + arg);
+            }
+            String name = arg.substring(2, arg.indexOf('='));
+            String value = arg.substring(arg.indexOf('=') + 1);
+            if (name.startsWith("app.")) {
+                applicationArgs.add("--" + name.substring(4) + "=" + value);
+            } else {
+                values.put(name, value);
+            }
+        }
+    }
+
+    int getUsers() { return getInt("users", 10); }
+    int getIterations() { return getInt("iterations", 5); }
+    Duration getRampUp() { return Duration.ofSeconds(getInt("ramp-up-seconds", 0)); }
+    Duration getPollInterval() { return Duration.ofMillis(getInt("poll-interval-ms", 250)); }
+    Duration getGenerationTimeout() { return Duration.ofSeconds(getInt("generation-timeout-seconds", 120)); }
+    boolean isConfirm() { return Boolean.parseBoolean(values.getOrDefault("confirm", "true")); }
+
+    String getMode() { return values.getOrDefault("mode", "custom"); }
+    String getArtists() { return values.getOrDefault("artists", "Stub Artist 1,Stub Artist 2"); }
+    String getGenres() { return values.getOrDefault("genres", "indie,electronic"); }
+    String getMood() { return values.getOrDefault("mood", "upbeat"); }
+    boolean isUseListeningHistory() { return Boolean.parseBoolean(values.getOrDefault("listening-history", "true")); }
+
+    int getCatalogSize() { return getInt("catalog-size", 5000); }
+    int getRecommendedTracks() { return getInt("recommended-tracks", 30); }
+
+    List<String> getApplicationArgs() { return applicationArgs; }
+
+    StubBehaviour getStubBehaviour(String upstream) {
+        StubBehaviour defaults = DEFAULT_BEHAVIOUR.get(upstream);
+        return new StubBehaviour(
+                getLong(upstream + ".latency-ms", getLong("latency-ms", defaults.getLatencyMs())),
+                getLong(upstream + ".jitter-ms", getLong("jitter-ms", defaults.getJitterMs())),
+                getDouble(upstream + ".error-rate", getDouble("error-rate", defaults.getErrorRate())),
+                getDouble(upstream + ".throttle-rate", getDouble("throttle-rate", defaults.getThrottleRate())));
+    }
+
+    private int getInt(String name, int defaultValue) {
+        return values.containsKey(name) ? Integer.parseInt(values.get(name)) : defaultValue;
+    }
+
+    private long getLong(String name, long defaultValue) {
+        return values.containsKey(name) ? Long.parseLong(values.get(name)) : defaultValue;
+    }
+
+    private double getDouble(String name, double defaultValue) {
+        return values.containsKey(name) ? Double.parseDouble(values.get(name)) : defaultValue;
+    }
+
+    /**
+     * Per-upstream stub behaviour: base latency plus uniform jitter, and the fraction of requests
+     * answered with a 500 or with a 429 carrying Retry-After
+     */
+    static class StubBehaviour {
+        private final long latencyMs;
+        private final long jitterMs;
+        private final double errorRate;
+        private final double throttleRate;
+
+        StubBehaviour(long latencyMs, long jitterMs, double errorRate, double throttleRate) {
+            this.latencyMs = latencyMs;
+            this.jitterMs = jitterMs;
+            this.errorRate = errorRate;
+            this.throttleRate = throttleRate;
+        }
+
+        long getLatencyMs() { return latencyMs; }
+        long getJitterMs() { return jitterMs; }
+        double getErrorRate() { return errorRate; }
+        double getThrottleRate() { return throttleRate; }
+
+        @Override
+        public String toString() {
+            return latencyMs + "ms +" + jitterMs + "ms jitter, " + (errorRate * 100) + "% errors, "
+                    + (throttleRate * 100) + "% throttled";
+        }
+    }
+}
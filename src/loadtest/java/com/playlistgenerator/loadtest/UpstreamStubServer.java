@@ -0,0 +1,447 @@
+package com.playlistgenerator.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Local stand-in for ws.audioscrobbler.com, api.spotify.com, accounts.spotify.com and the Gemini
+ * {@code generateContent}/{@code streamGenerateContent} endpoints, served from one port.
+ * <p>
+ * Answers are generated from a synthetic catalog of "Stub Song N" by "Stub Artist M", so Gemini
+ * recommendations always resolve on the Spotify search stub. Every request first waits for the
+ * upstream's configured latency and may then be failed with a 500 or throttled with a 429.
+ */
+class UpstreamStubServer implements AutoCloseable {
+
+    static final String LAST_FM = "lastfm";
+    static final String SPOTIFY = "spotify";
+    static final String GEMINI = "gemini";
+
+    private static final int ARTIST_COUNT = 400;
+    private static final int GEMINI_STREAM_CHUNKS = 10;
+    private static final Pattern STUB_SONG = Pattern.compile("Stub Song (\\d+)");
+    private static final Pattern PLAYLIST_PATH = Pattern.compile("/v1/playlists/([^/]+)(/tracks|/items)?");
+
+    private final LoadTestOptions options;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final HttpServer server;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+    private final Map<String, LoadTestOptions.StubBehaviour> behaviours = new LinkedHashMap<>();
+    private final Map<String, AtomicLong> requestCounts = new ConcurrentHashMap<>();
+    private final Map<String, AtomicLong> injectedFailures = new ConcurrentHashMap<>();
+    private final Map<String, AtomicInteger> playlistSizes = new ConcurrentHashMap<>();
+    private final AtomicInteger playlistIds = new AtomicInteger();
+
+    UpstreamStubServer(LoadTestOptions options) throws IOException {
+        this.options = options;
+        for (String upstream : List.of(LAST_FM, SPOTIFY, GEMINI)) {
+            behaviours.put(upstream, options.getStubBehaviour(upstream));
+            requestCounts.put(upstream, new AtomicLong());
+            injectedFailures.put(upstream, new AtomicLong());
+        }
+
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.setExecutor(executor);
+        server.createContext("/lastfm/", exchange -> serve(exchange, LAST_FM, this::handleLastFm));
+        server.createContext("/api/token", exchange -> serve(exchange, SPOTIFY, this::handleSpotifyToken));
+        server.createContext("/v1/", exchange -> serve(exchange, SPOTIFY, this::handleSpotifyApi));
+        server.createContext("/gemini/", exchange -> serve(exchange, GEMINI, this::handleGemini));
+    }
+
+    void start() {
+        server.start();
+    }
+
+    String getBaseUrl() {
+        return "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    Map<String, LoadTestOptions.StubBehaviour> getBehaviours() { return behaviours; }
+    long getRequestCount(String upstream) { return requestCounts.get(upstream).get(); }
+    long getInjectedFailureCount(String upstream) { return injectedFailures.get(upstream).get(); }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    private void serve(HttpExchange exchange, String upstream, Handler handler) throws IOException {
+        try {
+            requestCounts.get(upstream).incrementAndGet();
+            LoadTestOptions.StubBehaviour behaviour = behaviours.get(upstream);
+            sleep(behaviour.getLatencyMs() + (behaviour.getJitterMs() > 0
+                    ? ThreadLocalRandom.current().nextLong(behaviour.getJitterMs() + 1) : 0));
+
+            double roll = ThreadLocalRandom.current().nextDouble();
+            if (roll < behaviour.getErrorRate()) {
+                injectedFailures.get(upstream).incrementAndGet();
+                sendJson(exchange, 500, errorBody(upstream, 500, "Injected stub error"));
+                return;
+            }
+            if (roll < behaviour.getErrorRate() + behaviour.getThrottleRate()) {
+                injectedFailures.get(upstream).incrementAndGet();
+                exchange.getResponseHeaders().set("Retry-After", "1");
+                sendJson(exchange, 429, errorBody(upstream, 429, "Injected stub throttling"));
+                return;
+            }
+
+            handler.handle(exchange);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (RuntimeException e) {
+            sendJson(exchange, 500, errorBody(upstream, 500, "Stub failure: " + e.getMessage()));
+        } finally {
+            exchange.close();
+        }
+    }
+
+    // Last.fm
+
+    private void handleLastFm(HttpExchange exchange) throws IOException {
+        Map<String, String> query = parseQuery(exchange.getRequestURI().getRawQuery());
+        String method = query.getOrDefault("method", "").toLowerCase();
+        String artist = query.getOrDefault("artist", "Stub Artist 0");
+
+        Object body = switch (method) {
+            case "tag.gettoptags" -> Map.of("toptags", Map.of("tag", names("stub tag", 50)));
+            case "tag.gettopartists" -> Map.of("topartists", Map.of("artist", randomArtists(50)));
+            case "artist.getsimilar" -> Map.of("similarartists", Map.of("artist", randomArtists(100)));
+            case "artist.gettoptracks" -> Map.of("toptracks", Map.of("track", randomSongs(50)));
+            case "artist.gettoptags" -> Map.of("toptags", Map.of("tag", names("stub tag", 10)));
+            case "artist.getinfo" -> Map.of("artist", Map.of("name", artist));
+            case "artist.search" -> Map.of("results", Map.of("artistmatches",
+                    Map.of("artist", List.of(Map.of("name", artist)))));
+            default -> Map.of("error", 3, "message", "Invalid Method - No method with that name in this package");
+        };
+        sendJson(exchange, 200, body);
+    }
+
+    private List<Map<String, String>> names(String prefix, int count) {
+        List<Map<String, String>> names = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            names.add(Map.of("name", prefix + " " + i));
+        }
+        return names;
+    }
+
+    private List<Map<String, String>> randomArtists(int count) {
+        List<Map<String, String>> artists = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            artists.add(Map.of("name", artistName(ThreadLocalRandom.current().nextInt(ARTIST_COUNT))));
+        }
+        return artists;
+    }
+
+    private List<Map<String, String>> randomSongs(int count) {
+        List<Map<String, String>> songs = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            songs.add(Map.of("name", songName(randomCatalogIndex())));
+        }
+        return songs;
+    }
+
+    // Spotify
+
+    private void handleSpotifyToken(HttpExchange exchange) throws IOException {
+        exchange.getRequestBody().readAllBytes();
+        Map<String, Object> token = new LinkedHashMap<>();
+        token.put("access_token", "stub-access-" + ThreadLocalRandom.current().nextLong(Long.MAX_VALUE));
+        token.put("token_type", "Bearer");
+        token.put("scope", "user-top-read playlist-modify-private playlist-modify-public");
+        token.put("expires_in", 3600);
+        token.put("refresh_token", "stub-refresh");
+        sendJson(exchange, 200, token);
+    }
+
+    private void handleSpotifyApi(HttpExchange exchange) throws IOException {
+        String path = exchange.getRequestURI().getPath();
+        String method = exchange.getRequestMethod();
+        Map<String, String> query = parseQuery(exchange.getRequestURI().getRawQuery());
+
+        if (path.equals("/v1/me")) {
+            sendJson(exchange, 200, user("loadtest-user"));
+        } else if (path.equals("/v1/me/top/artists")) {
+            List<Object> artists = new ArrayList<>();
+            for (int i = 0; i < 20; i++) {
+                artists.add(artist(ThreadLocalRandom.current().nextInt(ARTIST_COUNT)));
+            }
+            sendJson(exchange, 200, paging(artists));
+        } else if (path.equals("/v1/me/top/tracks")) {
+            List<Object> tracks = new ArrayList<>();
+            for (int i = 0; i < 20; i++) {
+                tracks.add(track(randomCatalogIndex()));
+            }
+            sendJson(exchange, 200, paging(tracks));
+        } else if (path.equals("/v1/search")) {
+            sendJson(exchange, 200, Map.of("tracks", paging(List.of(track(catalogIndexFor(query.getOrDefault("q", "")))))));
+        } else if (path.equals("/v1/tracks")) {
+            List<Object> tracks = new ArrayList<>();
+            for (String id : query.getOrDefault("ids", "").split(",")) {
+                tracks.add(id.startsWith("stubtrack") ? track(Integer.parseInt(id.substring("stubtrack".length()))) : null);
+            }
+            sendJson(exchange, 200, Map.of("tracks", tracks));
+        } else if (path.endsWith("/playlists") && method.equals("POST")) {
+            JsonNode request = objectMapper.readTree(exchange.getRequestBody());
+            String id = "stubplaylist" + playlistIds.incrementAndGet();
+            playlistSizes.put(id, new AtomicInteger());
+            sendJson(exchange, 201, playlist(id, request != null ? request.path("name").asText("Stub Playlist") : "Stub Playlist"));
+        } else {
+            Matcher matcher = PLAYLIST_PATH.matcher(path);
+            if (matcher.matches()) {
+                handlePlaylist(exchange, matcher.group(1), matcher.group(2) != null, query);
+            } else {
+                sendJson(exchange, 404, errorBody(SPOTIFY, 404, "Not stubbed: " + method + " " + path));
+            }
+        }
+    }
+
+    private void handlePlaylist(HttpExchange exchange, String playlistId, boolean items,
+                                Map<String, String> query) throws IOException {
+        AtomicInteger size = playlistSizes.computeIfAbsent(playlistId, id -> new AtomicInteger());
+        if (items && exchange.getRequestMethod().equals("POST")) {
+            JsonNode request = objectMapper.readTree(exchange.getRequestBody());
+            int added = request != null && request.path("uris").isArray()
+                    ? request.path("uris").size()
+                    : query.getOrDefault("uris", "").split(",").length;
+            size.addAndGet(added);
+            sendJson(exchange, 201, Map.of("snapshot_id", playlistId + "-" + size.get()));
+        } else {
+            Map<String, Object> playlist = playlist(playlistId, "Stub Playlist");
+            playlist.put("snapshot_id", playlistId + "-" + size.get());
+            playlist.put("tracks", Map.of("total", size.get()));
+            sendJson(exchange, 200, playlist);
+        }
+    }
+
+    private Map<String, Object> user(String id) {
+        Map<String, Object> user = new LinkedHashMap<>();
+        user.put("id", id);
+        user.put("display_name", "Load Test User");
+        user.put("type", "user");
+        user.put("uri", "spotify:user:" + id);
+        user.put("country", "US");
+        user.put("product", "premium");
+        user.put("followers", Map.of("total", 0));
+        user.put("images", List.of());
+        user.put("external_urls", Map.of("spotify", "https://open.spotify.com/user/" + id));
+        return user;
+    }
+
+    private Map<String, Object> artist(int index) {
+        Map<String, Object> artist = artistSimplified(index);
+        artist.put("genres", List.of("stub"));
+        artist.put("popularity", 50);
+        artist.put("followers", Map.of("total", 1000));
+        artist.put("images", List.of(image(index)));
+        return artist;
+    }
+
+    private Map<String, Object> artistSimplified(int index) {
+        String id = String.format("stubartist%012d", index);
+        Map<String, Object> artist = new LinkedHashMap<>();
+        artist.put("id", id);
+        artist.put("name", artistName(index));
+        artist.put("type", "artist");
+        artist.put("uri", "spotify:artist:" + id);
+        artist.put("external_urls", Map.of("spotify", "https://open.spotify.com/artist/" + id));
+        return artist;
+    }
+
+    private Map<String, Object> track(int index) {
+        String id = String.format("stubtrack%013d", index);
+        int artistIndex = index % ARTIST_COUNT;
+
+        Map<String, Object> album = new LinkedHashMap<>();
+        album.put("id", String.format("stubalbum%013d", index / 10));
+        album.put("name", "Stub Album " + index / 10);
+        album.put("type", "album");
+        album.put("album_type", "album");
+        album.put("uri", "spotify:album:" + album.get("id"));
+        album.put("release_date", "2020-01-01");
+        album.put("release_date_precision", "day");
+        album.put("images", List.of(image(index / 10)));
+        album.put("artists", List.of(artistSimplified(artistIndex)));
+        album.put("external_urls", Map.of("spotify", "https://open.spotify.com/album/" + album.get("id")));
+
+        Map<String, Object> track = new LinkedHashMap<>();
+        track.put("id", id);
+        track.put("name", songName(index));
+        track.put("type", "track");
+        track.put("uri", "spotify:track:" + id);
+        track.put("duration_ms", 150_000 + index % 120_000);
+        track.put("is_playable", true);
+        track.put("explicit", false);
+        track.put("popularity", 50);
+        track.put("disc_number", 1);
+        track.put("track_number", index % 10 + 1);
+        track.put("artists", List.of(artistSimplified(artistIndex)));
+        track.put("album", album);
+        track.put("external_ids", Map.of());
+        track.put("external_urls", Map.of("spotify", "https://open.spotify.com/track/" + id));
+        return track;
+    }
+
+    private Map<String, Object> playlist(String id, String name) {
+        Map<String, Object> playlist = new LinkedHashMap<>();
+        playlist.put("id", id);
+        playlist.put("name", name);
+        playlist.put("type", "playlist");
+        playlist.put("uri", "spotify:playlist:" + id);
+        playlist.put("snapshot_id", id + "-0");
+        playlist.put("collaborative", false);
+        playlist.put("public", false);
+        playlist.put("description", "");
+        playlist.put("owner", user("loadtest-user"));
+        playlist.put("images", List.of());
+        playlist.put("tracks", paging(List.of()));
+        playlist.put("external_urls", Map.of("spotify", "https://open.spotify.com/playlist/" + id));
+        return playlist;
+    }
+
+    private Map<String, Object> image(int index) {
+        return Map.of("url", "https://i.scdn.co/image/stub" + index, "height", 640, "width", 640);
+    }
+
+    private Map<String, Object> paging(List<?> items) {
+        Map<String, Object> paging = new LinkedHashMap<>();
+        paging.put("href", "https://api.spotify.com/v1/stub");
+        paging.put("items", items);
+        paging.put("limit", Math.max(20, items.size()));
+        paging.put("offset", 0);
+        paging.put("total", items.size());
+        paging.put("next", null);
+        paging.put("previous", null);
+        return paging;
+    }
+
+    // Gemini
+
+    private void handleGemini(HttpExchange exchange) throws IOException, InterruptedException {
+        String request = new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8);
+        // Recommendation calls carry the JSON-tracks system instruction; anything else asks for a name
+        String text = request.contains("music recommendation API")
+                ? recommendationText()
+                : "Stub Playlist " + ThreadLocalRandom.current().nextInt(1000);
+
+        if (!exchange.getRequestURI().getPath().endsWith(":streamGenerateContent")) {
+            sendJson(exchange, 200, geminiChunk(text));
+            return;
+        }
+
+        exchange.getResponseHeaders().set("Content-Type", "text/event-stream");
+        exchange.sendResponseHeaders(200, 0);
+        OutputStream out = exchange.getResponseBody();
+        int chunkLength = Math.max(1, (text.length() + GEMINI_STREAM_CHUNKS - 1) / GEMINI_STREAM_CHUNKS);
+        for (int start = 0; start < text.length(); start += chunkLength) {
+            String piece = text.substring(start, Math.min(text.length(), start + chunkLength));
+            out.write(("data: " + objectMapper.writeValueAsString(geminiChunk(piece)) + "\r\n\r\n")
+                    .getBytes(StandardCharsets.UTF_8));
+            out.flush();
+            // Spread generation time over the stream the way a real model emits tokens
+            sleep(behaviours.get(GEMINI).getLatencyMs() / GEMINI_STREAM_CHUNKS);
+        }
+    }
+
+    private String recommendationText() throws IOException {
+        List<Map<String, String>> tracks = new ArrayList<>();
+        for (int i = 0; i < options.getRecommendedTracks(); i++) {
+            int index = randomCatalogIndex();
+            tracks.add(Map.of("title", songName(index), "artist", artistName(index % ARTIST_COUNT)));
+        }
+        return "```json\n" + objectMapper.writeValueAsString(Map.of("tracks", tracks)) + "\n```";
+    }
+
+    private Map<String, Object> geminiChunk(String text) {
+        Map<String, Object> content = Map.of("role", "model", "parts", List.of(Map.of("text", text)));
+        return Map.of("candidates", List.of(Map.of("content", content, "index", 0)));
+    }
+
+    // Helpers
+
+    private int randomCatalogIndex() {
+        return ThreadLocalRandom.current().nextInt(options.getCatalogSize());
+    }
+
+    /**
+     * The catalog entry a search query refers to: the song number when the query names a stub
+     * song, otherwise a stable hash of the query
+     */
+    private int catalogIndexFor(String query) {
+        Matcher matcher = STUB_SONG.matcher(query);
+        if (matcher.find()) {
+            return Integer.parseInt(matcher.group(1));
+        }
+        return Math.floorMod(query.hashCode(), options.getCatalogSize());
+    }
+
+    private static String songName(int index) {
+        return "Stub Song " + index;
+    }
+
+    private static String artistName(int index) {
+        return "Stub Artist " + index;
+    }
+
+    private Object errorBody(String upstream, int status, String message) {
+        return switch (upstream) {
+            case LAST_FM -> Map.of("error", 29, "message", message);
+            case GEMINI -> Map.of("error", Map.of("code", status, "message", message));
+            default -> Map.of("error", Map.of("status", status, "message", message));
+        };
+    }
+
+    private void sendJson(HttpExchange exchange, int status, Object body) throws IOException {
+        byte[] bytes = objectMapper.writeValueAsBytes(body);
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(status, bytes.length);
+        exchange.getResponseBody().write(bytes);
+    }
+
+    private static Map<String, String> parseQuery(String rawQuery) {
+        Map<String, String> parameters = new LinkedHashMap<>();
+        if (rawQuery == null) {
+            return parameters;
+        }
+        for (String pair : rawQuery.split("&")) {
+            int separator = pair.indexOf('=');
+            if (separator > 0) {
+                parameters.put(URLDecoder.decode(pair.substring(0, separator), StandardCharsets.UTF_8),
+                        URLDecoder.decode(pair.substring(separator + 1), StandardCharsets.UTF_8));
+            }
+        }
+        return parameters;
+    }
+
+    private static void sleep(long millis) throws InterruptedException {
+        if (millis > 0) {
+            Thread.sleep(millis);
+        }
+    }
+
+    @FunctionalInterface
+    private interface Handler {
+        void handle(HttpExchange exchange) throws IOException, InterruptedException;
+    }
+}
@@ -0,0 +1,190 @@
+package com.playlistgenerator.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.net.CookieManager;
+import java.net.CookiePolicy;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.StringJoiner;
+
+/**
+ * One simulated browser: logs in through the OAuth callback, then repeatedly submits a
+ * generation through {@code /api/generate-playlist}, polls the job until it finishes and saves
+ * the result through {@code /api/confirm-playlist}. Keeps its own cookies, so it has its own
+ * HTTP session and Spotify client on the server.
+ */
+class VirtualUser implements Runnable {
+
+    static final String LOGIN = "login";
+    static final String GENERATE = "generate";
+    static final String CONFIRM = "confirm";
+
+    private final int id;
+    private final String appBaseUrl;
+    private final LoadTestOptions options;
+    private final LatencyRecorder recorder;
+    private final ObjectMapper objectMapper;
+    private final HttpClient client;
+
+    VirtualUser(int id, String appBaseUrl, LoadTestOptions options, LatencyRecorder recorder, ObjectMapper objectMapper) {
+        this.id = id;
+        this.appBaseUrl = appBaseUrl;
+        this.options = options;
+        this.recorder = recorder;
+        this.objectMapper = objectMapper;
+        this.client = HttpClient.newBuilder()
+                .cookieHandler(new CookieManager(null, CookiePolicy.ACCEPT_ALL))
+                .followRedirects(HttpClient.Redirect.NEVER)
+                .connectTimeout(Duration.ofSeconds(10))
+                .build();
+    }
+
+    @Override
+    public void run() {
+        try {
+            if (!login()) {
+                return;
+            }
+            for (int i = 0; i < options.getIterations() && !Thread.currentThread().isInterrupted(); i++) {
+                Generation generation = generate();
+                if (generation != null && options.isConfirm()) {
+                    confirm(generation);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private boolean login() throws InterruptedException {
+        long start = System.nanoTime();
+        try {
+            HttpResponse<String> response = send(HttpRequest.newBuilder(
+                    URI.create(appBaseUrl + "/api/get-user-code?code=loadtest-" + id)).GET().build());
+            if (response.statusCode() != 302) {
+                recorder.recordFailure(LOGIN, "HTTP " + response.statusCode());
+                return false;
+            }
+            recorder.recordSuccess(LOGIN, System.nanoTime() - start);
+            return true;
+        } catch (IOException e) {
+            recorder.recordFailure(LOGIN, e.getClass().getSimpleName());
+            return false;
+        }
+    }
+
+    /**
+     * Submit the form and wait for the job; the latency covers queueing and the whole generation
+     */
+    private Generation generate() throws InterruptedException {
+        long start = System.nanoTime();
+        try {
+            HttpResponse<String> submitted = send(postForm("/api/generate-playlist", formFields()));
+            String location = submitted.headers().firstValue("Location").orElse("");
+            if (submitted.statusCode() != 302 || !location.contains("/generate-playlist/jobs/")) {
+                // The form page is rendered again with a message when the job queue is full
+                recorder.recordFailure(GENERATE, submitted.statusCode() == 200 ? "rejected" : "HTTP " + submitted.statusCode());
+                return null;
+            }
+            String jobId = location.substring(location.lastIndexOf('/') + 1);
+
+            long deadline = start + options.getGenerationTimeout().toNanos();
+            while (System.nanoTime() < deadline) {
+                HttpResponse<String> polled = send(HttpRequest.newBuilder(URI.create(appBaseUrl + "/api/jobs/" + jobId)).GET().build());
+                JsonNode job = objectMapper.readTree(polled.body());
+                String status = job.path("status").asText();
+
+                if ("succeeded".equals(status)) {
+                    List<String> uris = new ArrayList<>();
+                    job.path("tracks").forEach(track -> uris.add(track.path("uri").asText()));
+                    if (uris.isEmpty()) {
+                        recorder.recordFailure(GENERATE, "no tracks");
+                        return null;
+                    }
+                    recorder.recordSuccess(GENERATE, System.nanoTime() - start);
+                    return new Generation(job.path("generationId").asText(null), uris);
+                }
+                if ("failed".equals(status) || "cancelled".equals(status)) {
+                    recorder.recordFailure(GENERATE, status + ": " + job.path("error").asText(""));
+                    return null;
+                }
+                Thread.sleep(options.getPollInterval().toMillis());
+            }
+            recorder.recordFailure(GENERATE, "timed out");
+        } catch (IOException e) {
+            recorder.recordFailure(GENERATE, e.getClass().getSimpleName());
+        }
+        return null;
+    }
+
+    private void confirm(Generation generation) throws InterruptedException {
+        long start = System.nanoTime();
+        StringJoiner form = new StringJoiner("&");
+        generation.uris.forEach(uri -> form.add("tracks=" + encode(uri)));
+        if (generation.generationId != null) {
+            form.add("generationId=" + encode(generation.generationId));
+        }
+
+        try {
+            HttpResponse<String> response = send(HttpRequest.newBuilder(URI.create(appBaseUrl + "/api/confirm-playlist"))
+                    .header("Content-Type", "application/x-www-form-urlencoded")
+                    .POST(HttpRequest.BodyPublishers.ofString(form.toString()))
+                    .build());
+            if (response.statusCode() == 200 && response.body().contains("successfully created")) {
+                recorder.recordSuccess(CONFIRM, System.nanoTime() - start);
+            } else {
+                recorder.recordFailure(CONFIRM, response.statusCode() == 200 ? "not saved" : "HTTP " + response.statusCode());
+            }
+        } catch (IOException e) {
+            recorder.recordFailure(CONFIRM, e.getClass().getSimpleName());
+        }
+    }
+
+    private Map<String, String> formFields() {
+        return Map.of(
+                "mode", options.getMode(),
+                "artists", options.getArtists(),
+                "genres", options.getGenres(),
+                "mood", options.getMood(),
+                "useListeningHistory", String.valueOf(options.isUseListeningHistory()),
+                "timeframe", "medium_term");
+    }
+
+    private HttpRequest postForm(String path, Map<String, String> fields) {
+        StringJoiner form = new StringJoiner("&");
+        fields.forEach((name, value) -> form.add(encode(name) + "=" + encode(value)));
+        return HttpRequest.newBuilder(URI.create(appBaseUrl + path))
+                .header("Content-Type", "application/x-www-form-urlencoded")
+                .POST(HttpRequest.BodyPublishers.ofString(form.toString()))
+                .build();
+    }
+
+    private HttpResponse<String> send(HttpRequest request) throws IOException, InterruptedException {
+        return client.send(request, HttpResponse.BodyHandlers.ofString());
+    }
+
+    private static String encode(String value) {
+        return URLEncoder.encode(value, StandardCharsets.UTF_8);
+    }
+
+    private static class Generation {
+        private final String generationId;
+        private final List<String> uris;
+
+        Generation(String generationId, List<String> uris) {
+            this.generationId = generationId;
+            this.uris = uris;
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package com.playlistgenerator.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.playlistgenerator.service.cache.LocalCatalogIndex;
+import com.playlistgenerator.service.cache.TieredResponseCache;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.nio.file.Paths;
+import java.time.Duration;
+
+@Configuration
+public class CacheConfig {
+
+    @Bean(destroyMethod = "close")
+    public TieredResponseCache lastFmResponseCache(PlaylistGenerationConfig config, ObjectMapper objectMapper) {
+        return new TieredResponseCache(
+                "lastfm",
+                config.getLastFmCacheMaxEntries(),
+                config.getLastFmCacheMaxDiskEntries(),
+                Paths.get(config.getCacheDirectory()),
+                objectMapper);
+    }
+
+    @Bean(destroyMethod = "close")
+    public LocalCatalogIndex localCatalogIndex(PlaylistGenerationConfig config) {
+        // Without a directory the index is neither loaded nor persisted
+        return new LocalCatalogIndex(
+                config.isCatalogIndexEnabled() ? Paths.get(config.getCacheDirectory()) : null,
+                config.getCatalogIndexMaxEntries(),
+                config.getCatalogIndexMinScore(),
+                Duration.ofDays(config.getCatalogIndexMaxAgeDays()));
+    }
+}
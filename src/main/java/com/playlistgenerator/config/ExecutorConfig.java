@@ -0,0 +1,76 @@
+package com.playlistgenerator.config;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+@Configuration
+public class ExecutorConfig {
+
+    /**
+     * Executor for blocking calls to Last.fm, Spotify and Gemini, kept apart from the common pool.
+     * Uses one virtual thread per task by default; callers cap their own concurrency and the
+     * rate limiters bound the upstream request rate. Set
+     * {@code playlist.generation.upstream-virtual-threads=false} for a fixed platform-thread pool.
+     */
+    @Bean(destroyMethod = "shutdownNow")
+    @Primary
+    public ExecutorService upstreamExecutor(PlaylistGenerationConfig config) {
+        if (config.isUpstreamVirtualThreads()) {
+            return Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("upstream-io-", 1).factory());
+        }
+
+        AtomicInteger counter = new AtomicInteger();
+        ThreadFactory threadFactory = runnable -> {
+            Thread thread = new Thread(runnable, "upstream-io-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+        return Executors.newFixedThreadPool(config.getUpstreamPoolSize(), threadFactory);
+    }
+
+    /**
+     * Workers for whole playlist generations. Bounded in both threads and queue so a burst of
+     * submissions is rejected instead of piling up; each job fans out its own upstream calls
+     * onto {@link #upstreamExecutor}.
+     */
+    @Bean(destroyMethod = "shutdownNow")
+    public ExecutorService generationJobExecutor(PlaylistGenerationConfig config) {
+        AtomicInteger counter = new AtomicInteger();
+        ThreadFactory threadFactory = runnable -> {
+            Thread thread = new Thread(runnable, "generation-job-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+        return new ThreadPoolExecutor(config.getJobWorkers(), config.getJobWorkers(),
+                0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(config.getJobQueueCapacity()),
+                threadFactory, new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    /**
+     * Single low-priority worker for quick-type pool refills. One refill can wait behind the
+     * running one; further triggers are dropped rather than queued up.
+     */
+    @Bean(destroyMethod = "shutdownNow")
+    public ExecutorService quickTypeRefillExecutor() {
+        ThreadFactory threadFactory = runnable -> {
+            Thread thread = new Thread(runnable, "quick-type-refill");
+            thread.setDaemon(true);
+            thread.setPriority(Thread.MIN_PRIORITY);
+            return thread;
+        };
+        return new ThreadPoolExecutor(1, 1,
+                0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(1),
+                threadFactory, new ThreadPoolExecutor.DiscardPolicy());
+    }
+}
@@ -10,6 +10,8 @@ public class LastFmConfig {
     private String apiKey;
     private String sharedSecret;
     private String redirectUri;
+    // API root; overridable to point at a local stub
+    private String baseUrl = "http://ws.audioscrobbler.com/2.0/";
 
     public String getApiKey() {
         return apiKey;
@@ -35,5 +37,13 @@ public class LastFmConfig {
         this.redirectUri = redirectUri;
     }
 
+    public String getBaseUrl() {
+        return baseUrl;
+    }
+
+    public void setBaseUrl(String baseUrl) {
+        this.baseUrl = baseUrl;
+    }
+
 
 }
@@ -0,0 +1,164 @@
+package com.playlistgenerator.config;
+
+import com.playlistgenerator.service.QuickTypeTrackPool;
+import com.playlistgenerator.service.SpotifyService;
+import com.playlistgenerator.service.cache.GenerationResultStore;
+import com.playlistgenerator.service.cache.LocalCatalogIndex;
+import com.playlistgenerator.service.cache.LruCache;
+import com.playlistgenerator.service.cache.RecommendationPool;
+import com.playlistgenerator.service.cache.SingleFlight;
+import com.playlistgenerator.service.cache.TieredResponseCache;
+import com.playlistgenerator.service.cache.TrackResolutionCache;
+import com.playlistgenerator.service.ratelimit.RateLimiterRegistry;
+import com.playlistgenerator.service.ratelimit.TokenBucketRateLimiter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.FunctionTimer;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.TimeGauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Publishes the counters the rate limiters and caches already keep. Caches follow Micrometer's
+ * naming ({@code cache.gets}, {@code cache.evictions}, {@code cache.size}) with a {@code cache} tag,
+ * plus a {@code cache.hit.ratio} gauge. Request coalescing is counted per single-flight group.
+ */
+@Configuration
+public class MetricsConfig {
+
+    @Bean
+    public MeterBinder rateLimiterMetrics(RateLimiterRegistry rateLimiterRegistry) {
+        return registry -> {
+            for (TokenBucketRateLimiter limiter : rateLimiterRegistry.getAll()) {
+                FunctionTimer.builder("playlist.ratelimiter.wait", limiter,
+                                TokenBucketRateLimiter::getAcquisitionCount,
+                                TokenBucketRateLimiter::getTotalWaitMillis, TimeUnit.MILLISECONDS)
+                        .description("Time spent waiting for a rate limiter permit")
+                        .tag("limiter", limiter.getName())
+                        .register(registry);
+                FunctionCounter.builder("playlist.ratelimiter.delayed", limiter,
+                                TokenBucketRateLimiter::getDelayedAcquisitionCount)
+                        .description("Permits that had to wait")
+                        .tag("limiter", limiter.getName())
+                        .register(registry);
+                TimeGauge.builder("playlist.ratelimiter.wait.max", limiter, TimeUnit.MILLISECONDS,
+                                TokenBucketRateLimiter::getMaxWaitMillis)
+                        .description("Longest wait for a permit since startup")
+                        .tag("limiter", limiter.getName())
+                        .register(registry);
+            }
+        };
+    }
+
+    @Bean
+    public MeterBinder cacheMetrics(TieredResponseCache lastFmResponseCache, TrackResolutionCache trackResolutionCache,
+                                    GenerationResultStore generationResultStore, SpotifyService spotifyService,
+                                    RecommendationPool recommendationPool, QuickTypeTrackPool quickTypeTrackPool,
+                                    LocalCatalogIndex localCatalogIndex) {
+        return registry -> {
+            String lastFm = lastFmResponseCache.getName();
+            gets(registry, lastFm, "hit", lastFmResponseCache, TieredResponseCache::getFreshHitCount);
+            gets(registry, lastFm, "stale", lastFmResponseCache, TieredResponseCache::getStaleHitCount);
+            gets(registry, lastFm, "miss", lastFmResponseCache, TieredResponseCache::getMissCount);
+            size(registry, lastFm, lastFmResponseCache, TieredResponseCache::getMemorySize);
+            hitRatio(registry, lastFm, lastFmResponseCache, TieredResponseCache::getHitRate);
+
+            String trackResolution = "trackResolution";
+            gets(registry, trackResolution, "hit", trackResolutionCache,
+                    cache -> cache.getHitCount() + cache.getNegativeHitCount());
+            gets(registry, trackResolution, "miss", trackResolutionCache, TrackResolutionCache::getMissCount);
+            evictions(registry, trackResolution, trackResolutionCache, TrackResolutionCache::getEvictionCount);
+            size(registry, trackResolution, trackResolutionCache, TrackResolutionCache::getSize);
+            hitRatio(registry, trackResolution, trackResolutionCache, TrackResolutionCache::getHitRate);
+
+            String trackDetails = "trackDetails";
+            LruCache<?, ?> trackDetailsCache = spotifyService.getTrackDetailsCache();
+            gets(registry, trackDetails, "hit", trackDetailsCache, LruCache::getHitCount);
+            gets(registry, trackDetails, "miss", trackDetailsCache, LruCache::getMissCount);
+            evictions(registry, trackDetails, trackDetailsCache, LruCache::getEvictionCount);
+            size(registry, trackDetails, trackDetailsCache, LruCache::size);
+            hitRatio(registry, trackDetails, trackDetailsCache, LruCache::getHitRate);
+
+            String generationResults = "generationResults";
+            gets(registry, generationResults, "hit", generationResultStore, GenerationResultStore::getHitCount);
+            gets(registry, generationResults, "miss", generationResultStore, GenerationResultStore::getMissCount);
+            evictions(registry, generationResults, generationResultStore,
+                    store -> store.getEvictionCount() + store.getExpiredCount());
+            size(registry, generationResults, generationResultStore, GenerationResultStore::getSize);
+            hitRatio(registry, generationResults, generationResultStore, GenerationResultStore::getHitRate);
+
+            String recommendations = "recommendationPool";
+            gets(registry, recommendations, "hit", recommendationPool, RecommendationPool::getHitCount);
+            gets(registry, recommendations, "miss", recommendationPool, RecommendationPool::getMissCount);
+            evictions(registry, recommendations, recommendationPool,
+                    pool -> pool.getEvictionCount() + pool.getExpiredCount());
+            size(registry, recommendations, recommendationPool, RecommendationPool::getSize);
+            hitRatio(registry, recommendations, recommendationPool, RecommendationPool::getHitRate);
+
+            String quickTypes = "quickTypePool";
+            gets(registry, quickTypes, "hit", quickTypeTrackPool, QuickTypeTrackPool::getHitCount);
+            gets(registry, quickTypes, "miss", quickTypeTrackPool, QuickTypeTrackPool::getMissCount);
+            size(registry, quickTypes, quickTypeTrackPool, QuickTypeTrackPool::getSize);
+            hitRatio(registry, quickTypes, quickTypeTrackPool, QuickTypeTrackPool::getHitRate);
+
+            String catalogIndex = "catalogIndex";
+            gets(registry, catalogIndex, "hit", localCatalogIndex, LocalCatalogIndex::getHitCount);
+            gets(registry, catalogIndex, "miss", localCatalogIndex, LocalCatalogIndex::getMissCount);
+            evictions(registry, catalogIndex, localCatalogIndex, LocalCatalogIndex::getEvictionCount);
+            size(registry, catalogIndex, localCatalogIndex, LocalCatalogIndex::size);
+            hitRatio(registry, catalogIndex, localCatalogIndex, LocalCatalogIndex::getHitRate);
+        };
+    }
+
+    @Bean
+    public MeterBinder singleFlightMetrics(TieredResponseCache lastFmResponseCache, SpotifyService spotifyService) {
+        return registry -> {
+            for (SingleFlight<?> flight : List.of(lastFmResponseCache.getLoadFlight(),
+                    spotifyService.getSearchFlight(), spotifyService.getTrackBatchFlight())) {
+                FunctionCounter.builder("playlist.upstream.coalesced", flight, SingleFlight::getCoalescedCount)
+                        .description("Calls that shared an identical request already in flight")
+                        .tag("flight", flight.getName())
+                        .register(registry);
+                FunctionCounter.builder("playlist.upstream.flights", flight, SingleFlight::getExecutionCount)
+                        .description("Calls that were sent upstream by a single-flight group")
+                        .tag("flight", flight.getName())
+                        .register(registry);
+            }
+        };
+    }
+
+    private static <T> void gets(MeterRegistry registry, String cache, String result, T source, ToDoubleFunction<T> count) {
+        FunctionCounter.builder("cache.gets", source, count)
+                .description("Cache lookups by result")
+                .tag("cache", cache)
+                .tag("result", result)
+                .register(registry);
+    }
+
+    private static <T> void evictions(MeterRegistry registry, String cache, T source, ToDoubleFunction<T> count) {
+        FunctionCounter.builder("cache.evictions", source, count)
+                .description("Entries removed to make room or because they expired")
+                .tag("cache", cache)
+                .register(registry);
+    }
+
+    private static <T> void size(MeterRegistry registry, String cache, T source, ToDoubleFunction<T> size) {
+        Gauge.builder("cache.size", source, size)
+                .description("Entries currently held")
+                .tag("cache", cache)
+                .register(registry);
+    }
+
+    private static <T> void hitRatio(MeterRegistry registry, String cache, T source, ToDoubleFunction<T> ratio) {
+        Gauge.builder("cache.hit.ratio", source, ratio)
+                .description("Hits over lookups since startup")
+                .tag("cache", cache)
+                .register(registry);
+    }
+}
@@ -3,6 +3,9 @@ package com.playlistgenerator.config;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.stereotype.Component;
 
+import java.util.ArrayList;
+import java.util.List;
+
 @ConfigurationProperties(prefix = "playlist.generation")
 @Component
 public class PlaylistGenerationConfig {
@@ -10,6 +13,54 @@ public class PlaylistGenerationConfig {
     private int maxTracksPerArtist = 5;
     private int searchTimeoutSeconds = 15;
     private int rateLimitDelayMs = 100;
+    private int rateLimitBurst = 5;
+    private int spotifyRateLimitDelayMs = 50;
+    private int geminiRateLimitDelayMs = 250;
+    private int geminiRateLimitBurst = 2;
+    private String cacheDirectory = "cache";
+    private int lastFmCacheMaxEntries = 5000;
+    private int lastFmCacheMaxDiskEntries = 100000;
+    private int upstreamPoolSize = 16;
+    private boolean upstreamVirtualThreads = true;
+    private int searchConcurrency = 8;
+    private boolean adaptiveSearchOrdering = true;
+    private boolean streamingRecommendations = true;
+    private int jobWorkers = 4;
+    private int jobQueueCapacity = 16;
+    private int jobResultTtlMinutes = 30;
+    private int spotifySessionIdleMinutes = 120;
+    private int trackCacheMaxEntries = 20000;
+    private int trackDetailsCacheMaxEntries = 20000;
+    private int generationResultMaxEntries = 1000;
+    private int generationResultTtlMinutes = 60;
+    private int trackCachePositiveTtlHours = 72;
+    private int trackCacheNegativeTtlMinutes = 60;
+    private boolean speculativeArtistLookups = true;
+    private int httpMaxConnections = 50;
+    private int httpMaxConnectionsPerRoute = 20;
+    private int httpConnectTimeoutMs = 5000;
+    private int httpConnectionRequestTimeoutMs = 2000;
+    private int httpIdleTimeoutSeconds = 30;
+    private int lastFmReadTimeoutMs = 10000;
+    private int geminiReadTimeoutMs = 120000;
+    private boolean recommendationPoolEnabled = true;
+    private int recommendationPoolMaxEntries = 500;
+    private int recommendationPoolMinSize = 45;
+    private int recommendationPoolMaxSize = 150;
+    private int recommendationPoolTtlMinutes = 360;
+    private boolean quickTypePoolEnabled = true;
+    private List<String> quickTypePoolTypes = new ArrayList<>(List.of("workout", "chill", "party", "discover"));
+    private int quickTypePoolTargetSize = 90;
+    private int quickTypePoolMaxAgeMinutes = 180;
+    private int quickTypePoolSearchConcurrency = 2;
+    private boolean catalogIndexEnabled = true;
+    private int catalogIndexMaxEntries = 200000;
+    private double catalogIndexMinScore = 0.85;
+    private int catalogIndexMaxAgeDays = 30;
+    private boolean searchMatchVerification = true;
+    private int searchMatchTopK = 5;
+    private double searchMatchMinScore = 0.6;
+    private int recommendationSurplus = 10;
 
     // Getters and Setters
     public int getDefaultPlaylistSize() { return defaultPlaylistSize; }
@@ -23,4 +74,148 @@ public class PlaylistGenerationConfig {
 
     public int getRateLimitDelayMs() { return rateLimitDelayMs; }
     public void setRateLimitDelayMs(int rateLimitDelayMs) { this.rateLimitDelayMs = rateLimitDelayMs; }
+
+    public int getRateLimitBurst() { return rateLimitBurst; }
+    public void setRateLimitBurst(int rateLimitBurst) { this.rateLimitBurst = rateLimitBurst; }
+
+    public int getSpotifyRateLimitDelayMs() { return spotifyRateLimitDelayMs; }
+    public void setSpotifyRateLimitDelayMs(int spotifyRateLimitDelayMs) { this.spotifyRateLimitDelayMs = spotifyRateLimitDelayMs; }
+
+    public int getGeminiRateLimitDelayMs() { return geminiRateLimitDelayMs; }
+    public void setGeminiRateLimitDelayMs(int geminiRateLimitDelayMs) { this.geminiRateLimitDelayMs = geminiRateLimitDelayMs; }
+
+    public int getGeminiRateLimitBurst() { return geminiRateLimitBurst; }
+    public void setGeminiRateLimitBurst(int geminiRateLimitBurst) { this.geminiRateLimitBurst = geminiRateLimitBurst; }
+
+    public String getCacheDirectory() { return cacheDirectory; }
+    public void setCacheDirectory(String cacheDirectory) { this.cacheDirectory = cacheDirectory; }
+
+    public int getLastFmCacheMaxEntries() { return lastFmCacheMaxEntries; }
+    public void setLastFmCacheMaxEntries(int lastFmCacheMaxEntries) { this.lastFmCacheMaxEntries = lastFmCacheMaxEntries; }
+
+    public int getLastFmCacheMaxDiskEntries() { return lastFmCacheMaxDiskEntries; }
+    public void setLastFmCacheMaxDiskEntries(int lastFmCacheMaxDiskEntries) { this.lastFmCacheMaxDiskEntries = lastFmCacheMaxDiskEntries; }
+
+    public int getUpstreamPoolSize() { return upstreamPoolSize; }
+    public void setUpstreamPoolSize(int upstreamPoolSize) { this.upstreamPoolSize = upstreamPoolSize; }
+
+    public boolean isUpstreamVirtualThreads() { return upstreamVirtualThreads; }
+    public void setUpstreamVirtualThreads(boolean upstreamVirtualThreads) { this.upstreamVirtualThreads = upstreamVirtualThreads; }
+
+    public int getSearchConcurrency() { return searchConcurrency; }
+    public void setSearchConcurrency(int searchConcurrency) { this.searchConcurrency = searchConcurrency; }
+
+    public boolean isAdaptiveSearchOrdering() { return adaptiveSearchOrdering; }
+    public void setAdaptiveSearchOrdering(boolean adaptiveSearchOrdering) { this.adaptiveSearchOrdering = adaptiveSearchOrdering; }
+
+    public boolean isStreamingRecommendations() { return streamingRecommendations; }
+    public void setStreamingRecommendations(boolean streamingRecommendations) { this.streamingRecommendations = streamingRecommendations; }
+
+    public int getJobWorkers() { return jobWorkers; }
+    public void setJobWorkers(int jobWorkers) { this.jobWorkers = jobWorkers; }
+
+    public int getJobQueueCapacity() { return jobQueueCapacity; }
+    public void setJobQueueCapacity(int jobQueueCapacity) { this.jobQueueCapacity = jobQueueCapacity; }
+
+    public int getJobResultTtlMinutes() { return jobResultTtlMinutes; }
+    public void setJobResultTtlMinutes(int jobResultTtlMinutes) { this.jobResultTtlMinutes = jobResultTtlMinutes; }
+
+    public int getSpotifySessionIdleMinutes() { return spotifySessionIdleMinutes; }
+    public void setSpotifySessionIdleMinutes(int spotifySessionIdleMinutes) { this.spotifySessionIdleMinutes = spotifySessionIdleMinutes; }
+
+    public int getTrackCacheMaxEntries() { return trackCacheMaxEntries; }
+    public void setTrackCacheMaxEntries(int trackCacheMaxEntries) { this.trackCacheMaxEntries = trackCacheMaxEntries; }
+
+    public int getTrackDetailsCacheMaxEntries() { return trackDetailsCacheMaxEntries; }
+    public void setTrackDetailsCacheMaxEntries(int trackDetailsCacheMaxEntries) { this.trackDetailsCacheMaxEntries = trackDetailsCacheMaxEntries; }
+
+    public int getGenerationResultMaxEntries() { return generationResultMaxEntries; }
+    public void setGenerationResultMaxEntries(int generationResultMaxEntries) { this.generationResultMaxEntries = generationResultMaxEntries; }
+
+    public int getGenerationResultTtlMinutes() { return generationResultTtlMinutes; }
+    public void setGenerationResultTtlMinutes(int generationResultTtlMinutes) { this.generationResultTtlMinutes = generationResultTtlMinutes; }
+
+    public int getTrackCachePositiveTtlHours() { return trackCachePositiveTtlHours; }
+    public void setTrackCachePositiveTtlHours(int trackCachePositiveTtlHours) { this.trackCachePositiveTtlHours = trackCachePositiveTtlHours; }
+
+    public int getTrackCacheNegativeTtlMinutes() { return trackCacheNegativeTtlMinutes; }
+    public void setTrackCacheNegativeTtlMinutes(int trackCacheNegativeTtlMinutes) { this.trackCacheNegativeTtlMinutes = trackCacheNegativeTtlMinutes; }
+
+    public boolean isSpeculativeArtistLookups() { return speculativeArtistLookups; }
+    public void setSpeculativeArtistLookups(boolean speculativeArtistLookups) { this.speculativeArtistLookups = speculativeArtistLookups; }
+
+    public int getHttpMaxConnections() { return httpMaxConnections; }
+    public void setHttpMaxConnections(int httpMaxConnections) { this.httpMaxConnections = httpMaxConnections; }
+
+    public int getHttpMaxConnectionsPerRoute() { return httpMaxConnectionsPerRoute; }
+    public void setHttpMaxConnectionsPerRoute(int httpMaxConnectionsPerRoute) { this.httpMaxConnectionsPerRoute = httpMaxConnectionsPerRoute; }
+
+    public int getHttpConnectTimeoutMs() { return httpConnectTimeoutMs; }
+    public void setHttpConnectTimeoutMs(int httpConnectTimeoutMs) { this.httpConnectTimeoutMs = httpConnectTimeoutMs; }
+
+    public int getHttpConnectionRequestTimeoutMs() { return httpConnectionRequestTimeoutMs; }
+    public void setHttpConnectionRequestTimeoutMs(int httpConnectionRequestTimeoutMs) { this.httpConnectionRequestTimeoutMs = httpConnectionRequestTimeoutMs; }
+
+    public int getHttpIdleTimeoutSeconds() { return httpIdleTimeoutSeconds; }
+    public void setHttpIdleTimeoutSeconds(int httpIdleTimeoutSeconds) { this.httpIdleTimeoutSeconds = httpIdleTimeoutSeconds; }
+
+    public int getLastFmReadTimeoutMs() { return lastFmReadTimeoutMs; }
+    public void setLastFmReadTimeoutMs(int lastFmReadTimeoutMs) { this.lastFmReadTimeoutMs = lastFmReadTimeoutMs; }
+
+    public int getGeminiReadTimeoutMs() { return geminiReadTimeoutMs; }
+    public void setGeminiReadTimeoutMs(int geminiReadTimeoutMs) { this.geminiReadTimeoutMs = geminiReadTimeoutMs; }
+
+    public boolean isRecommendationPoolEnabled() { return recommendationPoolEnabled; }
+    public void setRecommendationPoolEnabled(boolean recommendationPoolEnabled) { this.recommendationPoolEnabled = recommendationPoolEnabled; }
+
+    public int getRecommendationPoolMaxEntries() { return recommendationPoolMaxEntries; }
+    public void setRecommendationPoolMaxEntries(int recommendationPoolMaxEntries) { this.recommendationPoolMaxEntries = recommendationPoolMaxEntries; }
+
+    public int getRecommendationPoolMinSize() { return recommendationPoolMinSize; }
+    public void setRecommendationPoolMinSize(int recommendationPoolMinSize) { this.recommendationPoolMinSize = recommendationPoolMinSize; }
+
+    public int getRecommendationPoolMaxSize() { return recommendationPoolMaxSize; }
+    public void setRecommendationPoolMaxSize(int recommendationPoolMaxSize) { this.recommendationPoolMaxSize = recommendationPoolMaxSize; }
+
+    public int getRecommendationPoolTtlMinutes() { return recommendationPoolTtlMinutes; }
+    public void setRecommendationPoolTtlMinutes(int recommendationPoolTtlMinutes) { this.recommendationPoolTtlMinutes = recommendationPoolTtlMinutes; }
+
+    public boolean isQuickTypePoolEnabled() { return quickTypePoolEnabled; }
+    public void setQuickTypePoolEnabled(boolean quickTypePoolEnabled) { this.quickTypePoolEnabled = quickTypePoolEnabled; }
+
+    public List<String> getQuickTypePoolTypes() { return quickTypePoolTypes; }
+    public void setQuickTypePoolTypes(List<String> quickTypePoolTypes) { this.quickTypePoolTypes = quickTypePoolTypes; }
+
+    public int getQuickTypePoolTargetSize() { return quickTypePoolTargetSize; }
+    public void setQuickTypePoolTargetSize(int quickTypePoolTargetSize) { this.quickTypePoolTargetSize = quickTypePoolTargetSize; }
+
+    public int getQuickTypePoolMaxAgeMinutes() { return quickTypePoolMaxAgeMinutes; }
+    public void setQuickTypePoolMaxAgeMinutes(int quickTypePoolMaxAgeMinutes) { this.quickTypePoolMaxAgeMinutes = quickTypePoolMaxAgeMinutes; }
+
+    public int getQuickTypePoolSearchConcurrency() { return quickTypePoolSearchConcurrency; }
+    public void setQuickTypePoolSearchConcurrency(int quickTypePoolSearchConcurrency) { this.quickTypePoolSearchConcurrency = quickTypePoolSearchConcurrency; }
+
+    public boolean isCatalogIndexEnabled() { return catalogIndexEnabled; }
+    public void setCatalogIndexEnabled(boolean catalogIndexEnabled) { this.catalogIndexEnabled = catalogIndexEnabled; }
+
+    public int getCatalogIndexMaxEntries() { return catalogIndexMaxEntries; }
+    public void setCatalogIndexMaxEntries(int catalogIndexMaxEntries) { this.catalogIndexMaxEntries = catalogIndexMaxEntries; }
+
+    public double getCatalogIndexMinScore() { return catalogIndexMinScore; }
+    public void setCatalogIndexMinScore(double catalogIndexMinScore) { this.catalogIndexMinScore = catalogIndexMinScore; }
+
+    public int getCatalogIndexMaxAgeDays() { return catalogIndexMaxAgeDays; }
+    public void setCatalogIndexMaxAgeDays(int catalogIndexMaxAgeDays) { this.catalogIndexMaxAgeDays = catalogIndexMaxAgeDays; }
+
+    public boolean isSearchMatchVerification() { return searchMatchVerification; }
+    public void setSearchMatchVerification(boolean searchMatchVerification) { this.searchMatchVerification = searchMatchVerification; }
+
+    public int getSearchMatchTopK() { return searchMatchTopK; }
+    public void setSearchMatchTopK(int searchMatchTopK) { this.searchMatchTopK = searchMatchTopK; }
+
+    public double getSearchMatchMinScore() { return searchMatchMinScore; }
+    public void setSearchMatchMinScore(double searchMatchMinScore) { this.searchMatchMinScore = searchMatchMinScore; }
+
+    public int getRecommendationSurplus() { return recommendationSurplus; }
+    public void setRecommendationSurplus(int recommendationSurplus) { this.recommendationSurplus = recommendationSurplus; }
 }
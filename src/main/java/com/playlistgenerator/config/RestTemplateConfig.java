@@ -1,14 +1,92 @@
 package com.playlistgenerator.config;
 
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.httpcomponents.hc5.PoolingHttpClientConnectionManagerMetricsBinder;
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.http.client.JdkClientHttpRequestFactory;
 import org.springframework.web.client.RestTemplate;
 
+import java.net.http.HttpClient;
+import java.time.Duration;
+
+/**
+ * HTTP clients for Last.fm and Gemini. Spotify traffic goes through the SDK's own client.
+ */
 @Configuration
 public class RestTemplateConfig {
 
+    /**
+     * Keep-alive pool shared by Last.fm requests. Connections idle longer than
+     * {@code http-idle-timeout-seconds} are closed, and callers wait at most
+     * {@code http-connection-request-timeout-ms} for a free connection.
+     */
+    @Bean(destroyMethod = "close")
+    public PoolingHttpClientConnectionManager httpConnectionManager(PlaylistGenerationConfig config) {
+        return PoolingHttpClientConnectionManagerBuilder.create()
+                .setMaxConnTotal(config.getHttpMaxConnections())
+                .setMaxConnPerRoute(config.getHttpMaxConnectionsPerRoute())
+                .setDefaultConnectionConfig(ConnectionConfig.custom()
+                        .setConnectTimeout(Timeout.ofMilliseconds(config.getHttpConnectTimeoutMs()))
+                        .setSocketTimeout(Timeout.ofMilliseconds(config.getLastFmReadTimeoutMs()))
+                        .setValidateAfterInactivity(TimeValue.ofSeconds(config.getHttpIdleTimeoutSeconds()))
+                        .build())
+                .build();
+    }
+
+    @Bean(destroyMethod = "close")
+    public CloseableHttpClient pooledHttpClient(PoolingHttpClientConnectionManager httpConnectionManager,
+                                                PlaylistGenerationConfig config) {
+        // Content compression is on by default: gzip and deflate are requested and decoded transparently
+        return HttpClients.custom()
+                .setConnectionManager(httpConnectionManager)
+                .setDefaultRequestConfig(RequestConfig.custom()
+                        .setConnectionRequestTimeout(Timeout.ofMilliseconds(config.getHttpConnectionRequestTimeoutMs()))
+                        .setResponseTimeout(Timeout.ofMilliseconds(config.getLastFmReadTimeoutMs()))
+                        .build())
+                .evictIdleConnections(TimeValue.ofSeconds(config.getHttpIdleTimeoutSeconds()))
+                .evictExpiredConnections()
+                .build();
+    }
+
+    @Bean
+    public RestTemplate lastFmRestTemplate(CloseableHttpClient pooledHttpClient) {
+        return new RestTemplate(new HttpComponentsClientHttpRequestFactory(pooledHttpClient));
+    }
+
+    /**
+     * Gemini requests are few and long, so they share one multiplexed HTTP/2 connection through the
+     * JDK client. It falls back to HTTP/1.1 when the server does not negotiate HTTP/2. The read
+     * timeout is generous because streamed responses stay open for the whole generation.
+     */
+    @Bean
+    public RestTemplate geminiRestTemplate(PlaylistGenerationConfig config) {
+        HttpClient httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_2)
+                .connectTimeout(Duration.ofMillis(config.getHttpConnectTimeoutMs()))
+                .build();
+        JdkClientHttpRequestFactory requestFactory = new JdkClientHttpRequestFactory(httpClient);
+        requestFactory.setReadTimeout(Duration.ofMillis(config.getGeminiReadTimeoutMs()));
+
+        RestTemplate restTemplate = new RestTemplate(requestFactory);
+        restTemplate.getInterceptors().add(new GzipResponseInterceptor());
+        return restTemplate;
+    }
+
+    /**
+     * Pool size, leased, idle and pending connections as {@code httpcomponents.httpclient.pool.*}
+     */
     @Bean
-    public RestTemplate restTemplate() {
-        return new RestTemplate();
+    public MeterBinder httpConnectionPoolMetrics(PoolingHttpClientConnectionManager httpConnectionManager) {
+        return new PoolingHttpClientConnectionManagerMetricsBinder(httpConnectionManager, "lastfm");
     }
-}
\ No newline at end of file
+}
@@ -10,6 +10,9 @@ public class SpotifyConfig {
     private String clientId;
     private String clientSecret;
     private String redirectUri;
+    // Web API and accounts service roots (scheme, host and port); overridable to point at a local stub
+    private String apiBaseUrl = "https://api.spotify.com";
+    private String accountsBaseUrl = "https://accounts.spotify.com";
 
     // Getters and Setters
 
@@ -36,4 +39,20 @@ public class SpotifyConfig {
     public void setRedirectUri(String redirectUri) {
         this.redirectUri = redirectUri;
     }
+
+    public String getApiBaseUrl() {
+        return apiBaseUrl;
+    }
+
+    public void setApiBaseUrl(String apiBaseUrl) {
+        this.apiBaseUrl = apiBaseUrl;
+    }
+
+    public String getAccountsBaseUrl() {
+        return accountsBaseUrl;
+    }
+
+    public void setAccountsBaseUrl(String accountsBaseUrl) {
+        this.accountsBaseUrl = accountsBaseUrl;
+    }
 }
@@ -0,0 +1,40 @@
+package com.playlistgenerator.config;
+
+import com.playlistgenerator.service.spotify.SpotifyClientRegistry;
+import com.playlistgenerator.service.spotify.SpotifyUserContext;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpSession;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+
+/**
+ * Binds the Spotify client of the requesting HTTP session to the handling thread.
+ * Async handlers (SSE) release the thread without afterCompletion, so the binding is cleared there too.
+ */
+@Component
+public class SpotifySessionInterceptor implements AsyncHandlerInterceptor {
+
+    private final SpotifyClientRegistry spotifyClientRegistry;
+
+    public SpotifySessionInterceptor(SpotifyClientRegistry spotifyClientRegistry) {
+        this.spotifyClientRegistry = spotifyClientRegistry;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        HttpSession session = request.getSession(false);
+        SpotifyUserContext.set(session != null ? spotifyClientRegistry.get(session.getId()) : null);
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        SpotifyUserContext.clear();
+    }
+
+    @Override
+    public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        SpotifyUserContext.clear();
+    }
+}
@@ -0,0 +1,20 @@
+package com.playlistgenerator.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+@Configuration
+public class WebConfig implements WebMvcConfigurer {
+
+    private final SpotifySessionInterceptor spotifySessionInterceptor;
+
+    public WebConfig(SpotifySessionInterceptor spotifySessionInterceptor) {
+        this.spotifySessionInterceptor = spotifySessionInterceptor;
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(spotifySessionInterceptor).addPathPatterns("/api/**");
+    }
+}
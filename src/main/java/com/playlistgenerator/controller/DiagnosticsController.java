@@ -0,0 +1,190 @@
+package com.playlistgenerator.controller;
+
+import com.playlistgenerator.enums.TrackSearchStrategy;
+import com.playlistgenerator.service.QuickTypeTrackPool;
+import com.playlistgenerator.service.SpotifyService;
+import com.playlistgenerator.service.TrackSearchStatistics;
+import com.playlistgenerator.service.cache.GenerationResultStore;
+import com.playlistgenerator.service.cache.LocalCatalogIndex;
+import com.playlistgenerator.service.cache.LruCache;
+import com.playlistgenerator.service.cache.RecommendationPool;
+import com.playlistgenerator.service.cache.SingleFlight;
+import com.playlistgenerator.service.cache.TieredResponseCache;
+import com.playlistgenerator.service.cache.TrackResolutionCache;
+import com.playlistgenerator.service.ratelimit.RateLimiterRegistry;
+import com.playlistgenerator.service.ratelimit.TokenBucketRateLimiter;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Read-only runtime statistics for the upstream call pipeline.
+ */
+@Controller
+@RequestMapping("/api/diagnostics")
+public class DiagnosticsController {
+
+    private final RateLimiterRegistry rateLimiterRegistry;
+    private final TieredResponseCache lastFmResponseCache;
+    private final TrackResolutionCache trackResolutionCache;
+    private final TrackSearchStatistics trackSearchStatistics;
+    private final SpotifyService spotifyService;
+    private final GenerationResultStore generationResultStore;
+    private final RecommendationPool recommendationPool;
+    private final QuickTypeTrackPool quickTypeTrackPool;
+    private final LocalCatalogIndex localCatalogIndex;
+
+    public DiagnosticsController(RateLimiterRegistry rateLimiterRegistry, TieredResponseCache lastFmResponseCache,
+                                 TrackResolutionCache trackResolutionCache, TrackSearchStatistics trackSearchStatistics,
+                                 SpotifyService spotifyService, GenerationResultStore generationResultStore,
+                                 RecommendationPool recommendationPool, QuickTypeTrackPool quickTypeTrackPool,
+                                 LocalCatalogIndex localCatalogIndex) {
+        this.rateLimiterRegistry = rateLimiterRegistry;
+        this.lastFmResponseCache = lastFmResponseCache;
+        this.trackResolutionCache = trackResolutionCache;
+        this.trackSearchStatistics = trackSearchStatistics;
+        this.spotifyService = spotifyService;
+        this.generationResultStore = generationResultStore;
+        this.recommendationPool = recommendationPool;
+        this.quickTypeTrackPool = quickTypeTrackPool;
+        this.localCatalogIndex = localCatalogIndex;
+    }
+
+    @GetMapping("/rate-limits")
+    public ResponseEntity<Map<String, Object>> getRateLimits() {
+        Map<String, Object> result = new LinkedHashMap<>();
+        for (TokenBucketRateLimiter limiter : rateLimiterRegistry.getAll()) {
+            Map<String, Object> stats = new LinkedHashMap<>();
+            stats.put("intervalMs", limiter.getIntervalMillis());
+            stats.put("burst", limiter.getBurst());
+            stats.put("acquisitions", limiter.getAcquisitionCount());
+            stats.put("delayedAcquisitions", limiter.getDelayedAcquisitionCount());
+            stats.put("totalWaitMs", limiter.getTotalWaitMillis());
+            stats.put("averageWaitMs", limiter.getAverageWaitMillis());
+            stats.put("maxWaitMs", limiter.getMaxWaitMillis());
+            result.put(limiter.getName(), stats);
+        }
+        return ResponseEntity.ok(result);
+    }
+
+    @GetMapping("/caches")
+    public ResponseEntity<Map<String, Object>> getCaches() {
+        Map<String, Object> lastFm = new LinkedHashMap<>();
+        lastFm.put("memoryEntries", lastFmResponseCache.getMemorySize());
+        lastFm.put("diskEntries", lastFmResponseCache.getDiskSize());
+        lastFm.put("memoryHits", lastFmResponseCache.getMemoryHitCount());
+        lastFm.put("diskHits", lastFmResponseCache.getDiskHitCount());
+        lastFm.put("freshHits", lastFmResponseCache.getFreshHitCount());
+        lastFm.put("staleHits", lastFmResponseCache.getStaleHitCount());
+        lastFm.put("misses", lastFmResponseCache.getMissCount());
+        lastFm.put("loads", lastFmResponseCache.getLoadCount());
+        lastFm.put("backgroundRefreshes", lastFmResponseCache.getRefreshCount());
+        lastFm.put("hitRate", lastFmResponseCache.getHitRate());
+
+        Map<String, Object> trackResolution = new LinkedHashMap<>();
+        trackResolution.put("entries", trackResolutionCache.getSize());
+        trackResolution.put("hits", trackResolutionCache.getHitCount());
+        trackResolution.put("negativeHits", trackResolutionCache.getNegativeHitCount());
+        trackResolution.put("misses", trackResolutionCache.getMissCount());
+        trackResolution.put("evictions", trackResolutionCache.getEvictionCount());
+        trackResolution.put("hitRate", trackResolutionCache.getHitRate());
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put(lastFmResponseCache.getName(), lastFm);
+        result.put("trackResolution", trackResolution);
+        result.put("trackDetails", describe(spotifyService.getTrackDetailsCache()));
+
+        Map<String, Object> generationResults = new LinkedHashMap<>();
+        generationResults.put("entries", generationResultStore.getSize());
+        generationResults.put("maxEntries", generationResultStore.getMaxEntries());
+        generationResults.put("hits", generationResultStore.getHitCount());
+        generationResults.put("misses", generationResultStore.getMissCount());
+        generationResults.put("expired", generationResultStore.getExpiredCount());
+        generationResults.put("evictions", generationResultStore.getEvictionCount());
+        generationResults.put("hitRate", generationResultStore.getHitRate());
+        result.put("generationResults", generationResults);
+
+        Map<String, Object> recommendations = new LinkedHashMap<>();
+        recommendations.put("enabled", recommendationPool.isEnabled());
+        recommendations.put("pools", recommendationPool.getSize());
+        recommendations.put("maxPools", recommendationPool.getMaxEntries());
+        recommendations.put("hits", recommendationPool.getHitCount());
+        recommendations.put("misses", recommendationPool.getMissCount());
+        recommendations.put("expired", recommendationPool.getExpiredCount());
+        recommendations.put("evictions", recommendationPool.getEvictionCount());
+        recommendations.put("hitRate", recommendationPool.getHitRate());
+        result.put("recommendationPool", recommendations);
+
+        Map<String, Object> quickTypes = new LinkedHashMap<>();
+        quickTypes.put("tracks", quickTypeTrackPool.getSizes());
+        quickTypes.put("hits", quickTypeTrackPool.getHitCount());
+        quickTypes.put("misses", quickTypeTrackPool.getMissCount());
+        quickTypes.put("refills", quickTypeTrackPool.getRefillCount());
+        quickTypes.put("deferredRefills", quickTypeTrackPool.getDeferredRefillCount());
+        quickTypes.put("hitRate", quickTypeTrackPool.getHitRate());
+        result.put("quickTypePool", quickTypes);
+
+        Map<String, Object> catalogIndex = new LinkedHashMap<>();
+        catalogIndex.put("tracks", localCatalogIndex.size());
+        catalogIndex.put("maxTracks", localCatalogIndex.getMaxEntries());
+        catalogIndex.put("hits", localCatalogIndex.getHitCount());
+        catalogIndex.put("misses", localCatalogIndex.getMissCount());
+        catalogIndex.put("evictions", localCatalogIndex.getEvictionCount());
+        catalogIndex.put("hitRate", localCatalogIndex.getHitRate());
+        result.put("catalogIndex", catalogIndex);
+        return ResponseEntity.ok(result);
+    }
+
+    private Map<String, Object> describe(LruCache<?, ?> cache) {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("entries", cache.size());
+        stats.put("maxEntries", cache.getMaxEntries());
+        stats.put("hits", cache.getHitCount());
+        stats.put("misses", cache.getMissCount());
+        stats.put("evictions", cache.getEvictionCount());
+        stats.put("hitRate", cache.getHitRate());
+        return stats;
+    }
+
+    @GetMapping("/coalescing")
+    public ResponseEntity<Map<String, Object>> getCoalescing() {
+        Map<String, Object> result = new LinkedHashMap<>();
+        for (SingleFlight<?> flight : List.of(lastFmResponseCache.getLoadFlight(),
+                spotifyService.getSearchFlight(), spotifyService.getTrackBatchFlight())) {
+            Map<String, Object> stats = new LinkedHashMap<>();
+            stats.put("executed", flight.getExecutionCount());
+            stats.put("coalesced", flight.getCoalescedCount());
+            stats.put("coalescedRate", flight.getCoalescedRate());
+            stats.put("inFlight", flight.getInFlightCount());
+            result.put(flight.getName(), stats);
+        }
+        return ResponseEntity.ok(result);
+    }
+
+    @GetMapping("/search-strategies")
+    public ResponseEntity<Map<String, Object>> getSearchStrategies() {
+        Map<String, Object> strategies = new LinkedHashMap<>();
+        trackSearchStatistics.getCounters().forEach((strategy, counters) -> {
+            Map<String, Object> stats = new LinkedHashMap<>();
+            stats.put("attempts", counters.getAttempts());
+            stats.put("hits", counters.getHits());
+            stats.put("hitRate", counters.getHitRate());
+            stats.put("meanLatencyMs", counters.getMeanLatencyMillis());
+            strategies.put(strategy.getValue(), stats);
+        });
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("strategies", strategies);
+        result.put("currentOrder", trackSearchStatistics.orderFor(false).stream().map(TrackSearchStrategy::getValue).toList());
+        result.put("tracksSearched", trackSearchStatistics.getCascadeCount());
+        result.put("tracksResolved", trackSearchStatistics.getResolvedTrackCount());
+        result.put("spotifySearchCalls", trackSearchStatistics.getSpotifyCallCount());
+        result.put("callsPerResolvedTrack", trackSearchStatistics.getCallsPerResolvedTrack());
+        return ResponseEntity.ok(result);
+    }
+}
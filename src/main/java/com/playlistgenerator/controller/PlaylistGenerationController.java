@@ -2,23 +2,28 @@ package com.playlistgenerator.controller;
 
 import com.playlistgenerator.dto.PlaylistFormData;
 import com.playlistgenerator.dto.PlaylistRequest;
-import com.playlistgenerator.enums.GenerationMode;
+import com.playlistgenerator.dto.PlaylistResult;
+import com.playlistgenerator.enums.JobStatus;
+import com.playlistgenerator.exceptions.JobRejectedException;
 import com.playlistgenerator.service.*;
-import com.playlistgenerator.service.handler.PlaylistModeHandler;
-import com.playlistgenerator.service.handler.PlaylistModeHandlerFactory;
+import com.playlistgenerator.service.cache.GenerationResultStore;
+import com.playlistgenerator.service.job.PlaylistJob;
+import com.playlistgenerator.service.job.PlaylistJobService;
 import jakarta.servlet.http.HttpSession;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 import se.michaelthelin.spotify.model_objects.specification.*;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.http.HttpStatus;
 
+import java.io.IOException;
 import java.util.*;
 import java.util.concurrent.*;
 import java.util.stream.Collectors;
 
-import static com.playlistgenerator.service.PlaylistPromptService.buildArtistBasedPrompt;
 import static com.playlistgenerator.service.PlaylistPromptService.buildPlaylistNamePrompt;
 
 @Controller
@@ -28,22 +33,20 @@ public class PlaylistGenerationController {
     private final LastFMService lastFMService;
     private final SpotifyService spotifyService;
     private final GoogleGeminiService googleGeminiService;
-    private final PlaylistModeHandlerFactory modeHandlerFactory;
-    private final TrackProcessingService trackProcessingService;
-    private final PlaylistPromptService playlistPromptService;
+    private final PlaylistJobService playlistJobService;
+    private final GenerationResultStore generationResultStore;
 
-    // ExecutorService for parallel processing with a limited thread pool to avoid overwhelming APIs
-    private final ExecutorService executorService = Executors.newFixedThreadPool(5);
+    private static final long STREAM_TIMEOUT_MS = TimeUnit.MINUTES.toMillis(3);
 
     public PlaylistGenerationController(LastFMService lastFMService, SpotifyService spotifyService,
-                                        GoogleGeminiService googleGeminiService, PlaylistPromptService playlistPromptService,
-                                        TrackSearchService trackSearchService, PlaylistModeHandlerFactory modeHandlerFactory, TrackProcessingService trackProcessingService, PlaylistPromptService playlistPromptService1) {
+                                        GoogleGeminiService googleGeminiService,
+                                        PlaylistJobService playlistJobService,
+                                        GenerationResultStore generationResultStore) {
         this.lastFMService = lastFMService;
         this.spotifyService = spotifyService;
         this.googleGeminiService = googleGeminiService;
-        this.modeHandlerFactory = modeHandlerFactory;
-        this.trackProcessingService = trackProcessingService;
-        this.playlistPromptService = playlistPromptService1;
+        this.playlistJobService = playlistJobService;
+        this.generationResultStore = generationResultStore;
     }
 
     @GetMapping("/select-genres")
@@ -80,22 +83,10 @@ public class PlaylistGenerationController {
         return "generate-playlist"; // This should match your HTML template name
     }
 
-    private String enhanceFreeformPrompt(String userQuery, PlaylistFormData formData) {
-        StringBuilder enhancedPrompt = new StringBuilder();
-        enhancedPrompt.append("User request: ").append(userQuery).append("\n\n");
-
-        // Add context about the request format
-        enhancedPrompt.append("Please generate a music playlist based on this request. ");
-        enhancedPrompt.append("Return exactly 20 songs in the format 'Artist - Song Title', one per line, without numbering or additional text.");
-
-        return enhancedPrompt.toString();
-    }
-
-
     @PostMapping("/generate-playlist")
     public String generatePlaylistFromForm(@ModelAttribute PlaylistFormData formData, Model model, HttpSession session) {
         session.setAttribute("lastPlaylistFormData", formData);
-        return generatePlaylistInternal(formData, model);
+        return generatePlaylistInternal(formData, model, session);
     }
 
     @GetMapping("/playlist-generation")
@@ -106,64 +97,118 @@ public class PlaylistGenerationController {
             return "redirect:/api/generate-playlist-form";
         }
 
-        return generatePlaylistInternal(formData, model);
+        return generatePlaylistInternal(formData, model, session);
     }
 
-    private String generatePlaylistInternal(PlaylistFormData formData, Model model) {
+    private String generatePlaylistInternal(PlaylistFormData formData, Model model, HttpSession session) {
         try {
-            PlaylistModeHandler handler = modeHandlerFactory.getHandler(formData.getMode());
-            PlaylistRequest request = handler.handleMode(formData);
+            PlaylistJob job = playlistJobService.submit(session.getId(), formData);
+            return "redirect:/api/generate-playlist/jobs/" + job.getId();
+        } catch (JobRejectedException e) {
+            model.addAttribute("navPage", "generate-playlist");
+            model.addAttribute("message", e.getMessage());
+            return "generate-playlist";
+        }
+    }
 
-            String prompt = "freeform".equals(formData.getMode()) && formData.getFreeformQuery() != null && !formData.getFreeformQuery().trim().isEmpty()
-                    ? enhanceFreeformPrompt(formData.getFreeformQuery(), formData)
-                    : request.getPrompt();
+    /**
+     * Page for a submitted generation: refreshes itself while the job runs, then renders the result
+     */
+    @GetMapping("/generate-playlist/jobs/{jobId}")
+    public String showGenerationJob(@PathVariable String jobId, Model model, HttpSession session) {
+        PlaylistJob job = playlistJobService.get(jobId, session.getId());
+        if (job == null) {
+            return "redirect:/api/generate-playlist";
+        }
 
-            if (formData.isUseListeningHistory()) {
-                prompt = playlistPromptService.addListeningHistoryContext(prompt, formData.getTimeframe(), spotifyService);
-            }
+        switch (job.getStatus()) {
+            case SUCCEEDED:
+                PlaylistResult result = job.getResult();
+                setPlaylistModelAttributes(model, result.getTracks(), job.getFormData(), result.getRequest());
+                model.addAttribute("generationId", result.getGenerationId());
+                return "playlist_generation";
+            case FAILED:
+            case CANCELLED:
+                model.addAttribute("navPage", "generate-playlist");
+                model.addAttribute("message", job.getError() != null ? job.getError() : "Playlist generation was cancelled");
+                return "generate-playlist";
+            default:
+                model.addAttribute("job", job);
+                return "generation_pending";
+        }
+    }
 
-            // Handle artist selection filter
-            List<String> recommendedTracks;
-            if ("selected".equals(formData.getArtistSelection())) {
-                // Generate playlist with selected artists only
-                recommendedTracks = googleGeminiService.getMusicRecommendationsAsStrings(prompt);
-            } else if ("similar".equals(formData.getArtistSelection())) {
-                // Generate playlist with similar artists only
-                List<String> similarArtists = getSimilarArtists(formData.getArtists());
-                String similarArtistsPrompt = buildArtistBasedPrompt(similarArtists);
-                recommendedTracks = googleGeminiService.getMusicRecommendationsAsStrings(similarArtistsPrompt);
-            } else {
-                // Generate playlist with both selected and similar artists
-                List<String> allArtists = new ArrayList<>(Arrays.asList(formData.getArtists().split(",")));
-                allArtists.addAll(getSimilarArtists(formData.getArtists()));
-                String allArtistsPrompt = buildArtistBasedPrompt(allArtists);
-                recommendedTracks = googleGeminiService.getMusicRecommendationsAsStrings(allArtistsPrompt);
-            }
+    /**
+     * Same generation as the form POST, streamed as server-sent events: "progress" events for each
+     * stage, a "track" event per validated track as soon as it resolves, then "complete" or "error".
+     * Runs as a job, so it is subject to the same queue limit and is cancelled if the client goes away.
+     */
+    @PostMapping(value = "/generate-playlist/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamPlaylistGeneration(@ModelAttribute PlaylistFormData formData, HttpSession session) {
+        session.setAttribute("lastPlaylistFormData", formData);
+        SseEmitter emitter = new SseEmitter(STREAM_TIMEOUT_MS);
+        sendEvent(emitter, "progress", Map.of("stage", "started"));
 
-            List<Track> validTracks = trackProcessingService.processAndFilterTracks(recommendedTracks);
-            setPlaylistModelAttributes(model, validTracks, formData, request);
+        PlaylistJob job;
+        try {
+            job = playlistJobService.submit(session.getId(), formData, new GenerationListener() {
+                @Override
+                public void onPromptBuilt(PlaylistRequest request) {
+                    sendEvent(emitter, "progress", Map.of("stage", "prompt-built"));
+                }
 
-            return "playlist_generation";
-        } catch (Exception e) {
-            model.addAttribute("message", "Failed to generate playlist: " + e.getMessage());
-            return "generate-playlist";
+                @Override
+                public void onRecommendationsReceived(int count) {
+                    sendEvent(emitter, "progress", Map.of("stage", "recommendations-received", "count", count));
+                }
+
+                @Override
+                public void onTrackResolved(Track track, int resolvedCount, int targetCount) {
+                    sendEvent(emitter, "track", track);
+                    sendEvent(emitter, "progress", Map.of("stage", "resolving",
+                            "resolved", resolvedCount, "target", targetCount));
+                }
+            });
+        } catch (JobRejectedException e) {
+            sendEvent(emitter, "error", Map.of("message", e.getMessage()));
+            emitter.complete();
+            return emitter;
         }
+
+        String jobId = job.getId();
+        String sessionId = session.getId();
+        emitter.onTimeout(() -> playlistJobService.cancel(jobId, sessionId));
+        emitter.onError(error -> playlistJobService.cancel(jobId, sessionId));
+        job.whenFinished(finished -> {
+            if (finished.getStatus() == JobStatus.SUCCEEDED) {
+                List<Track> tracks = finished.getResult().getTracks();
+                sendEvent(emitter, "complete", Map.of("jobId", jobId,
+                        "generationId", finished.getResult().getGenerationId(), "count", tracks.size(),
+                        "uris", tracks.stream().map(Track::getUri).collect(Collectors.toList())));
+            } else if (finished.getError() != null) {
+                sendEvent(emitter, "error", Map.of("message", finished.getError()));
+            }
+            emitter.complete();
+        });
+        return emitter;
     }
 
-    private List<String> getSimilarArtists(String artists) {
-        List<String> similarArtists = new ArrayList<>();
-        String[] artistArray = artists.split(",");
-        for (String artist : artistArray) {
-            similarArtists.addAll(lastFMService.getSimilarArtists(artist.trim()));
+    private void sendEvent(SseEmitter emitter, String name, Object data) {
+        try {
+            emitter.send(SseEmitter.event().name(name).data(data, MediaType.APPLICATION_JSON));
+        } catch (IOException | IllegalStateException e) {
+            // Client went away or the emitter already completed; the generation finishes regardless
+            System.out.println("Could not send '" + name + "' event: " + e.getMessage());
         }
-        return similarArtists;
     }
 
     @PostMapping("/confirm-playlist")
-    public String confirmPlaylist(@RequestParam List<String> tracks, Model model) {
+    public String confirmPlaylist(@RequestParam List<String> tracks,
+                                  @RequestParam(required = false) String generationId, Model model) {
+        List<Track> trackDetails = new ArrayList<>();
         try {
-            // tracks now contains Spotify URIs, fetch the full Track objects
-            List<Track> trackDetails = spotifyService.getSpotifyTrackDetails(tracks);
+            // tracks contains Spotify URIs; reuse the generation's Track objects when still stored
+            trackDetails = resolveConfirmedTracks(tracks, generationId);
 
             if (trackDetails.isEmpty()) {
                 model.addAttribute("message", "❌ No valid tracks selected.");
@@ -204,8 +249,7 @@ public class PlaylistGenerationController {
 
         } catch (Exception e) {
             model.addAttribute("message", "❌ Failed to create playlist: " + e.getMessage());
-            model.addAttribute("tracks", tracks != null ?
-                    spotifyService.getSpotifyTrackDetails(tracks) : new ArrayList<>());
+            model.addAttribute("tracks", trackDetails);
             model.addAttribute("showError", true);
             // Don't set showSuccess when there's an error
             System.out.println("Error creating playlist: " + e.getMessage());
@@ -213,6 +257,33 @@ public class PlaylistGenerationController {
         }
     }
 
+    /**
+     * Track objects for the confirmed URIs, in the submitted order. Taken from the stored generation
+     * result where possible; anything not found there is fetched through the catalog cache.
+     */
+    private List<Track> resolveConfirmedTracks(List<String> trackUris, String generationId) {
+        List<Track> stored = generationResultStore.get(generationId);
+        if (stored == null) {
+            return spotifyService.getSpotifyTrackDetails(trackUris);
+        }
+
+        Map<String, Track> storedByUri = new HashMap<>();
+        stored.forEach(track -> storedByUri.putIfAbsent(track.getUri(), track));
+
+        List<String> missingUris = trackUris.stream()
+                .filter(uri -> !storedByUri.containsKey(uri))
+                .collect(Collectors.toList());
+        if (!missingUris.isEmpty()) {
+            spotifyService.getSpotifyTrackDetails(missingUris)
+                    .forEach(track -> storedByUri.putIfAbsent(track.getUri(), track));
+        }
+
+        return trackUris.stream()
+                .map(storedByUri::get)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+    }
+
     private void setPlaylistModelAttributes(Model model, List<Track> tracks, PlaylistFormData formData, PlaylistRequest request) {
         model.addAttribute("tracks", tracks);
         model.addAttribute("mode", formData.getMode());
@@ -251,17 +322,4 @@ public class PlaylistGenerationController {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
         }
     }
-
-    // Clean up ExecutorService when application shuts down
-    @jakarta.annotation.PreDestroy
-    public void cleanup() {
-        executorService.shutdown();
-        try {
-            if (!executorService.awaitTermination(800, TimeUnit.MILLISECONDS)) {
-                executorService.shutdownNow();
-            }
-        } catch (InterruptedException e) {
-            executorService.shutdownNow();
-        }
-    }
-}
\ No newline at end of file
+}
@@ -0,0 +1,81 @@
+package com.playlistgenerator.controller;
+
+import com.playlistgenerator.dto.PlaylistFormData;
+import com.playlistgenerator.enums.JobStatus;
+import com.playlistgenerator.exceptions.JobRejectedException;
+import com.playlistgenerator.service.job.PlaylistJob;
+import com.playlistgenerator.service.job.PlaylistJobService;
+import jakarta.servlet.http.HttpSession;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * JSON API for asynchronous playlist generation: submit, poll, cancel. Jobs of other sessions
+ * answer 404.
+ */
+@Controller
+@RequestMapping("/api/jobs")
+public class PlaylistJobController {
+
+    private final PlaylistJobService playlistJobService;
+
+    public PlaylistJobController(PlaylistJobService playlistJobService) {
+        this.playlistJobService = playlistJobService;
+    }
+
+    @PostMapping
+    public ResponseEntity<Map<String, Object>> submitJob(@ModelAttribute PlaylistFormData formData, HttpSession session) {
+        try {
+            PlaylistJob job = playlistJobService.submit(session.getId(), formData);
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(describe(job));
+        } catch (JobRejectedException e) {
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS).body(Map.of("message", e.getMessage()));
+        }
+    }
+
+    @GetMapping("/{jobId}")
+    public ResponseEntity<Map<String, Object>> getJob(@PathVariable String jobId, HttpSession session) {
+        PlaylistJob job = playlistJobService.get(jobId, session.getId());
+        if (job == null) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(describe(job));
+    }
+
+    @DeleteMapping("/{jobId}")
+    public ResponseEntity<Map<String, Object>> cancelJob(@PathVariable String jobId, HttpSession session) {
+        PlaylistJob job = playlistJobService.get(jobId, session.getId());
+        if (job == null) {
+            return ResponseEntity.notFound().build();
+        }
+        playlistJobService.cancel(jobId, session.getId());
+        return ResponseEntity.ok(describe(job));
+    }
+
+    private Map<String, Object> describe(PlaylistJob job) {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("jobId", job.getId());
+        result.put("status", job.getStatus().getValue());
+        result.put("stage", job.getStage());
+        result.put("resolved", job.getResolvedCount());
+        result.put("target", job.getTargetCount());
+        result.put("submittedAt", job.getSubmittedAt().toString());
+        result.put("statusUrl", "/api/jobs/" + job.getId());
+        if (job.getFinishedAt() != null) {
+            result.put("finishedAt", job.getFinishedAt().toString());
+        }
+        if (job.getStatus() == JobStatus.SUCCEEDED) {
+            result.put("generationId", job.getResult().getGenerationId());
+            result.put("tracks", job.getResult().getTracks());
+        }
+        if (job.getError() != null) {
+            result.put("error", job.getError());
+        }
+        return result;
+    }
+}
@@ -16,6 +16,7 @@ import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 
 import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpSession;
 import se.michaelthelin.spotify.model_objects.credentials.AuthorizationCodeCredentials;
 import se.michaelthelin.spotify.model_objects.specification.*;
 
@@ -60,7 +61,7 @@ public class SpotifyController {
 
     @GetMapping("login")
     public ResponseEntity<String> spotifyLogin() {
-        URI uri = spotifyService.getSpotifyApi().authorizationCodeUri()
+        URI uri = spotifyService.getAuthorizationApi().authorizationCodeUri()
                 .scope(SPOTIFY_SCOPES)
                 .show_dialog(true)
                 .build()
@@ -75,15 +76,13 @@ public class SpotifyController {
     }
 
     @GetMapping(value = "get-user-code")
-    public void getSpotifyUserCode(@RequestParam("code") String userCode, HttpServletResponse response) throws IOException {
+    public void getSpotifyUserCode(@RequestParam("code") String userCode, HttpSession session,
+                                   HttpServletResponse response) throws IOException {
         try {
-            AuthorizationCodeCredentials credentials = spotifyService.getSpotifyApi().authorizationCode(userCode).build().execute();
+            AuthorizationCodeCredentials credentials = spotifyService.getAuthorizationApi().authorizationCode(userCode).build().execute();
 
-            // Use the new setTokens method from SpotifyService
-            spotifyService.setTokens(
-                    credentials.getAccessToken(),
-                    credentials.getRefreshToken()
-            );
+            // Give this browser session its own Spotify client
+            spotifyService.registerUser(session.getId(), credentials);
 
             // Ensure user profile is fetched
             spotifyService.getCurrentUser();
@@ -10,12 +10,13 @@ import java.util.Map;
 public class PlaylistRequest {
     private String prompt;                    // The generated prompt to send to Gemini AI
     private List<String> seedArtists;        // Original artists provided by user
-    private List<String> seedTracks;        // Original artists provided by user
-    private List<String> seedAlbums;        // Original artists provided by user
+    private List<String> seedTracks;         // Original tracks provided by user
+    private List<String> seedAlbums;         // Original albums provided by user
     private GenerationMode mode;             // INSPIRED, CUSTOM, or QUICK_TYPE
     private int playlistSize;                // Number of tracks to generate (usually 30)
     private String mood;                     // For custom mode (optional)
     private List<String> genres;             // For custom mode (optional)
+    private List<String> decades;            // For custom mode (optional)
     private String quickType;                // For quick type mode (optional)
     private Map<String, Object> metadata;    // Additional context/configuration
 
@@ -23,10 +24,13 @@ public class PlaylistRequest {
     private PlaylistRequest(Builder builder) {
         this.prompt = builder.prompt;
         this.seedArtists = builder.seedArtists;
+        this.seedTracks = builder.seedTracks;
+        this.seedAlbums = builder.seedAlbums;
         this.mode = builder.mode;
         this.playlistSize = builder.playlistSize;
         this.mood = builder.mood;
         this.genres = builder.genres;
+        this.decades = builder.decades;
         this.quickType = builder.quickType;
         this.metadata = builder.metadata;
     }
@@ -34,10 +38,13 @@ public class PlaylistRequest {
     // Getters
     public String getPrompt() { return prompt; }
     public List<String> getSeedArtists() { return seedArtists; }
+    public List<String> getSeedTracks() { return seedTracks; }
+    public List<String> getSeedAlbums() { return seedAlbums; }
     public GenerationMode getMode() { return mode; }
     public int getPlaylistSize() { return playlistSize; }
     public String getMood() { return mood; }
     public List<String> getGenres() { return genres; }
+    public List<String> getDecades() { return decades; }
     public String getQuickType() { return quickType; }
     public Map<String, Object> getMetadata() { return metadata; }
 
@@ -55,6 +62,7 @@ public class PlaylistRequest {
         private int playlistSize = 30;  // default
         private String mood;
         private List<String> genres = new ArrayList<>();
+        private List<String> decades = new ArrayList<>();
         private String quickType;
         private Map<String, Object> metadata = new HashMap<>();
 
@@ -98,6 +106,11 @@ public class PlaylistRequest {
             return this;
         }
 
+        public Builder decades(List<String> decades) {
+            this.decades = decades != null ? new ArrayList<>(decades) : new ArrayList<>();
+            return this;
+        }
+
         public Builder quickType(String quickType) {
             this.quickType = quickType;
             return this;
@@ -9,11 +9,24 @@ public class PlaylistResult {
     private List<Track> tracks;
     private String playlistName;
     private GenerationMetadata metadata;  // Using the metadata class
+    private PlaylistRequest request;
+    private String generationId;
 
     public PlaylistResult(List<Track> tracks, GenerationMetadata metadata) {
         this.tracks = tracks;
         this.metadata = metadata;
     }
 
-    // getters/setters
+    public PlaylistResult(List<Track> tracks, PlaylistRequest request) {
+        this.tracks = tracks;
+        this.request = request;
+    }
+
+    public List<Track> getTracks() { return tracks; }
+    public String getPlaylistName() { return playlistName; }
+    public void setPlaylistName(String playlistName) { this.playlistName = playlistName; }
+    public GenerationMetadata getMetadata() { return metadata; }
+    public PlaylistRequest getRequest() { return request; }
+    public String getGenerationId() { return generationId; }
+    public void setGenerationId(String generationId) { this.generationId = generationId; }
 }
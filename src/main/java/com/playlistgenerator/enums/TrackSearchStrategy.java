@@ -0,0 +1,18 @@
+package com.playlistgenerator.enums;
+
+public enum TrackSearchStrategy {
+    FULL_STRING("full-string"),
+    QUOTED("quoted"),
+    ARTIST_AND_TITLE("artist-and-title"),
+    SIMPLE("simple");
+
+    private final String value;
+
+    TrackSearchStrategy(String value) {
+        this.value = value;
+    }
+
+    public String getValue() {
+        return value;
+    }
+}
@@ -0,0 +1,18 @@
+package com.playlistgenerator.enums;
+
+public enum UpstreamApi {
+    LAST_FM("lastfm"),
+    SPOTIFY_SEARCH("spotify-search"),
+    SPOTIFY_PLAYLISTS("spotify-playlists"),
+    GEMINI("gemini");
+
+    private final String value;
+
+    UpstreamApi(String value) {
+        this.value = value;
+    }
+
+    public String getValue() {
+        return value;
+    }
+}
@@ -0,0 +1,10 @@
+package com.playlistgenerator.exceptions;
+
+/**
+ * Thrown when the generation job queue is full.
+ */
+public class JobRejectedException extends RuntimeException {
+    public JobRejectedException(String message) {
+        super(message);
+    }
+}
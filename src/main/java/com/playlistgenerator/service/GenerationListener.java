@@ -0,0 +1,24 @@
+package com.playlistgenerator.service;
+
+import com.playlistgenerator.dto.PlaylistRequest;
+import se.michaelthelin.spotify.model_objects.specification.Track;
+
+/**
+ * Progress callbacks for a playlist generation run.
+ * Track callbacks arrive on upstream worker threads, possibly concurrently.
+ */
+public interface GenerationListener {
+
+    GenerationListener NONE = new GenerationListener() {};
+
+    default void onPromptBuilt(PlaylistRequest request) {}
+
+    default void onRecommendationsReceived(int count) {}
+
+    default void onTrackResolved(Track track, int resolvedCount, int targetCount) {}
+
+    /**
+     * The session resolving this run's recommendations, so a cancelled run can stop its searches
+     */
+    default void onResolutionStarted(TrackSearchService.ResolutionSession session) {}
+}
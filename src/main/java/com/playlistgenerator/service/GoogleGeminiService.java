@@ -2,6 +2,11 @@ package com.playlistgenerator.service;
 
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.playlistgenerator.enums.UpstreamApi;
+import com.playlistgenerator.service.metrics.PlaylistMetrics;
+import com.playlistgenerator.service.ratelimit.RateLimiterRegistry;
+import com.playlistgenerator.service.ratelimit.TokenBucketRateLimiter;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.stereotype.Service;
 import org.springframework.web.client.RestTemplate;
 import org.springframework.beans.factory.annotation.Value;
@@ -9,33 +14,46 @@ import org.springframework.http.*;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
 import java.util.*;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 @Service
 public class GoogleGeminiService {
 
     private static final Logger logger = LoggerFactory.getLogger(GoogleGeminiService.class);
-    private static final String GEMINI_API_URL = "https://generativelanguage.googleapis.com/v1beta/models/gemini-2.0-flash:generateContent";
+    private static final String RECOMMENDATION_INSTRUCTION = "You are a music recommendation API. Always respond with valid JSON format. " +
+            "Provide exactly the requested number of songs. Focus on delivering clean, structured data. " +
+            "Return JSON with this structure: {\"tracks\": [{\"title\": \"Song Title\", \"artist\": \"Artist Name\"}]}";
+    private static final String SSE_DATA_PREFIX = "data:";
 
     @Value("${google.gemini.apiKey}")
     private String apiKey;
 
+    // Model endpoint without the method suffix; overridable to point at a local stub
+    @Value("${google.gemini.baseUrl:https://generativelanguage.googleapis.com/v1beta/models/gemini-2.0-flash}")
+    private String baseUrl;
+
     private final RestTemplate restTemplate;
     private final ObjectMapper objectMapper;
+    private final TokenBucketRateLimiter rateLimiter;
+    private final PlaylistMetrics metrics;
 
-    public GoogleGeminiService(RestTemplate restTemplate, ObjectMapper objectMapper) {
+    public GoogleGeminiService(@Qualifier("geminiRestTemplate") RestTemplate restTemplate, ObjectMapper objectMapper, RateLimiterRegistry rateLimiterRegistry,
+                               PlaylistMetrics metrics) {
         this.restTemplate = restTemplate;
         this.objectMapper = objectMapper;
+        this.rateLimiter = rateLimiterRegistry.get(UpstreamApi.GEMINI);
+        this.metrics = metrics;
     }
 
     public List<Track> getMusicRecommendations(String prompt) {
-        String systemInstruction = "You are a music recommendation API. Always respond with valid JSON format. " +
-                "Provide exactly the requested number of songs. Focus on delivering clean, structured data. " +
-                "Return JSON with this structure: {\"tracks\": [{\"title\": \"Song Title\", \"artist\": \"Artist Name\"}]}";
-
         try {
-            String response = callGeminiApi(prompt, systemInstruction);
+            String response = callGeminiApi(prompt, RECOMMENDATION_INSTRUCTION);
             return parseRecommendationsResponse(response);
         } catch (Exception e) {
             logger.error("Failed to get music recommendations from Gemini API", e);
@@ -45,10 +63,32 @@ public class GoogleGeminiService {
 
     public List<String> getMusicRecommendationsAsStrings(String prompt) {
         return getMusicRecommendations(prompt).stream()
-                .map(track -> track.getTitle() + " " + track.getArtist())
+                .map(Track::toSearchString)
                 .collect(Collectors.toList());
     }
 
+    /**
+     * Request recommendations through {@code streamGenerateContent} and hand each track to
+     * {@code onTrack} as soon as its JSON object is complete, while the model is still generating.
+     * Returns every track emitted. If the stream fails part-way, tracks already emitted stay delivered.
+     */
+    public List<Track> streamMusicRecommendations(String prompt, Consumer<Track> onTrack) {
+        List<Track> tracks = new ArrayList<>();
+        IncrementalTrackParser parser = new IncrementalTrackParser(objectMapper, track -> {
+            tracks.add(track);
+            onTrack.accept(track);
+        });
+
+        try {
+            streamGeminiApi(prompt, RECOMMENDATION_INSTRUCTION, parser::accept);
+            logger.debug("Streamed {} recommendations from Gemini", tracks.size());
+            return tracks;
+        } catch (Exception e) {
+            logger.error("Streaming music recommendations from Gemini API failed after {} tracks", tracks.size(), e);
+            throw new GeminiApiException("Failed to stream music recommendations", e);
+        }
+    }
+
     public String getPlaylistName(String prompt) {
         String systemInstruction = "You are a helpful assistant that returns only a creative and catchy playlist name. " +
                 "Return just the name as plain text.";
@@ -63,17 +103,61 @@ public class GoogleGeminiService {
     }
 
     private String callGeminiApi(String prompt, String systemInstruction) {
-        String url = GEMINI_API_URL + "?key=" + apiKey;
+        String url = baseUrl + ":generateContent?key=" + apiKey;
 
         HttpHeaders headers = createHeaders();
         Map<String, Object> requestBody = createRequestBody(prompt, systemInstruction);
 
         HttpEntity<Map<String, Object>> request = new HttpEntity<>(requestBody, headers);
-        ResponseEntity<String> response = restTemplate.postForEntity(url, request, String.class);
+        rateLimiter.acquire();
+        ResponseEntity<String> response = metrics.timeUpstreamCall("gemini", "generateContent",
+                () -> restTemplate.postForEntity(url, request, String.class));
 
         return response.getBody();
     }
 
+    /**
+     * POST to {@code streamGenerateContent} with server-sent events and pass the text of every
+     * candidate chunk to {@code onText} in arrival order.
+     */
+    private void streamGeminiApi(String prompt, String systemInstruction, Consumer<String> onText) {
+        String url = baseUrl + ":streamGenerateContent?alt=sse&key=" + apiKey;
+        Map<String, Object> requestBody = createRequestBody(prompt, systemInstruction);
+
+        rateLimiter.acquire();
+        // Timed until the stream ends, so this covers the whole generation rather than the first chunk
+        metrics.timeUpstreamCall("gemini", "streamGenerateContent", () -> restTemplate.execute(url, HttpMethod.POST,
+                request -> {
+                    request.getHeaders().setContentType(MediaType.APPLICATION_JSON);
+                    request.getHeaders().setAccept(List.of(MediaType.TEXT_EVENT_STREAM));
+                    objectMapper.writeValue(request.getBody(), requestBody);
+                },
+                response -> {
+                    try (BufferedReader reader = new BufferedReader(
+                            new InputStreamReader(response.getBody(), StandardCharsets.UTF_8))) {
+                        String line;
+                        while ((line = reader.readLine()) != null) {
+                            if (line.startsWith(SSE_DATA_PREFIX)) {
+                                String text = extractChunkText(line.substring(SSE_DATA_PREFIX.length()).trim());
+                                if (!text.isEmpty()) {
+                                    onText.accept(text);
+                                }
+                            }
+                        }
+                    }
+                    return null;
+                }));
+    }
+
+    private String extractChunkText(String chunkJson) throws IOException {
+        JsonNode parts = objectMapper.readTree(chunkJson).path("candidates").path(0).path("content").path("parts");
+        StringBuilder text = new StringBuilder();
+        for (JsonNode part : parts) {
+            text.append(part.path("text").asText(""));
+        }
+        return text.toString();
+    }
+
     private HttpHeaders createHeaders() {
         HttpHeaders headers = new HttpHeaders();
         headers.setContentType(MediaType.APPLICATION_JSON);
@@ -132,7 +216,7 @@ public class GoogleGeminiService {
         return "My Playlist " + System.currentTimeMillis();
     }
 
-    private List<Track> parseRecommendationsResponse(String responseBody) {
+    List<Track> parseRecommendationsResponse(String responseBody) {
         List<Track> tracks = new ArrayList<>();
 
         try {
@@ -158,7 +242,7 @@ public class GoogleGeminiService {
         return tracks;
     }
 
-    private List<Track> parseTracksFromText(String textResponse) {
+    List<Track> parseTracksFromText(String textResponse) {
         List<Track> tracks = new ArrayList<>();
 
         try {
@@ -206,6 +290,11 @@ public class GoogleGeminiService {
             return artist;
         }
 
+        // Query string handed to TrackSearchService
+        public String toSearchString() {
+            return title + " " + artist;
+        }
+
         @Override
         public String toString() {
             return title + " - " + artist;
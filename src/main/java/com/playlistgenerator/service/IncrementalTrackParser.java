@@ -0,0 +1,90 @@
+package com.playlistgenerator.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * Extracts {@code {"title": ..., "artist": ...}} objects from model output that arrives in
+ * arbitrary text fragments.
+ * <p>
+ * Braces are matched outside of JSON strings; whenever an object closes it is parsed on its own,
+ * and emitted if it carries both fields. The surrounding document ({@code {"tracks": [...]}},
+ * markdown fences) never has to be complete or valid. Not thread-safe.
+ */
+class IncrementalTrackParser {
+
+    private final ObjectMapper objectMapper;
+    private final Consumer<GoogleGeminiService.Track> onTrack;
+
+    private final StringBuilder buffer = new StringBuilder();
+    private final Deque<Integer> openObjects = new ArrayDeque<>();
+    private final Set<GoogleGeminiService.Track> emitted = new HashSet<>();
+    private boolean inString;
+    private boolean escaped;
+
+    IncrementalTrackParser(ObjectMapper objectMapper, Consumer<GoogleGeminiService.Track> onTrack) {
+        this.objectMapper = objectMapper;
+        this.onTrack = onTrack;
+    }
+
+    void accept(String fragment) {
+        for (int i = 0; i < fragment.length(); i++) {
+            char c = fragment.charAt(i);
+            buffer.append(c);
+
+            if (inString) {
+                if (escaped) {
+                    escaped = false;
+                } else if (c == '\\') {
+                    escaped = true;
+                } else if (c == '"') {
+                    inString = false;
+                }
+                continue;
+            }
+
+            if (c == '"') {
+                inString = true;
+            } else if (c == '{') {
+                openObjects.push(buffer.length() - 1);
+            } else if (c == '}' && !openObjects.isEmpty()) {
+                int start = openObjects.pop();
+                emitIfTrack(buffer.substring(start));
+                if (openObjects.isEmpty()) {
+                    buffer.setLength(0);
+                }
+            }
+        }
+    }
+
+    int getEmittedCount() {
+        return emitted.size();
+    }
+
+    private void emitIfTrack(String json) {
+        JsonNode node;
+        try {
+            node = objectMapper.readTree(json);
+        } catch (IOException e) {
+            return;
+        }
+
+        String title = node.path("title").asText("").trim();
+        String artist = node.path("artist").asText("").trim();
+        if (title.isEmpty() || artist.isEmpty()) {
+            return;
+        }
+
+        GoogleGeminiService.Track track = new GoogleGeminiService.Track(title, artist);
+        if (emitted.add(track)) {
+            onTrack.accept(track);
+        }
+    }
+}
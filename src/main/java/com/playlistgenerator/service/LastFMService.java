@@ -1,30 +1,82 @@
 package com.playlistgenerator.service;
 
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
 import com.playlistgenerator.config.LastFmConfig;
+import com.playlistgenerator.config.PlaylistGenerationConfig;
+import com.playlistgenerator.service.cache.LruCache;
+import com.playlistgenerator.service.cache.TieredResponseCache;
+import com.playlistgenerator.enums.UpstreamApi;
+import com.playlistgenerator.service.metrics.PlaylistMetrics;
+import com.playlistgenerator.service.ratelimit.RateLimiterRegistry;
+import com.playlistgenerator.service.ratelimit.TokenBucketRateLimiter;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.http.HttpMethod;
 import org.springframework.stereotype.Service;
 import org.springframework.web.client.RestTemplate;
-import org.json.JSONObject;
-import org.json.JSONArray;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
 import java.net.URLEncoder;
 import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
 
 @Service
 public class LastFMService {
 
+    // Cache lifetimes per Last.fm method: tag charts and similarity graphs change slowly,
+    // so entries stay fresh for a day or a week and may be served stale while refreshing
+    private static final Duration TAG_CHART_TTL = Duration.ofHours(24);
+    private static final Duration TAG_CHART_STALE = Duration.ofDays(7);
+    private static final Duration ARTIST_TOP_TRACKS_TTL = Duration.ofHours(24);
+    private static final Duration ARTIST_TOP_TRACKS_STALE = Duration.ofDays(7);
+    private static final Duration ARTIST_GRAPH_TTL = Duration.ofDays(7);
+    private static final Duration ARTIST_GRAPH_STALE = Duration.ofDays(30);
+
+    private static final int SIMILAR_ARTISTS_MEMO_SIZE = 1000;
+
+    // Last.fm error code for a parameter it cannot resolve, such as an unknown artist
+    private static final int ERROR_INVALID_PARAMETERS = 6;
+
+    // Responses are read token by token, keeping only the fields we use; the factory is thread-safe
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    // Set while a Last.fm lookup submitted by this service runs on the upstream executor. A fan-out
+    // reached from such a task runs inline: waiting on tasks queued behind it would deadlock a
+    // bounded platform-thread pool.
+    private static final ThreadLocal<Boolean> IN_UPSTREAM_TASK = ThreadLocal.withInitial(() -> false);
+
     private final LastFmConfig lastFmConfig;
+    private final PlaylistGenerationConfig playlistGenerationConfig;
     private final RestTemplate restTemplate;
+    private final TieredResponseCache responseCache;
+    private final ExecutorService upstreamExecutor;
+    private final TokenBucketRateLimiter rateLimiter;
+    private final PlaylistMetrics metrics;
 
-    // Rate limiter - last API call timestamp
-    private long lastApiCallTime = 0;
-    private static final long MIN_API_CALL_INTERVAL = 100; // 100ms between calls
+    private final LruCache<String, MemoizedArtists> similarArtistsMemo = new LruCache<>(SIMILAR_ARTISTS_MEMO_SIZE);
 
     @Autowired
-    public LastFMService(LastFmConfig lastFmConfig, RestTemplate restTemplate) {
+    public LastFMService(LastFmConfig lastFmConfig, PlaylistGenerationConfig playlistGenerationConfig,
+                         @Qualifier("lastFmRestTemplate") RestTemplate restTemplate, TieredResponseCache lastFmResponseCache,
+                         ExecutorService upstreamExecutor, RateLimiterRegistry rateLimiterRegistry,
+                         PlaylistMetrics metrics) {
         this.lastFmConfig = lastFmConfig;
+        this.playlistGenerationConfig = playlistGenerationConfig;
         this.restTemplate = restTemplate;
+        this.responseCache = lastFmResponseCache;
+        this.upstreamExecutor = upstreamExecutor;
+        this.rateLimiter = rateLimiterRegistry.get(UpstreamApi.LAST_FM);
+        this.metrics = metrics;
     }
 
     public String getApiKey() {
@@ -32,55 +84,79 @@ public class LastFMService {
     }
 
     public List<String> getTopTags() {
-        String url = "http://ws.audioscrobbler.com/2.0/?method=tag.getTopTags&api_key=" + lastFmConfig.getApiKey() + "&format=json";
-        applyRateLimit();
-        String response = restTemplate.getForObject(url, String.class);
-
-        List<String> tags = new ArrayList<>();
-        JSONObject json = null;
-        if (response != null) {
-            json = new JSONObject(response);
-        }
-        JSONArray tagArray = json != null ? json.getJSONObject("toptags").getJSONArray("tag") : null;
-
-        for (int i = 0; i < tagArray.length(); i++) {
-            tags.add(tagArray.getJSONObject(i).getString("name"));
+        try {
+            return responseCache.get("tag.getTopTags", List.of(), TAG_CHART_TTL, TAG_CHART_STALE, this::fetchTopTags);
+        } catch (Exception e) {
+            System.err.println("Error fetching top tags - " + e.getMessage());
+            return new ArrayList<>();
         }
+    }
 
-        return tags;
+    private List<String> fetchTopTags() {
+        String url = lastFmConfig.getBaseUrl() + "?method=tag.getTopTags&api_key=" + lastFmConfig.getApiKey() + "&format=json";
+        return requestLastFm("tag.getTopTags", url,
+                parser -> readNameList(parser, "toptags", "tag", Integer.MAX_VALUE));
     }
 
+    /**
+     * Top artists for each tag, looked up concurrently within the Last.fm rate budget and merged by
+     * rank: every tag's first artist, then every tag's second, and so on, in tag order. An artist
+     * appearing under several tags keeps its first position. Tag charts are cached across users.
+     */
     public List<String> getArtistsByTags(List<String> tags) {
-        List<String> artists = new ArrayList<>();
-
+        // Tags differing only in case or spacing share a cache entry, so look each up once
+        Map<String, String> distinctTags = new LinkedHashMap<>();
         for (String tag : tags) {
-            String url = "http://ws.audioscrobbler.com/2.0/?method=tag.gettopartists&tag=" + tag + "&api_key=" + lastFmConfig.getApiKey() + "&format=json";
-            applyRateLimit();
-            String response = restTemplate.getForObject(url, String.class);
+            distinctTags.putIfAbsent(TieredResponseCache.buildKey("tag.getTopArtists", List.of(tag)), tag);
+        }
 
-            try {
-                JSONObject json = new JSONObject(response);
-                if (json.has("topartists") && !json.isNull("topartists")) {
-                    JSONObject topartists = json.getJSONObject("topartists");
-                    if (topartists.has("artist") && !topartists.isNull("artist")) {
-                        JSONArray artistArray = topartists.getJSONArray("artist");
-                        for (int i = 0; i < artistArray.length(); i++) {
-                            JSONObject artistObject = artistArray.getJSONObject(i);
-                            if (artistObject.has("name") && !artistObject.isNull("name")) {
-                                String artistName = artistObject.getString("name");
-                                if (!artists.contains(artistName)) {
-                                    artists.add(artistName);
-                                }
-                            }
-                        }
-                    }
+        List<String> tagsToFetch = new ArrayList<>(distinctTags.values());
+        List<Future<List<String>>> futures = new ArrayList<>(tagsToFetch.size());
+        List<List<String>> artistsPerTag = new ArrayList<>(tagsToFetch.size());
+        try {
+            for (String tag : tagsToFetch) {
+                futures.add(submitLookup(() -> responseCache.get("tag.getTopArtists", List.of(tag),
+                        TAG_CHART_TTL, TAG_CHART_STALE, () -> fetchArtistsForTag(tag))));
+            }
+
+            for (int i = 0; i < futures.size(); i++) {
+                try {
+                    artistsPerTag.add(futures.get(i).get());
+                } catch (ExecutionException e) {
+                    System.err.println("Error processing response for tag: " + tagsToFetch.get(i) + " - " + e.getCause().getMessage());
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            futures.forEach(future -> future.cancel(true));
+        }
+
+        return interleaveByRank(artistsPerTag);
+    }
+
+    /**
+     * Round-robin merge of ranked lists, keeping the first occurrence of each name
+     */
+    static List<String> interleaveByRank(List<List<String>> rankedLists) {
+        Set<String> merged = new LinkedHashSet<>();
+        int longest = rankedLists.stream().mapToInt(List::size).max().orElse(0);
+        for (int rank = 0; rank < longest; rank++) {
+            for (List<String> ranked : rankedLists) {
+                if (rank < ranked.size()) {
+                    merged.add(ranked.get(rank));
                 }
-            } catch (Exception e) {
-                System.err.println("Error processing response for tag: " + tag + " - " + e.getMessage());
             }
         }
+        return new ArrayList<>(merged);
+    }
 
-        return artists;
+    private List<String> fetchArtistsForTag(String tag) {
+        String encodedTag = URLEncoder.encode(tag, StandardCharsets.UTF_8);
+        String url = lastFmConfig.getBaseUrl() + "?method=tag.gettopartists&tag=" + encodedTag +
+                "&api_key=" + lastFmConfig.getApiKey() + "&format=json";
+        return requestLastFm("tag.getTopArtists", url,
+                parser -> readNameList(parser, "topartists", "artist", Integer.MAX_VALUE));
     }
 
     /**
@@ -88,46 +164,70 @@ public class LastFMService {
      * Returns only the track names, not Spotify URIs
      */
     public List<String> getTopTracksForArtist(String artist) {
-        List<String> trackNames = new ArrayList<>();
         try {
-            String encodedArtist = URLEncoder.encode(artist, StandardCharsets.UTF_8);
-            String url = "http://ws.audioscrobbler.com/2.0/?method=artist.gettoptracks&artist=" +
-                    encodedArtist + "&api_key=" + lastFmConfig.getApiKey() + "&format=json";
+            return responseCache.get("artist.getTopTracks", List.of(artist),
+                    ARTIST_TOP_TRACKS_TTL, ARTIST_TOP_TRACKS_STALE, () -> fetchTopTracksForArtist(artist));
+        } catch (Exception e) {
+            System.err.println("Error fetching top tracks for artist: " + artist + " - " + e.getMessage());
+            return new ArrayList<>();
+        }
+    }
 
-            applyRateLimit();
-            String response = restTemplate.getForObject(url, String.class);
-            JSONObject json = new JSONObject(response);
+    private List<String> fetchTopTracksForArtist(String artist) {
+        String encodedArtist = URLEncoder.encode(artist, StandardCharsets.UTF_8);
+        String url = lastFmConfig.getBaseUrl() + "?method=artist.gettoptracks&artist=" +
+                encodedArtist + "&api_key=" + lastFmConfig.getApiKey() + "&format=json";
 
-            if (json.has("toptracks") && !json.isNull("toptracks")) {
-                JSONArray trackArray = json.getJSONObject("toptracks").getJSONArray("track");
+        // Process at most 20 tracks to avoid overwhelming the system
+        return requestLastFm("artist.getTopTracks", url, parser -> readNameList(parser, "toptracks", "track", 20));
+    }
 
-                // Process at most 20 tracks to avoid overwhelming the system
-                int tracksToProcess = Math.min(trackArray.length(), 20);
+    /**
+     * Enhanced method to get similar artists with multiple fallback strategies.
+     * Non-empty results are memoized per normalized artist name.
+     */
+    public List<String> getSimilarArtists(String artist) {
+        String memoKey = TieredResponseCache.buildKey("similarArtists", List.of(artist));
+        MemoizedArtists memoized = similarArtistsMemo.get(memoKey);
+        if (memoized != null && !memoized.isExpired()) {
+            return new ArrayList<>(memoized.artists);
+        }
 
-                for (int i = 0; i < tracksToProcess; i++) {
-                    JSONObject trackObject = trackArray.getJSONObject(i);
-                    if (trackObject.has("name") && !trackObject.isNull("name")) {
-                        String trackName = trackObject.getString("name");
-                        trackNames.add(trackName);
-                    }
-                }
-            }
+        // Inside an upstream task the lookups run one after another instead of fanning out again
+        List<String> similarArtists = playlistGenerationConfig.isSpeculativeArtistLookups() && !IN_UPSTREAM_TASK.get()
+                ? resolveSimilarArtistsSpeculatively(artist)
+                : resolveSimilarArtistsSequentially(artist);
 
-        } catch (Exception e) {
-            System.err.println("Error fetching top tracks for artist: " + artist + " - " + e.getMessage());
+        if (!similarArtists.isEmpty()) {
+            similarArtistsMemo.put(memoKey, new MemoizedArtists(similarArtists));
+            return similarArtists;
+        }
+
+        // Strategy 4: Check if artist exists in Last.fm but has no similar artists
+        if (artistExistsInLastFm(artist)) {
+            System.out.println("Artist '" + artist + "' exists in Last.fm but has no similar artists data");
+        } else {
+            System.out.println("Artist '" + artist + "' not found in Last.fm database");
+        }
+
+        // Strategy 5: Try to get similar artists from tags if artist exists
+        similarArtists = getSimilarArtistsByTags(artist);
+        if (!similarArtists.isEmpty()) {
+            System.out.println("Found similar artists using tags for: " + artist);
+            similarArtistsMemo.put(memoKey, new MemoizedArtists(similarArtists));
+            return similarArtists;
         }
 
-        return trackNames;
+        System.out.println("No similar artists found for: " + artist + " after trying all strategies");
+        return similarArtists; // Return empty list
     }
 
     /**
-     * Enhanced method to get similar artists with multiple fallback strategies
+     * Strategies 1-3 one after another: original name, Last.fm search correction, normalized variants
      */
-    public List<String> getSimilarArtists(String artist) {
-        List<String> similarArtists = new ArrayList<>();
-
+    private List<String> resolveSimilarArtistsSequentially(String artist) {
         // Strategy 1: Try original name first
-        similarArtists = fetchSimilarArtists(artist);
+        List<String> similarArtists = fetchSimilarArtists(artist);
         if (!similarArtists.isEmpty()) {
             System.out.println("Found similar artists for original name: " + artist);
             return similarArtists;
@@ -144,6 +244,90 @@ public class LastFMService {
         }
 
         // Strategy 3: Try various normalized versions
+        for (String nameToTry : buildNameVariants(artist)) {
+            similarArtists = fetchSimilarArtists(nameToTry);
+            if (!similarArtists.isEmpty()) {
+                System.out.println("Found similar artists using normalized name: " + nameToTry + " (original: " + artist + ")");
+                return similarArtists;
+            }
+        }
+
+        return new ArrayList<>();
+    }
+
+    /**
+     * Strategies 1-3 issued concurrently within the Last.fm rate budget. Results are inspected in
+     * priority order and the first non-empty one wins; lookups still pending are cancelled.
+     */
+    private List<String> resolveSimilarArtistsSpeculatively(String artist) {
+        List<String> labels = new ArrayList<>();
+        List<Callable<List<String>>> lookups = new ArrayList<>();
+
+        labels.add("original name: " + artist);
+        lookups.add(() -> fetchSimilarArtists(artist));
+
+        labels.add("corrected name");
+        lookups.add(() -> {
+            String correctArtistName = findCorrectArtistName(artist);
+            return correctArtistName.equals(artist) ? List.of() : fetchSimilarArtists(correctArtistName);
+        });
+
+        for (String nameToTry : buildNameVariants(artist)) {
+            labels.add("normalized name: " + nameToTry);
+            lookups.add(() -> fetchSimilarArtists(nameToTry));
+        }
+
+        List<Future<List<String>>> futures = new ArrayList<>(lookups.size());
+        try {
+            for (Callable<List<String>> lookup : lookups) {
+                futures.add(submitLookup(lookup));
+            }
+
+            for (int i = 0; i < futures.size(); i++) {
+                try {
+                    List<String> similarArtists = futures.get(i).get();
+                    if (!similarArtists.isEmpty()) {
+                        System.out.println("Found similar artists using " + labels.get(i) + " (original: " + artist + ")");
+                        return new ArrayList<>(similarArtists);
+                    }
+                } catch (ExecutionException e) {
+                    System.err.println("Similar artist lookup failed for " + labels.get(i) + " - " + e.getCause().getMessage());
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            futures.forEach(future -> future.cancel(true));
+        }
+
+        return new ArrayList<>();
+    }
+
+    /**
+     * Run a lookup on the upstream executor, or inline when already inside one of this service's
+     * upstream tasks so a nested fan-out never waits on its own pool
+     */
+    private <T> Future<T> submitLookup(Callable<T> lookup) {
+        if (IN_UPSTREAM_TASK.get()) {
+            FutureTask<T> inline = new FutureTask<>(lookup);
+            inline.run();
+            return inline;
+        }
+        return upstreamExecutor.submit(() -> {
+            IN_UPSTREAM_TASK.set(true);
+            try {
+                return lookup.call();
+            } finally {
+                IN_UPSTREAM_TASK.remove();
+            }
+        });
+    }
+
+    /**
+     * Distinct spellings of an artist name to retry with, excluding names that map to the
+     * same cache key as the original (Last.fm lookups are case-insensitive)
+     */
+    private List<String> buildNameVariants(String artist) {
         String[] namesToTry = {
                 normalizeArtistName(artist),      // Full normalization
                 artist.replaceAll("&", "and"),    // Replace & with "and"
@@ -152,32 +336,16 @@ public class LastFMService {
                 artist.toUpperCase().trim()        // Try uppercase
         };
 
+        Set<String> seenKeys = new HashSet<>();
+        seenKeys.add(TieredResponseCache.buildKey("artist.getSimilar", List.of(artist)));
+
+        List<String> variants = new ArrayList<>();
         for (String nameToTry : namesToTry) {
-            if (!nameToTry.equals(artist) && !nameToTry.isEmpty()) {
-                similarArtists = fetchSimilarArtists(nameToTry);
-                if (!similarArtists.isEmpty()) {
-                    System.out.println("Found similar artists using normalized name: " + nameToTry + " (original: " + artist + ")");
-                    return similarArtists;
-                }
+            if (!nameToTry.isEmpty() && seenKeys.add(TieredResponseCache.buildKey("artist.getSimilar", List.of(nameToTry)))) {
+                variants.add(nameToTry);
             }
         }
-
-        // Strategy 4: Check if artist exists in Last.fm but has no similar artists
-        if (artistExistsInLastFm(artist)) {
-            System.out.println("Artist '" + artist + "' exists in Last.fm but has no similar artists data");
-        } else {
-            System.out.println("Artist '" + artist + "' not found in Last.fm database");
-        }
-
-        // Strategy 5: Try to get similar artists from tags if artist exists
-        similarArtists = getSimilarArtistsByTags(artist);
-        if (!similarArtists.isEmpty()) {
-            System.out.println("Found similar artists using tags for: " + artist);
-            return similarArtists;
-        }
-
-        System.out.println("No similar artists found for: " + artist + " after trying all strategies");
-        return similarArtists; // Return empty list
+        return variants;
     }
 
     /**
@@ -185,59 +353,53 @@ public class LastFMService {
      */
     private boolean artistExistsInLastFm(String artist) {
         try {
-            String encodedArtist = URLEncoder.encode(artist, StandardCharsets.UTF_8);
-            String url = "http://ws.audioscrobbler.com/2.0/?method=artist.getinfo&artist=" +
-                    encodedArtist + "&api_key=" + lastFmConfig.getApiKey() + "&format=json";
-
-            applyRateLimit();
-            String response = restTemplate.getForObject(url, String.class);
-            JSONObject json = new JSONObject(response);
-
-            return json.has("artist") && !json.isNull("artist");
+            List<String> result = responseCache.get("artist.getInfo", List.of(artist),
+                    ARTIST_GRAPH_TTL, ARTIST_GRAPH_STALE, () -> fetchArtistExists(artist));
+            return !result.isEmpty();
         } catch (Exception e) {
             return false;
         }
     }
 
+    private List<String> fetchArtistExists(String artist) {
+        String encodedArtist = URLEncoder.encode(artist, StandardCharsets.UTF_8);
+        String url = lastFmConfig.getBaseUrl() + "?method=artist.getinfo&artist=" +
+                encodedArtist + "&api_key=" + lastFmConfig.getApiKey() + "&format=json";
+
+        // Cached as a one-element list when the artist exists, empty otherwise
+        boolean exists;
+        try {
+            exists = requestLastFm("artist.getInfo", url, parser -> moveToField(parser, "artist"));
+        } catch (LastFmApiException e) {
+            if (e.getCode() != ERROR_INVALID_PARAMETERS) {
+                throw e;
+            }
+            // "The artist you supplied could not be found" is an answer worth caching
+            exists = false;
+        }
+        return exists ? List.of(artist) : List.of();
+    }
+
     /**
      * Get similar artists by finding the artist's tags and getting top artists for those tags
      */
     private List<String> getSimilarArtistsByTags(String artist) {
         List<String> similarArtists = new ArrayList<>();
         try {
-            // Get artist's top tags
-            String encodedArtist = URLEncoder.encode(artist, StandardCharsets.UTF_8);
-            String url = "http://ws.audioscrobbler.com/2.0/?method=artist.gettoptags&artist=" +
-                    encodedArtist + "&api_key=" + lastFmConfig.getApiKey() + "&format=json";
-
-            applyRateLimit();
-            String response = restTemplate.getForObject(url, String.class);
-            JSONObject json = new JSONObject(response);
-
-            if (json.has("toptags") && !json.isNull("toptags")) {
-                JSONArray tagArray = json.getJSONObject("toptags").getJSONArray("tag");
-
-                // Get top 3 tags for the artist
-                List<String> topTags = new ArrayList<>();
-                int tagsToUse = Math.min(3, tagArray.length());
-                for (int i = 0; i < tagsToUse; i++) {
-                    JSONObject tagObject = tagArray.getJSONObject(i);
-                    if (tagObject.has("name") && !tagObject.isNull("name")) {
-                        topTags.add(tagObject.getString("name"));
-                    }
-                }
-
-                if (!topTags.isEmpty()) {
-                    System.out.println("Using tags for " + artist + ": " + topTags);
-                    // Get artists for these tags
-                    List<String> tagBasedArtists = getArtistsByTags(topTags);
-
-                    // Remove the original artist from results and limit to 10
-                    similarArtists = tagBasedArtists.stream()
-                            .filter(a -> !a.equalsIgnoreCase(artist))
-                            .limit(10)
-                            .collect(java.util.stream.Collectors.toList());
-                }
+            // Get artist's top 3 tags
+            List<String> topTags = responseCache.get("artist.getTopTags", List.of(artist),
+                    ARTIST_GRAPH_TTL, ARTIST_GRAPH_STALE, () -> fetchTopTagsForArtist(artist));
+
+            if (!topTags.isEmpty()) {
+                System.out.println("Using tags for " + artist + ": " + topTags);
+                // Get artists for these tags
+                List<String> tagBasedArtists = getArtistsByTags(topTags);
+
+                // Remove the original artist from results and limit to 10
+                similarArtists = tagBasedArtists.stream()
+                        .filter(a -> !a.equalsIgnoreCase(artist))
+                        .limit(10)
+                        .collect(java.util.stream.Collectors.toList());
             }
         } catch (Exception e) {
             System.err.println("Error getting similar artists by tags for: " + artist + " - " + e.getMessage());
@@ -245,81 +407,86 @@ public class LastFMService {
         return similarArtists;
     }
 
+    private List<String> fetchTopTagsForArtist(String artist) {
+        String encodedArtist = URLEncoder.encode(artist, StandardCharsets.UTF_8);
+        String url = lastFmConfig.getBaseUrl() + "?method=artist.gettoptags&artist=" +
+                encodedArtist + "&api_key=" + lastFmConfig.getApiKey() + "&format=json";
+
+        return requestLastFm("artist.getTopTags", url, parser -> readNameList(parser, "toptags", "tag", 3));
+    }
+
     /**
      * Find the correct artist name as known by Last.fm using artist search
      * Prioritizes exact matches over fuzzy matches
      */
     private String findCorrectArtistName(String artist) {
         try {
-            String encodedArtist = URLEncoder.encode(artist, StandardCharsets.UTF_8);
-            String searchUrl = "http://ws.audioscrobbler.com/2.0/?method=artist.search&artist=" +
-                    encodedArtist + "&api_key=" + lastFmConfig.getApiKey() + "&format=json&limit=20";
-
-            applyRateLimit();
-            String response = restTemplate.getForObject(searchUrl, String.class);
-            JSONObject json = new JSONObject(response);
-
-            if (json.has("results") && !json.isNull("results")) {
-                JSONObject results = json.getJSONObject("results");
-                if (results.has("artistmatches") && !results.isNull("artistmatches")) {
-                    JSONObject artistMatches = results.getJSONObject("artistmatches");
-                    if (artistMatches.has("artist") && !artistMatches.isNull("artist")) {
-                        Object artistData = artistMatches.get("artist");
-
-                        // Handle both single artist object and array of artists
-                        JSONArray artists;
-                        if (artistData instanceof JSONArray) {
-                            artists = (JSONArray) artistData;
-                        } else if (artistData instanceof JSONObject) {
-                            artists = new JSONArray();
-                            artists.put(artistData);
-                        } else {
-                            return artist;
-                        }
-
-                        // Look for exact matches first
-                        String exactMatch = findExactMatch(artists, artist);
-                        if (exactMatch != null) {
-                            System.out.println("Found exact match: " + exactMatch + " for query: " + artist);
-                            return exactMatch;
-                        }
-
-                        // If no exact match, look for case-insensitive exact match
-                        String caseInsensitiveMatch = findCaseInsensitiveMatch(artists, artist);
-                        if (caseInsensitiveMatch != null) {
-                            System.out.println("Found case-insensitive match: " + caseInsensitiveMatch + " for query: " + artist);
-                            return caseInsensitiveMatch;
-                        }
-
-                        // If no exact matches, return the first result (original behavior)
-                        if (artists.length() > 0) {
-                            JSONObject firstArtist = artists.getJSONObject(0);
-                            if (firstArtist.has("name") && !firstArtist.isNull("name")) {
-                                String foundName = firstArtist.getString("name");
-                                System.out.println("Using first result (fuzzy match): " + foundName + " for query: " + artist);
-                                return foundName;
-                            }
-                        }
-                    }
-                }
-            }
+            List<String> result = responseCache.get("artist.search", List.of(artist),
+                    ARTIST_GRAPH_TTL, ARTIST_GRAPH_STALE, () -> List.of(searchCorrectArtistName(artist)));
+            return result.isEmpty() ? artist : result.get(0);
         } catch (Exception e) {
             System.err.println("Error searching for artist: " + artist + " - " + e.getMessage());
         }
         return artist; // Return original if search fails
     }
 
+    private String searchCorrectArtistName(String artist) {
+        String encodedArtist = URLEncoder.encode(artist, StandardCharsets.UTF_8);
+        String searchUrl = lastFmConfig.getBaseUrl() + "?method=artist.search&artist=" +
+                encodedArtist + "&api_key=" + lastFmConfig.getApiKey() + "&format=json&limit=20";
+
+        return requestLastFm("artist.search", searchUrl, parser -> readCorrectArtistName(parser, artist));
+    }
+
+    /**
+     * Pick the best name for {@code artist} from an artist.search response: an exact match,
+     * then a case-insensitive match, then the first result. Falls back to {@code artist}.
+     */
+    static String parseCorrectArtistName(String response, String artist) {
+        try (JsonParser parser = JSON_FACTORY.createParser(response)) {
+            return readCorrectArtistName(parser, artist);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static String readCorrectArtistName(JsonParser parser, String artist) throws IOException {
+        // Only the names of results.artistmatches.artist, which is an object when there is one match
+        List<String> candidates = new ArrayList<>();
+        if (enterObject(parser, "results") && enterObject(parser, "artistmatches") && moveToField(parser, "artist")) {
+            readNames(parser, candidates, Integer.MAX_VALUE);
+        }
+        if (candidates.isEmpty()) {
+            return artist;
+        }
+
+        // Look for exact matches first
+        String exactMatch = findExactMatch(candidates, artist);
+        if (exactMatch != null) {
+            System.out.println("Found exact match: " + exactMatch + " for query: " + artist);
+            return exactMatch;
+        }
+
+        // If no exact match, look for case-insensitive exact match
+        String caseInsensitiveMatch = findCaseInsensitiveMatch(candidates, artist);
+        if (caseInsensitiveMatch != null) {
+            System.out.println("Found case-insensitive match: " + caseInsensitiveMatch + " for query: " + artist);
+            return caseInsensitiveMatch;
+        }
+
+        // If no exact matches, return the first result (original behavior)
+        String foundName = candidates.get(0);
+        System.out.println("Using first result (fuzzy match): " + foundName + " for query: " + artist);
+        return foundName;
+    }
+
     /**
      * Find exact string match in artist search results
      */
-    private String findExactMatch(JSONArray artists, String searchTerm) {
-        for (int i = 0; i < artists.length(); i++) {
-            JSONObject artistObject = artists.getJSONObject(i);
-            if (artistObject.has("name") && !artistObject.isNull("name")) {
-                String artistName = artistObject.getString("name");
-                if (artistName.equals(searchTerm)) {
-                    return artistName;
-                }
+    private static String findExactMatch(List<String> artistNames, String searchTerm) {
+        for (String artistName : artistNames) {
+            if (artistName.equals(searchTerm)) {
+                return artistName;
             }
         }
         return null;
@@ -328,14 +495,10 @@ public class LastFMService {
     /**
      * Find case-insensitive exact match in artist search results
      */
-    private String findCaseInsensitiveMatch(JSONArray artists, String searchTerm) {
-        for (int i = 0; i < artists.length(); i++) {
-            JSONObject artistObject = artists.getJSONObject(i);
-            if (artistObject.has("name") && !artistObject.isNull("name")) {
-                String artistName = artistObject.getString("name");
-                if (artistName.equalsIgnoreCase(searchTerm)) {
-                    return artistName;
-                }
+    private static String findCaseInsensitiveMatch(List<String> artistNames, String searchTerm) {
+        for (String artistName : artistNames) {
+            if (artistName.equalsIgnoreCase(searchTerm)) {
+                return artistName;
             }
         }
         return null;
@@ -345,31 +508,138 @@ public class LastFMService {
      * Original method to fetch similar artists - now private helper
      */
     private List<String> fetchSimilarArtists(String artist) {
-        List<String> similarArtists = new ArrayList<>();
         try {
-            String encodedArtist = URLEncoder.encode(artist, StandardCharsets.UTF_8);
-            String url = "http://ws.audioscrobbler.com/2.0/?method=artist.getsimilar&artist=" +
-                    encodedArtist + "&api_key=" + lastFmConfig.getApiKey() + "&format=json";
-
-            applyRateLimit();
-            String response = restTemplate.getForObject(url, String.class);
-            JSONObject json = new JSONObject(response);
-
-            if (json.has("similarartists") && !json.isNull("similarartists")) {
-                JSONArray artistArray = json.getJSONObject("similarartists").getJSONArray("artist");
-
-                for (int i = 0; i < artistArray.length(); i++) {
-                    JSONObject artistObject = artistArray.getJSONObject(i);
-                    if (artistObject.has("name") && !artistObject.isNull("name")) {
-                        String similarArtistName = artistObject.getString("name");
-                        similarArtists.add(similarArtistName);
-                    }
-                }
-            }
+            return responseCache.get("artist.getSimilar", List.of(artist),
+                    ARTIST_GRAPH_TTL, ARTIST_GRAPH_STALE, () -> requestSimilarArtists(artist));
         } catch (Exception e) {
             System.err.println("Error fetching similar artists for artist: " + artist + " - " + e.getMessage());
+            return new ArrayList<>();
+        }
+    }
+
+    private List<String> requestSimilarArtists(String artist) {
+        String encodedArtist = URLEncoder.encode(artist, StandardCharsets.UTF_8);
+        String url = lastFmConfig.getBaseUrl() + "?method=artist.getsimilar&artist=" +
+                encodedArtist + "&api_key=" + lastFmConfig.getApiKey() + "&format=json";
+
+        return requestLastFm("artist.getSimilar", url,
+                parser -> readNameList(parser, "similarartists", "artist", Integer.MAX_VALUE));
+    }
+
+    /**
+     * Names from a Last.fm list response shaped {@code {root: {list: [{"name": ...}, ...]}}},
+     * at most {@code limit} of them. A missing root or list yields an empty list; an error
+     * payload throws {@link LastFmApiException}.
+     */
+    static List<String> parseNameList(String response, String root, String list, int limit) {
+        try (JsonParser parser = JSON_FACTORY.createParser(response)) {
+            return readNameList(parser, root, list, limit);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static List<String> readNameList(JsonParser parser, String root, String list, int limit) throws IOException {
+        List<String> names = new ArrayList<>();
+        if (enterObject(parser, root) && moveToField(parser, list)) {
+            readNames(parser, names, limit);
+        }
+        return names;
+    }
+
+    /**
+     * Advance to the value of {@code field} in the object the parser is at or inside of, and enter
+     * it. False when the field is missing or not an object.
+     */
+    private static boolean enterObject(JsonParser parser, String field) throws IOException {
+        return moveToField(parser, field) && parser.currentToken() == JsonToken.START_OBJECT;
+    }
+
+    /**
+     * Advance to the value of {@code field} at the current object level, skipping other values.
+     * False when the object ends first or the value is null.
+     * <p>
+     * Last.fm reports failures with HTTP 200 and a top-level {@code {"error": code, "message": ...}}
+     * body. Meeting that {@code error} field throws {@link LastFmApiException}, so a failed call
+     * is never mistaken for an empty answer and cached.
+     */
+    private static boolean moveToField(JsonParser parser, String field) throws IOException {
+        if (parser.currentToken() == null && parser.nextToken() != JsonToken.START_OBJECT) {
+            return false;
+        }
+        boolean topLevel = parser.getParsingContext().getParent().inRoot();
+        String message = null;
+        JsonToken token;
+        while ((token = parser.nextToken()) == JsonToken.FIELD_NAME) {
+            String name = parser.currentName();
+            JsonToken value = parser.nextToken();
+            if (topLevel && name.equals("error")) {
+                throw readError(parser, message);
+            }
+            if (name.equals(field)) {
+                return value != JsonToken.VALUE_NULL;
+            }
+            if (topLevel && name.equals("message") && value == JsonToken.VALUE_STRING) {
+                message = parser.getText();
+            }
+            parser.skipChildren();
+        }
+        return false;
+    }
+
+    /**
+     * The error at the current {@code error} value, with the message from the rest of the object
+     * unless it came first
+     */
+    private static LastFmApiException readError(JsonParser parser, String message) throws IOException {
+        int code = parser.currentToken() == JsonToken.VALUE_NUMBER_INT ? parser.getIntValue() : -1;
+        while (message == null && parser.nextToken() == JsonToken.FIELD_NAME) {
+            boolean isMessage = "message".equals(parser.currentName());
+            JsonToken value = parser.nextToken();
+            if (isMessage && value == JsonToken.VALUE_STRING) {
+                message = parser.getText();
+            } else {
+                parser.skipChildren();
+            }
+        }
+        return new LastFmApiException(code, message);
+    }
+
+    /**
+     * Read the {@code name} of each object in the array (or single object) at the current token
+     */
+    private static void readNames(JsonParser parser, List<String> names, int limit) throws IOException {
+        if (parser.currentToken() == JsonToken.START_OBJECT) {
+            readName(parser, names);
+            return;
+        }
+        if (parser.currentToken() != JsonToken.START_ARRAY) {
+            return;
+        }
+        JsonToken token;
+        while (names.size() < limit && (token = parser.nextToken()) != JsonToken.END_ARRAY && token != null) {
+            if (token == JsonToken.START_OBJECT) {
+                readName(parser, names);
+            } else {
+                parser.skipChildren();
+            }
+        }
+    }
+
+    private static void readName(JsonParser parser, List<String> names) throws IOException {
+        String name = null;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            boolean isName = "name".equals(parser.currentName());
+            JsonToken value = parser.nextToken();
+            if (isName && value == JsonToken.VALUE_STRING) {
+                name = parser.getText();
+            } else {
+                parser.skipChildren();
+            }
+        }
+        if (name != null) {
+            names.add(name);
         }
-        return similarArtists;
     }
 
     /**
@@ -385,19 +655,49 @@ public class LastFMService {
                 .toLowerCase();
     }
 
-    // Apply rate limiting to API calls
-    private synchronized void applyRateLimit() {
-        long currentTime = System.currentTimeMillis();
-        long elapsed = currentTime - lastApiCallTime;
-
-        if (elapsed < MIN_API_CALL_INTERVAL) {
-            try {
-                Thread.sleep(MIN_API_CALL_INTERVAL - elapsed);
-            } catch (InterruptedException e) {
-                Thread.currentThread().interrupt();
+    // Rate-limited, timed GET against the Last.fm API, parsed straight from the response stream.
+    // The URL is already encoded, so it is passed as a URI rather than expanded as a template.
+    // Readers throw LastFmApiException on an error payload, which keeps it out of the response cache.
+    private <T> T requestLastFm(String method, String url, ResponseReader<T> reader) {
+        rateLimiter.acquire();
+        return metrics.timeUpstreamCall("lastfm", method, () -> restTemplate.execute(URI.create(url), HttpMethod.GET, null, response -> {
+            try (JsonParser parser = JSON_FACTORY.createParser(response.getBody())) {
+                return reader.read(parser);
             }
+        }));
+    }
+
+    /**
+     * An error payload returned by the Last.fm API in place of the requested data
+     */
+    public static class LastFmApiException extends RuntimeException {
+        private final int code;
+
+        public LastFmApiException(int code, String message) {
+            super("Last.fm error " + code + (message != null ? ": " + message : ""));
+            this.code = code;
         }
 
-        lastApiCallTime = System.currentTimeMillis();
+        public int getCode() {
+            return code;
+        }
+    }
+
+    @FunctionalInterface
+    private interface ResponseReader<T> {
+        T read(JsonParser parser) throws IOException;
+    }
+
+    private static class MemoizedArtists {
+        private final List<String> artists;
+        private final long memoizedAt = System.currentTimeMillis();
+
+        MemoizedArtists(List<String> artists) {
+            this.artists = List.copyOf(artists);
+        }
+
+        boolean isExpired() {
+            return System.currentTimeMillis() - memoizedAt > ARTIST_GRAPH_TTL.toMillis();
+        }
     }
 }
\ No newline at end of file
@@ -0,0 +1,164 @@
+package com.playlistgenerator.service;
+
+import com.playlistgenerator.dto.PlaylistFormData;
+import com.playlistgenerator.dto.PlaylistRequest;
+import com.playlistgenerator.dto.PlaylistResult;
+import com.playlistgenerator.enums.GenerationMode;
+import com.playlistgenerator.service.cache.GenerationResultStore;
+import com.playlistgenerator.service.cache.RecommendationPool;
+import com.playlistgenerator.service.handler.PlaylistModeHandler;
+import com.playlistgenerator.service.handler.PlaylistModeHandlerFactory;
+import com.playlistgenerator.service.metrics.PlaylistMetrics;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Service;
+import se.michaelthelin.spotify.model_objects.specification.Track;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static com.playlistgenerator.service.PlaylistPromptService.buildArtistBasedPrompt;
+
+/**
+ * Runs one playlist generation from submitted form data: prompt building, Gemini
+ * recommendations and Spotify resolution. Shared by the page, streaming and job endpoints.
+ * Each stage is timed under {@code playlist.generation.stage}.
+ */
+@Service
+public class PlaylistGenerationService {
+
+    private final PlaylistModeHandlerFactory modeHandlerFactory;
+    private final PlaylistPromptService playlistPromptService;
+    private final SpotifyService spotifyService;
+    private final LastFMService lastFMService;
+    private final TrackProcessingService trackProcessingService;
+    private final GenerationResultStore generationResultStore;
+    private final QuickTypeTrackPool quickTypeTrackPool;
+    private final PlaylistMetrics metrics;
+
+    public PlaylistGenerationService(PlaylistModeHandlerFactory modeHandlerFactory, PlaylistPromptService playlistPromptService,
+                                     SpotifyService spotifyService, LastFMService lastFMService,
+                                     TrackProcessingService trackProcessingService,
+                                     GenerationResultStore generationResultStore, QuickTypeTrackPool quickTypeTrackPool,
+                                     PlaylistMetrics metrics) {
+        this.modeHandlerFactory = modeHandlerFactory;
+        this.playlistPromptService = playlistPromptService;
+        this.spotifyService = spotifyService;
+        this.lastFMService = lastFMService;
+        this.trackProcessingService = trackProcessingService;
+        this.generationResultStore = generationResultStore;
+        this.quickTypeTrackPool = quickTypeTrackPool;
+        this.metrics = metrics;
+    }
+
+    public PlaylistResult generate(PlaylistFormData formData, GenerationListener listener) throws Exception {
+        Timer.Sample stage = metrics.startTimer();
+        PlaylistModeHandler handler = modeHandlerFactory.getHandler(formData.getMode());
+        PlaylistRequest request = handler.handleMode(formData);
+        stage.stop(metrics.stageTimer("handler"));
+
+        if (isQuickTypeOnly(request) && !formData.isUseListeningHistory()
+                && quickTypeTrackPool.supports(request.getQuickType())) {
+            List<Track> pooledTracks = quickTypeTrackPool.take(request.getQuickType(), request.getPlaylistSize());
+            if (pooledTracks != null) {
+                return servePooled(request, pooledTracks, listener);
+            }
+        }
+
+        stage = metrics.startTimer();
+
+        String prompt;
+        if (isQuickTypeOnly(request)) {
+            // Quick playlist without seed artists: the quick-type prompt is all there is
+            prompt = playlistPromptService.buildQuickTypePrompt(request.getQuickType());
+        } else {
+            prompt = "freeform".equals(formData.getMode()) && formData.getFreeformQuery() != null && !formData.getFreeformQuery().trim().isEmpty()
+                    ? enhanceFreeformPrompt(formData.getFreeformQuery())
+                    : request.getPrompt();
+        }
+
+        if (formData.isUseListeningHistory()) {
+            prompt = playlistPromptService.addListeningHistoryContext(prompt, formData.getTimeframe(), spotifyService);
+        }
+
+        // Handle artist selection filter
+        String recommendationPrompt;
+        if (isQuickTypeOnly(request)) {
+            recommendationPrompt = prompt;
+        } else if ("selected".equals(formData.getArtistSelection())) {
+            // Generate playlist with selected artists only
+            recommendationPrompt = prompt;
+        } else if ("similar".equals(formData.getArtistSelection())) {
+            // Generate playlist with similar artists only
+            List<String> similarArtists = getSimilarArtists(formData.getArtists());
+            recommendationPrompt = buildArtistBasedPrompt(similarArtists);
+        } else {
+            // Generate playlist with both selected and similar artists
+            List<String> allArtists = new ArrayList<>(Arrays.asList(formData.getArtists().split(",")));
+            allArtists.addAll(getSimilarArtists(formData.getArtists()));
+            recommendationPrompt = buildArtistBasedPrompt(allArtists);
+        }
+        stage.stop(metrics.stageTimer("prompt"));
+        listener.onPromptBuilt(request);
+
+        String fingerprint = isPoolable(formData, request)
+                ? RecommendationPool.fingerprint(request, formData.getArtistSelection())
+                : null;
+        List<Track> validTracks = trackProcessingService.recommendAndResolveTracks(recommendationPrompt, fingerprint, listener);
+        PlaylistResult result = new PlaylistResult(validTracks, request);
+        result.setGenerationId(generationResultStore.put(validTracks));
+        return result;
+    }
+
+    private boolean isQuickTypeOnly(PlaylistRequest request) {
+        return request.getQuickType() != null
+                && (request.getSeedArtists() == null || request.getSeedArtists().isEmpty());
+    }
+
+    /**
+     * Replay a pre-resolved quick-type playlist through the listener as if it had just been
+     * generated
+     */
+    private PlaylistResult servePooled(PlaylistRequest request, List<Track> tracks, GenerationListener listener) {
+        listener.onPromptBuilt(request);
+        listener.onRecommendationsReceived(tracks.size());
+        for (int i = 0; i < tracks.size(); i++) {
+            listener.onTrackResolved(tracks.get(i), i + 1, tracks.size());
+        }
+        PlaylistResult result = new PlaylistResult(tracks, request);
+        result.setGenerationId(generationResultStore.put(tracks));
+        return result;
+    }
+
+    /**
+     * Whether the prompt depends only on fields the fingerprint covers. Listening history and
+     * top-artist inspiration are personal, and free-form queries are not normalized.
+     */
+    private boolean isPoolable(PlaylistFormData formData, PlaylistRequest request) {
+        if (formData.isUseListeningHistory()) {
+            return false;
+        }
+        return request.getMode() == GenerationMode.CUSTOM
+                || (request.getMode() == GenerationMode.INSPIRED && request.getQuickType() != null);
+    }
+
+    private String enhanceFreeformPrompt(String userQuery) {
+        StringBuilder enhancedPrompt = new StringBuilder();
+        enhancedPrompt.append("User request: ").append(userQuery).append("\n\n");
+
+        // Add context about the request format
+        enhancedPrompt.append("Please generate a music playlist based on this request. ");
+        enhancedPrompt.append("Return exactly 20 songs in the format 'Artist - Song Title', one per line, without numbering or additional text.");
+
+        return enhancedPrompt.toString();
+    }
+
+    private List<String> getSimilarArtists(String artists) {
+        List<String> similarArtists = new ArrayList<>();
+        String[] artistArray = artists.split(",");
+        for (String artist : artistArray) {
+            similarArtists.addAll(lastFMService.getSimilarArtists(artist.trim()));
+        }
+        return similarArtists;
+    }
+}
@@ -18,14 +18,14 @@ import java.util.stream.Collectors;
 public class PlaylistPromptService {
 
     public String buildQuickTypePrompt(String quickType) {
-        String basePrompt = "Return valid JSON format with exactly 30 %s songs. " +
-                "STRICT REQUIREMENT: ALL songs must be %s. " +
-                "If a song doesn't clearly fit the %s category, do not include it. " +
+        String basePrompt = "Return valid JSON format with exactly 30 %1$s songs. " +
+                "STRICT REQUIREMENT: ALL songs must be %1$s. " +
+                "If a song doesn't clearly fit the %1$s category, do not include it. " +
                 "Verify each song selection against the requirements before including it. " +
                 "Stay unbiased in your selection. Include hidden gems, indie tracks, and emerging artists from various genres. " +
                 "Use this exact structure without markdown formatting: " +
                 "{\"tracks\": [{\"title\": \"Song Title\", \"artist\": \"Artist Name\"}]} " +
-                "%s " +
+                "%2$s " +
                 "Start your response with { and end with }. " +
                 "Return only the JSON object, starting with { and no code blocks or markdown.";
 
@@ -57,6 +57,18 @@ public class PlaylistPromptService {
         }
     }
 
+    /**
+     * Ask for {@code surplus} songs beyond the playlist size, as spares for recommendations that
+     * cannot be found on Spotify. Prompts state their own count, so this is appended as an override.
+     */
+    public static String withSurplus(String prompt, int playlistSize, int surplus) {
+        if (surplus <= 0) {
+            return prompt;
+        }
+        return prompt + " Return " + (playlistSize + surplus) + " songs in total instead of the number above: "
+                + "the playlist uses " + playlistSize + " and the rest are spares in case some cannot be found.";
+    }
+
     public static String buildCustomPrompt(String mood, List<String> genres, String artists, List<String> artistList, List<String> trackList, List<String> albumList) {
         String prompt;
         // Handle "Customize" mode
@@ -0,0 +1,232 @@
+package com.playlistgenerator.service;
+
+import com.playlistgenerator.config.PlaylistGenerationConfig;
+import com.playlistgenerator.enums.UpstreamApi;
+import com.playlistgenerator.service.ratelimit.RateLimiterRegistry;
+import com.playlistgenerator.service.spotify.SpotifyUserContext;
+import com.playlistgenerator.service.spotify.SpotifyUserSession;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import se.michaelthelin.spotify.model_objects.specification.Track;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Already resolved and validated tracks for each quick type (workout, chill, party, discover), so
+ * a quick playlist is served without waiting on Gemini or Spotify. A scheduled refill tops each
+ * pool up to {@code quickTypePoolTargetSize} tracks and drops tracks older than
+ * {@code quickTypePoolMaxAgeMinutes}, so the pools keep turning over.
+ * <p>
+ * Refills run on a single low-priority thread with the app's Spotify client, search with
+ * {@code quickTypePoolSearchConcurrency} and are skipped while the Gemini or Spotify search
+ * limiters are in use, leaving the upstream budget to interactive requests.
+ */
+@Service
+public class QuickTypeTrackPool {
+
+    private final PlaylistGenerationConfig config;
+    private final PlaylistPromptService playlistPromptService;
+    private final GoogleGeminiService googleGeminiService;
+    private final TrackSearchService trackSearchService;
+    private final RateLimiterRegistry rateLimiterRegistry;
+    private final ExecutorService refillExecutor;
+    private final Map<String, Pool> pools = new ConcurrentHashMap<>();
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong refills = new AtomicLong();
+    private final AtomicLong deferredRefills = new AtomicLong();
+
+    public QuickTypeTrackPool(PlaylistGenerationConfig config, PlaylistPromptService playlistPromptService,
+                              GoogleGeminiService googleGeminiService, TrackSearchService trackSearchService,
+                              RateLimiterRegistry rateLimiterRegistry,
+                              @Qualifier("quickTypeRefillExecutor") ExecutorService refillExecutor) {
+        this.config = config;
+        this.playlistPromptService = playlistPromptService;
+        this.googleGeminiService = googleGeminiService;
+        this.trackSearchService = trackSearchService;
+        this.rateLimiterRegistry = rateLimiterRegistry;
+        this.refillExecutor = refillExecutor;
+        for (String quickType : config.getQuickTypePoolTypes()) {
+            pools.put(normalize(quickType), new Pool());
+        }
+    }
+
+    public boolean supports(String quickType) {
+        return config.isQuickTypePoolEnabled() && quickType != null && pools.containsKey(normalize(quickType));
+    }
+
+    /**
+     * {@code count} random pooled tracks for the quick type, or null when the pool does not hold
+     * enough yet. Tracks already served to the current user come last, so repeated quick
+     * playlists differ as long as the pool allows.
+     */
+    public List<Track> take(String quickType, int count) {
+        Pool pool = supports(quickType) ? pools.get(normalize(quickType)) : null;
+        if (pool == null) {
+            misses.incrementAndGet();
+            return null;
+        }
+
+        List<Track> candidates = pool.snapshot(System.currentTimeMillis(), maxAgeMillis());
+        if (candidates.size() < count) {
+            misses.incrementAndGet();
+            return null;
+        }
+
+        SpotifyUserSession user = SpotifyUserContext.current();
+        shuffle(candidates);
+        List<Track> unseen = new ArrayList<>();
+        List<Track> seen = new ArrayList<>();
+        for (Track track : candidates) {
+            (user != null && user.wasServed(track.getId()) ? seen : unseen).add(track);
+        }
+        unseen.addAll(seen);
+        List<Track> served = new ArrayList<>(unseen.subList(0, count));
+
+        if (user != null) {
+            user.markServed(served.stream().map(Track::getId).toList());
+        }
+        hits.incrementAndGet();
+        return served;
+    }
+
+    @Scheduled(fixedDelayString = "${playlist.generation.quick-type-pool-refresh-interval-ms:300000}")
+    public void scheduleRefill() {
+        if (config.isQuickTypePoolEnabled()) {
+            refillExecutor.execute(this::refillAll);
+        }
+    }
+
+    private void refillAll() {
+        long now = System.currentTimeMillis();
+        for (Map.Entry<String, Pool> entry : pools.entrySet()) {
+            Pool pool = entry.getValue();
+            pool.removeOlderThan(now - maxAgeMillis());
+            if (pool.size() >= config.getQuickTypePoolTargetSize()) {
+                continue;
+            }
+            if (!upstreamIdle()) {
+                deferredRefills.incrementAndGet();
+                System.out.println("Quick-type refill deferred, upstream limiters busy");
+                return;
+            }
+            refill(entry.getKey(), pool);
+        }
+    }
+
+    private boolean upstreamIdle() {
+        return rateLimiterRegistry.get(UpstreamApi.GEMINI).isIdle()
+                && rateLimiterRegistry.get(UpstreamApi.SPOTIFY_SEARCH).isIdle();
+    }
+
+    private void refill(String quickType, Pool pool) {
+        try {
+            String prompt = PlaylistPromptService.withSurplus(playlistPromptService.buildQuickTypePrompt(quickType),
+                    config.getDefaultPlaylistSize(), config.getRecommendationSurplus());
+            List<GoogleGeminiService.Track> recommendations = googleGeminiService.getMusicRecommendations(prompt);
+            TrackSearchService.ResolutionSession session = trackSearchService.openSession(
+                    track -> {}, config.getQuickTypePoolSearchConcurrency());
+            recommendations.forEach(session::submit);
+            List<Track> tracks = session.awaitResults();
+            pool.addAll(tracks, System.currentTimeMillis());
+            refills.incrementAndGet();
+            System.out.println("Quick-type pool '" + quickType + "' refilled with " + tracks.size()
+                    + " tracks, now " + pool.size());
+        } catch (Exception e) {
+            System.err.println("Quick-type refill failed for '" + quickType + "': " + e.getMessage());
+        }
+    }
+
+    private long maxAgeMillis() {
+        return Duration.ofMinutes(config.getQuickTypePoolMaxAgeMinutes()).toMillis();
+    }
+
+    private static String normalize(String quickType) {
+        return quickType.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private static void shuffle(List<Track> tracks) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        for (int i = tracks.size() - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            Track swapped = tracks.get(i);
+            tracks.set(i, tracks.get(j));
+            tracks.set(j, swapped);
+        }
+    }
+
+    // Statistics
+    public long getHitCount() { return hits.get(); }
+    public long getMissCount() { return misses.get(); }
+    public long getRefillCount() { return refills.get(); }
+    public long getDeferredRefillCount() { return deferredRefills.get(); }
+
+    public int getSize() {
+        return pools.values().stream().mapToInt(Pool::size).sum();
+    }
+
+    public Map<String, Integer> getSizes() {
+        Map<String, Integer> sizes = new LinkedHashMap<>();
+        pools.forEach((quickType, pool) -> sizes.put(quickType, pool.size()));
+        return sizes;
+    }
+
+    public double getHitRate() {
+        long total = hits.get() + misses.get();
+        return total == 0 ? 0.0 : (double) hits.get() / total;
+    }
+
+    private static class Pool {
+        // Track id to the track and when it was pooled, oldest first
+        private final LinkedHashMap<String, PooledTrack> tracks = new LinkedHashMap<>();
+
+        synchronized int size() {
+            return tracks.size();
+        }
+
+        synchronized void addAll(List<Track> resolved, long now) {
+            for (Track track : resolved) {
+                tracks.putIfAbsent(track.getId(), new PooledTrack(track, now));
+            }
+        }
+
+        synchronized void removeOlderThan(long cutoff) {
+            Iterator<PooledTrack> oldest = tracks.values().iterator();
+            while (oldest.hasNext() && oldest.next().pooledAt < cutoff) {
+                oldest.remove();
+            }
+        }
+
+        synchronized List<Track> snapshot(long now, long maxAgeMillis) {
+            List<Track> live = new ArrayList<>(tracks.size());
+            for (PooledTrack pooled : tracks.values()) {
+                if (now - pooled.pooledAt <= maxAgeMillis) {
+                    live.add(pooled.track);
+                }
+            }
+            return live;
+        }
+    }
+
+    private static class PooledTrack {
+        private final Track track;
+        private final long pooledAt;
+
+        PooledTrack(Track track, long pooledAt) {
+            this.track = track;
+            this.pooledAt = pooledAt;
+        }
+    }
+}
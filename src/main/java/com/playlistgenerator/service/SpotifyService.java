@@ -1,68 +1,136 @@
 package com.playlistgenerator.service;
 
-import com.playlistgenerator.config.SpotifyConfig;
+import com.playlistgenerator.config.PlaylistGenerationConfig;
+import com.playlistgenerator.enums.UpstreamApi;
+import com.playlistgenerator.service.cache.LruCache;
+import com.playlistgenerator.service.cache.SingleFlight;
+import com.playlistgenerator.service.metrics.PlaylistMetrics;
+import com.playlistgenerator.service.ratelimit.RateLimiterRegistry;
+import com.playlistgenerator.service.ratelimit.TokenBucketRateLimiter;
+import com.playlistgenerator.service.spotify.SpotifyClientRegistry;
+import com.playlistgenerator.service.spotify.SpotifyUserContext;
+import com.playlistgenerator.service.spotify.SpotifyUserSession;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import se.michaelthelin.spotify.SpotifyApi;
 import se.michaelthelin.spotify.exceptions.SpotifyWebApiException;
+import se.michaelthelin.spotify.exceptions.detailed.TooManyRequestsException;
+import se.michaelthelin.spotify.model_objects.credentials.AuthorizationCodeCredentials;
 import se.michaelthelin.spotify.model_objects.specification.*;
 import se.michaelthelin.spotify.requests.data.playlists.AddItemsToPlaylistRequest;
 import se.michaelthelin.spotify.requests.data.playlists.CreatePlaylistRequest;
 
 import java.io.IOException;
-import java.net.URI;
+import java.io.InterruptedIOException;
 import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
 @Service
 public class SpotifyService {
-    private static final long MIN_API_CALL_INTERVAL = 50; // 100ms between calls
-    private static final int BATCH_SIZE = 20;
+    // Maximum ids accepted by Spotify's several-tracks endpoint
+    private static final int BATCH_SIZE = 50;
     private static final int MAX_RETRIES = 3;
-    private static final long BATCH_DELAY = 200;
+    private static final String TRACK_URI_PREFIX = "spotify:track:";
+    // Maximum items accepted by one add-items-to-playlist call
+    private static final int PLAYLIST_CHUNK_SIZE = 100;
 
-    private final SpotifyApi spotifyApi;
-    private User currentUser;
+    // Catalog scope of a session whose market is not known yet, see catalogScope()
+    public static final String SESSION_SCOPE_PREFIX = "session:";
 
-    // Caches for performance optimization
-    private final Map<String, List<String>> artistTracksCache = new ConcurrentHashMap<>();
-    private final Map<String, Track> trackDetailsCache = new ConcurrentHashMap<>();
+    private final SpotifyClientRegistry clientRegistry;
+    private final TokenBucketRateLimiter searchRateLimiter;
+    private final TokenBucketRateLimiter playlistRateLimiter;
 
-    private long lastApiCallTime = 0;
+    // Catalog caches, shared by all users; user-scoped data lives in SpotifyUserSession
+    private final Map<String, List<String>> artistTracksCache = new ConcurrentHashMap<>();
+    private final LruCache<String, Track> trackDetailsCache;
+    // Identical catalog calls already in flight are shared rather than sent again
+    private final SingleFlight<Paging<Track>> searchFlight = new SingleFlight<>("spotifySearch");
+    private final SingleFlight<Track[]> trackBatchFlight = new SingleFlight<>("spotifyTracks");
+    private final ExecutorService upstreamExecutor;
+    private final PlaylistMetrics metrics;
 
     @Autowired
-    public SpotifyService(SpotifyConfig spotifyConfig) {
-        this.spotifyApi = new SpotifyApi.Builder()
-                .setClientId(spotifyConfig.getClientId())
-                .setClientSecret(spotifyConfig.getClientSecret())
-                .setRedirectUri(URI.create(spotifyConfig.getRedirectUri()))
-                .build();
+    public SpotifyService(SpotifyClientRegistry clientRegistry, RateLimiterRegistry rateLimiterRegistry,
+                          PlaylistGenerationConfig config, ExecutorService upstreamExecutor, PlaylistMetrics metrics) {
+        this.clientRegistry = clientRegistry;
+        this.metrics = metrics;
+        this.trackDetailsCache = new LruCache<>(config.getTrackDetailsCacheMaxEntries());
+        this.upstreamExecutor = upstreamExecutor;
+        this.searchRateLimiter = rateLimiterRegistry.get(UpstreamApi.SPOTIFY_SEARCH);
+        this.playlistRateLimiter = rateLimiterRegistry.get(UpstreamApi.SPOTIFY_PLAYLISTS);
     }
 
     // Authentication and Configuration
+
+    /**
+     * Client of the user bound to the current thread
+     *
+     * @throws IllegalStateException when no Spotify user is logged in for this session
+     */
     public SpotifyApi getSpotifyApi() {
-        return spotifyApi;
+        return requireUserSession().getSpotifyApi();
     }
 
-    public void setTokens(String accessToken, String refreshToken) {
-        spotifyApi.setAccessToken(accessToken);
-        spotifyApi.setRefreshToken(refreshToken);
+    public SpotifyApi getAuthorizationApi() {
+        return clientRegistry.authorizationClient();
+    }
+
+    public void registerUser(String sessionId, AuthorizationCodeCredentials credentials) {
+        SpotifyUserContext.set(clientRegistry.register(sessionId, credentials));
     }
 
     // User Profile
     public User getCurrentUser() {
-        if (currentUser == null) {
-            currentUser = executeWithRetry(() -> spotifyApi.getCurrentUsersProfile().build().execute(),
-                    "Error retrieving user profile");
+        SpotifyUserSession session = requireUserSession();
+        if (session.getCurrentUser() == null) {
+            session.setCurrentUser(executeWithRetry("profile",
+                    () -> session.getSpotifyApi().getCurrentUsersProfile().build().execute(),
+                    "Error retrieving user profile"));
+        }
+        return session.getCurrentUser();
+    }
+
+    private SpotifyUserSession requireUserSession() {
+        SpotifyUserSession session = SpotifyUserContext.current();
+        if (session == null) {
+            throw new IllegalStateException("Not logged in to Spotify");
         }
-        return currentUser;
+        return session;
+    }
+
+    // Catalog calls use the user's client when one is bound (so results follow the user's market),
+    // otherwise the application's client-credentials client
+    private SpotifyApi catalogApi() {
+        SpotifyUserSession session = SpotifyUserContext.current();
+        return session != null ? session.getSpotifyApi() : clientRegistry.appClient();
+    }
+
+    /**
+     * Scope of catalog responses, matching catalogApi(): the user's market once the profile is
+     * known, the session until then, and "app" for the application's client. Playability depends on
+     * the market, so only calls and cached resolutions within one scope are shared.
+     */
+    public String catalogScope() {
+        SpotifyUserSession session = SpotifyUserContext.current();
+        if (session == null) {
+            return "app";
+        }
+        User user = session.getCurrentUser();
+        return user != null && user.getCountry() != null
+                ? "market:" + user.getCountry().getAlpha2()
+                : SESSION_SCOPE_PREFIX + session.getSessionId();
     }
 
     // Top Items Retrieval
     public Paging<Artist> getUserTopArtists(String timeRange, int limit, int offset)
             throws IOException, SpotifyWebApiException, org.apache.hc.core5.http.ParseException {
-        return spotifyApi.getUsersTopArtists()
+        return getSpotifyApi().getUsersTopArtists()
                 .time_range(timeRange)
                 .limit(limit)
                 .offset(offset)
@@ -72,7 +140,7 @@ public class SpotifyService {
 
     public Paging<Track> getUserTopTracks(String timeRange, int limit, int offset)
             throws IOException, SpotifyWebApiException, org.apache.hc.core5.http.ParseException {
-        return spotifyApi.getUsersTopTracks()
+        return getSpotifyApi().getUsersTopTracks()
                 .time_range(timeRange)
                 .limit(limit)
                 .offset(offset)
@@ -82,7 +150,7 @@ public class SpotifyService {
 
     public Paging<PlaylistSimplified> getUserPlaylists(int limit, int offset)
             throws IOException, SpotifyWebApiException, org.apache.hc.core5.http.ParseException {
-        return spotifyApi.getListOfUsersPlaylists(getCurrentUser().getId())
+        return getSpotifyApi().getListOfUsersPlaylists(getCurrentUser().getId())
                 .limit(limit)
                 .offset(offset)
                 .build()
@@ -92,7 +160,10 @@ public class SpotifyService {
     // Search Functionality
     public Paging<Track> searchTracks(String query)
             throws IOException, SpotifyWebApiException, org.apache.hc.core5.http.ParseException {
-        return spotifyApi.searchTracks(query).build().execute();
+        return coalesce(searchFlight, catalogScope() + '|' + query, () -> {
+            searchRateLimiter.acquire();
+            return catalogApi().searchTracks(query).build().execute();
+        });
     }
 
     // Track URI Management
@@ -114,42 +185,107 @@ public class SpotifyService {
                 .collect(Collectors.toList());
     }
 
+    /**
+     * Full track objects for the given URIs, in input order. Tracks already in the catalog cache
+     * are served locally; the remaining ids are fetched in 50-id batches that run concurrently,
+     * paced by the search rate limiter. Ids Spotify cannot resolve are left out.
+     */
     public List<Track> getSpotifyTrackDetails(List<String> trackUris) {
         if (trackUris == null || trackUris.isEmpty()) {
             return new ArrayList<>();
         }
 
         List<String> trackIds = extractTrackIds(trackUris);
-        List<Track> trackDetails = new ArrayList<>();
+        Map<String, Track> found = new HashMap<>();
+        Set<String> missingIds = new LinkedHashSet<>();
+        for (String trackId : trackIds) {
+            Track cached = trackDetailsCache.get(trackId);
+            if (cached != null) {
+                found.put(trackId, cached);
+            } else {
+                missingIds.add(trackId);
+            }
+        }
 
-        processBatches(trackIds, BATCH_SIZE, batch -> {
-            try {
-                applyRateLimit();
-                Track[] tracks = getSeveralTracks(batch);
-                if (tracks != null) {
-                    Arrays.stream(tracks)
-                            .filter(Objects::nonNull)
-                            .forEach(track -> {
-                                trackDetails.add(track);
-                                trackDetailsCache.put("spotify:track:" + track.getId(), track);
-                            });
+        if (!missingIds.isEmpty()) {
+            List<CompletableFuture<Track[]>> batches = new ArrayList<>();
+            processBatches(new ArrayList<>(missingIds), BATCH_SIZE, batch -> batches.add(
+                    CompletableFuture.supplyAsync(SpotifyUserContext.wrap(() -> fetchTrackBatch(batch)), upstreamExecutor)));
+
+            for (CompletableFuture<Track[]> batch : batches) {
+                for (Track track : batch.join()) {
+                    if (track != null) {
+                        cacheTrack(track);
+                        found.put(track.getId(), track);
+                    }
                 }
-                Thread.sleep(BATCH_DELAY);
-            } catch (InterruptedException e) {
-                Thread.currentThread().interrupt();
-            } catch (Exception e) {
-                System.err.println("Error fetching track details batch: " + e.getMessage());
             }
-        });
+        }
+
+        return trackIds.stream()
+                .map(found::get)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Remember a full track object, e.g. one returned by search, so later lookups by URI are local
+     */
+    public void cacheTrack(Track track) {
+        if (track != null && track.getId() != null) {
+            trackDetailsCache.put(track.getId(), track);
+        }
+    }
 
-        return trackDetails;
+    public LruCache<String, Track> getTrackDetailsCache() {
+        return trackDetailsCache;
+    }
+
+    private Track[] fetchTrackBatch(List<String> batch) {
+        try {
+            Track[] tracks = getSeveralTracks(batch);
+            return tracks != null ? tracks : new Track[0];
+        } catch (Exception e) {
+            System.err.println("Error fetching track details batch: " + e.getMessage());
+            return new Track[0];
+        }
     }
 
     public Track[] getSeveralTracks(List<String> trackIds)
             throws IOException, SpotifyWebApiException, org.apache.hc.core5.http.ParseException {
-        return spotifyApi.getSeveralTracks(trackIds.toArray(new String[0]))
-                .build()
-                .execute();
+        return coalesce(trackBatchFlight, catalogScope() + '|' + String.join(",", trackIds), () -> {
+            searchRateLimiter.acquire();
+            return catalogApi().getSeveralTracks(trackIds.toArray(new String[0]))
+                    .build()
+                    .execute();
+        });
+    }
+
+    public SingleFlight<Paging<Track>> getSearchFlight() {
+        return searchFlight;
+    }
+
+    public SingleFlight<Track[]> getTrackBatchFlight() {
+        return trackBatchFlight;
+    }
+
+    /**
+     * Run a catalog call through {@code flight}. Results are shared between coalesced callers, which
+     * only read them. Keys carry the {@link #catalogScope()}, so callers in different markets never
+     * share a response.
+     */
+    private static <T> T coalesce(SingleFlight<T> flight, String key, Callable<T> call)
+            throws IOException, SpotifyWebApiException, org.apache.hc.core5.http.ParseException {
+        try {
+            return flight.execute(key, call);
+        } catch (IOException | SpotifyWebApiException | org.apache.hc.core5.http.ParseException | RuntimeException e) {
+            throw e;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for a shared " + flight.getName() + " call");
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
     }
 
     // Playlist Management
@@ -157,11 +293,12 @@ public class SpotifyService {
             throws IOException, SpotifyWebApiException, org.apache.hc.core5.http.ParseException {
         String userId = getCurrentUser().getId();
 
-        CreatePlaylistRequest request = spotifyApi.createPlaylist(userId, name)
+        CreatePlaylistRequest request = getSpotifyApi().createPlaylist(userId, name)
                 .public_(false)
                 .description("Generated playlist")
                 .build();
 
+        playlistRateLimiter.acquire();
         return request.execute();
     }
 
@@ -190,15 +327,14 @@ public class SpotifyService {
 
     // Private Helper Methods
     private String searchSpotifyForTrackByArtist(String trackName, String artist) {
-        return executeWithRetry(() -> {
+        return executeWithRetry("search", () -> {
             String query = "track:" + trackName + " artist:" + artist;
-            applyRateLimit();
             Paging<Track> searchResult = searchTracks(query);
             return searchResult.getItems().length > 0 ? searchResult.getItems()[0].getUri() : null;
         }, "Failed to search for " + trackName + " by " + artist);
     }
 
-    private <T> T executeWithRetry(SupplierWithException<T> supplier, String errorMessage) {
+    private <T> T executeWithRetry(String operation, SupplierWithException<T> supplier, String errorMessage) {
         for (int attempt = 0; attempt < MAX_RETRIES; attempt++) {
             try {
                 return supplier.get();
@@ -208,6 +344,7 @@ public class SpotifyService {
                     return null;
                 }
 
+                metrics.countRetry("spotify", operation);
                 try {
                     Thread.sleep((long) Math.pow(2, attempt + 1) * 500); // Exponential backoff
                 } catch (InterruptedException ie) {
@@ -221,8 +358,8 @@ public class SpotifyService {
 
     private List<String> extractTrackIds(List<String> trackUris) {
         return trackUris.stream()
-                .filter(uri -> uri.startsWith("spotify:track:"))
-                .map(uri -> uri.substring("spotify:track:".length()))
+                .filter(uri -> uri.startsWith(TRACK_URI_PREFIX))
+                .map(uri -> uri.substring(TRACK_URI_PREFIX.length()))
                 .collect(Collectors.toList());
     }
 
@@ -235,12 +372,83 @@ public class SpotifyService {
         }
     }
 
-    private void addTracksToPlaylist(String playlistId, List<String> trackUris)
+    /**
+     * Append tracks to a new playlist in 100-item chunks, in order, each at an explicit position.
+     * Spotify applies writes to one playlist sequentially and rejects positions past the end, so
+     * each chunk is sent once the previous one is acknowledged.
+     *
+     * @return the snapshot id after the last chunk
+     */
+    private String addTracksToPlaylist(String playlistId, List<String> trackUris)
             throws IOException, SpotifyWebApiException, org.apache.hc.core5.http.ParseException {
-        AddItemsToPlaylistRequest request = spotifyApi
-                .addItemsToPlaylist(playlistId, trackUris.toArray(new String[0]))
-                .build();
-        request.execute();
+        String snapshotId = null;
+        for (int position = 0; position < trackUris.size(); position += PLAYLIST_CHUNK_SIZE) {
+            List<String> chunk = trackUris.subList(position, Math.min(position + PLAYLIST_CHUNK_SIZE, trackUris.size()));
+            snapshotId = writePlaylistChunk(playlistId, chunk, position, snapshotId);
+        }
+        return snapshotId;
+    }
+
+    /**
+     * Write one chunk, retrying failures without duplicating tracks: after an error the playlist's
+     * snapshot and length are re-read, and a chunk whose write landed despite the error is not sent again.
+     * The re-read counts against the playlist rate limit; if it fails too, the write error is thrown
+     * with the re-read error suppressed.
+     */
+    private String writePlaylistChunk(String playlistId, List<String> chunk, int position, String previousSnapshotId)
+            throws IOException, SpotifyWebApiException, org.apache.hc.core5.http.ParseException {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                AddItemsToPlaylistRequest request = getSpotifyApi()
+                        .addItemsToPlaylist(playlistId, chunk.toArray(new String[0]))
+                        .position(position)
+                        .build();
+                playlistRateLimiter.acquire();
+                return request.execute().getSnapshotId();
+            } catch (IOException | SpotifyWebApiException | org.apache.hc.core5.http.ParseException e) {
+                Playlist current;
+                try {
+                    playlistRateLimiter.acquire();
+                    current = getSpotifyApi().getPlaylist(playlistId)
+                            .fields("snapshot_id,tracks.total")
+                            .build()
+                            .execute();
+                } catch (IOException | SpotifyWebApiException | org.apache.hc.core5.http.ParseException
+                         | RuntimeException recoveryError) {
+                    // Without the playlist length a retry could duplicate the chunk, so give up with
+                    // the write failure as the cause
+                    e.addSuppressed(recoveryError);
+                    throw e;
+                }
+                int length = current.getTracks().getTotal();
+                boolean snapshotChanged = previousSnapshotId == null
+                        || !previousSnapshotId.equals(current.getSnapshotId());
+
+                if (length == position + chunk.size() && snapshotChanged) {
+                    System.out.println("Chunk at position " + position + " was applied despite error: " + e.getMessage());
+                    return current.getSnapshotId();
+                }
+                if (length != position || attempt >= MAX_RETRIES) {
+                    throw e;
+                }
+
+                System.err.println("Retrying playlist chunk at position " + position + " (attempt " + attempt + "): " + e.getMessage());
+                metrics.countRetry("spotify", "playlist-items");
+                sleepBeforeRetry(e, attempt);
+            }
+        }
+    }
+
+    private void sleepBeforeRetry(Exception e, int attempt) throws IOException {
+        long delayMillis = e instanceof TooManyRequestsException tooManyRequests
+                ? TimeUnit.SECONDS.toMillis(tooManyRequests.getRetryAfter())
+                : (long) Math.pow(2, attempt) * 500;
+        try {
+            Thread.sleep(delayMillis);
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while retrying playlist write");
+        }
     }
 
     private void logPlaylistCreation(String playlistId, List<String> trackUris) {
@@ -257,18 +465,6 @@ public class SpotifyService {
         }
     }
 
-    private synchronized void applyRateLimit() {
-        long elapsed = System.currentTimeMillis() - lastApiCallTime;
-        if (elapsed < MIN_API_CALL_INTERVAL) {
-            try {
-                Thread.sleep(MIN_API_CALL_INTERVAL - elapsed);
-            } catch (InterruptedException e) {
-                Thread.currentThread().interrupt();
-            }
-        }
-        lastApiCallTime = System.currentTimeMillis();
-    }
-
     // Functional Interfaces
     @FunctionalInterface
     private interface SupplierWithException<T> {
@@ -0,0 +1,361 @@
+package com.playlistgenerator.service;
+
+import se.michaelthelin.spotify.model_objects.specification.ArtistSimplified;
+import se.michaelthelin.spotify.model_objects.specification.Track;
+
+import java.text.Normalizer;
+import java.util.Arrays;
+
+/**
+ * Scores how well a Spotify search result matches the recommended title and artist, as a Dice
+ * coefficient over character trigrams between 0 and 1. Both sides are normalized first: accents
+ * folded, case and punctuation dropped, and "feat." clauses and remaster/version suffixes removed.
+ * A joint artist credit such as "Daft Punk, Pharrell Williams" also matches each credited artist
+ * on its own, since Spotify lists them separately.
+ * <p>
+ * An instance keeps its normalization and trigram buffers between calls, so scoring allocates
+ * nothing once the buffers have grown to fit. Instances are not thread-safe; each resolving
+ * thread borrows its own.
+ */
+public class TrackMatchScorer {
+
+    // Accent-free lower-case replacement for each char up to U+024F
+    private static final char[] FOLD = buildFoldTable();
+
+    // Words that open a featured-artist clause
+    private static final String[] FEATURE_MARKERS = {"feat.", "feat ", "ft.", "featuring ", "with "};
+    // Suffix words after " - " or inside brackets that describe a release rather than the song
+    private static final String[] VERSION_MARKERS = {"remaster", "version", "edit", "live", "mono", "stereo",
+            "anniversary", "deluxe", "bonus"};
+    // Separators between the artists of a joint credit, matched after lower-casing
+    private static final String[] ARTIST_SEPARATORS = {",", "&", " x ", " and "};
+
+    private char[] raw = new char[64];
+    private char[] queryTitle = new char[64];
+    private char[] queryArtist = new char[64];
+    private char[] candidate = new char[64];
+    private long[] queryTitleTrigrams = new long[64];
+    private long[] queryArtistTrigrams = new long[64];
+    private long[] candidateTrigrams = new long[64];
+    private char[] queryArtistPart = new char[64];
+    private long[][] queryArtistPartTrigrams = new long[0][];
+    private int[] queryArtistPartTrigramCounts = new int[0];
+    private int queryArtistPartCount;
+    private int queryTitleLength;
+    private int queryArtistLength;
+    private int queryTitleTrigramCount;
+    private int queryArtistTrigramCount;
+    private int rawLength;
+
+    /**
+     * Set the recommendation that following {@link #score(Track)} calls compare against. An empty
+     * artist means the recommendation could not be split; the whole string is then matched
+     * against title and artists together.
+     */
+    public void setQuery(String title, String artist) {
+        queryTitle = ensureCapacity(queryTitle, title.length());
+        queryTitleLength = normalize(title, true, queryTitle);
+        queryArtist = ensureCapacity(queryArtist, artist.length());
+        queryArtistLength = normalize(artist, false, queryArtist);
+
+        queryTitleTrigrams = ensureCapacity(queryTitleTrigrams, queryTitleLength + 3);
+        queryTitleTrigramCount = trigrams(queryTitle, queryTitleLength, queryTitleTrigrams);
+        queryArtistTrigrams = ensureCapacity(queryArtistTrigrams, queryArtistLength + 3);
+        queryArtistTrigramCount = trigrams(queryArtist, queryArtistLength, queryArtistTrigrams);
+        splitQueryArtist(artist);
+    }
+
+    /**
+     * Trigrams of each artist in a joint credit, kept only when the credit names more than one
+     */
+    private void splitQueryArtist(String artist) {
+        normalizeRaw(artist, false);
+        queryArtistPart = ensureCapacity(queryArtistPart, rawLength);
+        int parts = 0;
+        int start = 0;
+        int i = 0;
+        while (i <= rawLength) {
+            int separator = i < rawLength ? separatorLength(raw, i, rawLength) : 0;
+            if (i < rawLength && separator == 0) {
+                i++;
+                continue;
+            }
+            int length = clean(raw, start, i, queryArtistPart, 0);
+            if (length > 0) {
+                addQueryArtistPart(parts++, length);
+            }
+            i += Math.max(separator, 1);
+            start = i;
+        }
+        queryArtistPartCount = parts > 1 ? parts : 0;
+    }
+
+    private void addQueryArtistPart(int index, int length) {
+        if (index == queryArtistPartTrigrams.length) {
+            queryArtistPartTrigrams = Arrays.copyOf(queryArtistPartTrigrams, index + 2);
+            queryArtistPartTrigramCounts = Arrays.copyOf(queryArtistPartTrigramCounts, index + 2);
+        }
+        long[] target = queryArtistPartTrigrams[index];
+        target = target == null ? new long[Math.max(64, length + 3)] : ensureCapacity(target, length + 3);
+        queryArtistPartTrigrams[index] = target;
+        queryArtistPartTrigramCounts[index] = trigrams(queryArtistPart, length, target);
+    }
+
+    private static int separatorLength(char[] text, int from, int length) {
+        for (String separator : ARTIST_SEPARATORS) {
+            if (startsWith(text, from, length, separator)) {
+                return separator.length();
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Match score of the candidate against the current query. Title and artist are scored
+     * separately and the lower of the two counts, also with title and artist swapped in case the
+     * recommendation named the artist first.
+     */
+    public double score(Track track) {
+        if (track == null || track.getName() == null || track.getArtists() == null) {
+            return 0;
+        }
+        if (queryArtistLength == 0) {
+            return scoreUnsplit(track);
+        }
+
+        int titleCount = candidateTrigrams(track.getName(), true);
+        double titleScore = dice(queryTitleTrigrams, queryTitleTrigramCount, candidateTrigrams, titleCount);
+        double swappedTitleScore = dice(queryArtistTrigrams, queryArtistTrigramCount, candidateTrigrams, titleCount);
+
+        double artistScore = 0;
+        double swappedArtistScore = 0;
+        for (ArtistSimplified artist : track.getArtists()) {
+            if (artist == null || artist.getName() == null) {
+                continue;
+            }
+            int artistCount = candidateTrigrams(artist.getName(), false);
+            artistScore = Math.max(artistScore,
+                    dice(queryArtistTrigrams, queryArtistTrigramCount, candidateTrigrams, artistCount));
+            for (int part = 0; part < queryArtistPartCount; part++) {
+                artistScore = Math.max(artistScore, dice(queryArtistPartTrigrams[part],
+                        queryArtistPartTrigramCounts[part], candidateTrigrams, artistCount));
+            }
+            swappedArtistScore = Math.max(swappedArtistScore,
+                    dice(queryTitleTrigrams, queryTitleTrigramCount, candidateTrigrams, artistCount));
+        }
+        return Math.max(Math.min(titleScore, artistScore), Math.min(swappedTitleScore, swappedArtistScore));
+    }
+
+    /**
+     * Index of the best-scoring track among the first {@code topK} that reaches
+     * {@code minScore}, or -1 when none does
+     */
+    public int bestMatch(Track[] tracks, int topK, double minScore) {
+        int best = -1;
+        double bestScore = minScore;
+        for (int i = 0; i < Math.min(topK, tracks.length); i++) {
+            double score = score(tracks[i]);
+            if (score >= bestScore && (best < 0 || score > bestScore)) {
+                best = i;
+                bestScore = score;
+            }
+        }
+        return best;
+    }
+
+    private double scoreUnsplit(Track track) {
+        int length = 0;
+        candidate = ensureCapacity(candidate, track.getName().length() + 1);
+        length = append(track.getName(), true, length);
+        for (ArtistSimplified artist : track.getArtists()) {
+            if (artist != null && artist.getName() != null) {
+                candidate = ensureCapacity(candidate, length + artist.getName().length() + 1);
+                length = append(artist.getName(), false, length);
+            }
+        }
+        candidateTrigrams = ensureCapacity(candidateTrigrams, length + 3);
+        int count = trigrams(candidate, length, candidateTrigrams);
+        return dice(queryTitleTrigrams, queryTitleTrigramCount, candidateTrigrams, count);
+    }
+
+    private int candidateTrigrams(String value, boolean title) {
+        candidate = ensureCapacity(candidate, value.length());
+        int length = normalize(value, title, candidate);
+        candidateTrigrams = ensureCapacity(candidateTrigrams, length + 3);
+        return trigrams(candidate, length, candidateTrigrams);
+    }
+
+    private int append(String value, boolean title, int offset) {
+        if (offset > 0) {
+            candidate[offset++] = ' ';
+        }
+        normalizeRaw(value, title);
+        return offset + clean(raw, 0, rawLength, candidate, offset);
+    }
+
+    /**
+     * Lower-case {@code value} into {@code raw}, dropping feature clauses and, for titles, release
+     * suffixes. The used length is left in {@code rawLength}.
+     */
+    private void normalizeRaw(String value, boolean title) {
+        raw = ensureCapacity(raw, value.length());
+        int length = 0;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            raw[length++] = c < FOLD.length ? FOLD[c] : Character.toLowerCase(c);
+        }
+        length = stripClauses(raw, length, title);
+        rawLength = length;
+    }
+
+    private int normalize(String value, boolean title, char[] target) {
+        normalizeRaw(value, title);
+        return clean(raw, 0, rawLength, target, 0);
+    }
+
+    /**
+     * Cut the text at the first bracket or " - " that opens a feature clause or a release suffix,
+     * and at an unbracketed feature marker
+     */
+    private static int stripClauses(char[] text, int length, boolean title) {
+        for (int i = 0; i < length; i++) {
+            char c = text[i];
+            if (c == '(' || c == '[') {
+                if (startsWithAny(text, i + 1, length, FEATURE_MARKERS)
+                        || (title && containsAny(text, i + 1, length, VERSION_MARKERS))) {
+                    return trimEnd(text, i);
+                }
+            } else if (title && c == '-' && i > 0 && text[i - 1] == ' ' && i + 1 < length && text[i + 1] == ' ') {
+                if (containsAny(text, i + 2, length, VERSION_MARKERS) || startsWithAny(text, i + 2, length, FEATURE_MARKERS)) {
+                    return trimEnd(text, i);
+                }
+            } else if (c == ' ' && i > 0 && (startsWith(text, i + 1, length, "feat.") || startsWith(text, i + 1, length, "ft.")
+                    || startsWith(text, i + 1, length, "featuring "))) {
+                return trimEnd(text, i);
+            }
+        }
+        return length;
+    }
+
+    /**
+     * Copy the letters and digits of {@code source[from, to)} into {@code target} from {@code offset},
+     * collapsing everything else to single spaces. Returns the number of chars written.
+     */
+    private static int clean(char[] source, int from, int to, char[] target, int offset) {
+        int written = 0;
+        boolean pendingSpace = false;
+        for (int i = from; i < to; i++) {
+            char c = source[i];
+            if (Character.isLetterOrDigit(c)) {
+                if (pendingSpace && written > 0) {
+                    target[offset + written++] = ' ';
+                }
+                target[offset + written++] = c;
+                pendingSpace = false;
+            } else {
+                pendingSpace = true;
+            }
+        }
+        return written;
+    }
+
+    /**
+     * Trigrams of the text padded with two leading and one trailing space, sorted and de-duplicated
+     */
+    private static int trigrams(char[] text, int length, long[] target) {
+        if (length == 0) {
+            return 0;
+        }
+        int count = 0;
+        for (int i = -2; i < length - 1; i++) {
+            char a = i < 0 ? ' ' : text[i];
+            char b = i + 1 < 0 ? ' ' : text[i + 1];
+            char c = i + 2 < length ? text[i + 2] : ' ';
+            target[count++] = ((long) a << 32) | ((long) b << 16) | c;
+        }
+        Arrays.sort(target, 0, count);
+        int unique = 1;
+        for (int i = 1; i < count; i++) {
+            if (target[i] != target[unique - 1]) {
+                target[unique++] = target[i];
+            }
+        }
+        return unique;
+    }
+
+    private static double dice(long[] a, int aCount, long[] b, int bCount) {
+        if (aCount == 0 || bCount == 0) {
+            return 0;
+        }
+        int shared = 0;
+        int i = 0;
+        int j = 0;
+        while (i < aCount && j < bCount) {
+            if (a[i] == b[j]) {
+                shared++;
+                i++;
+                j++;
+            } else if (a[i] < b[j]) {
+                i++;
+            } else {
+                j++;
+            }
+        }
+        return 2.0 * shared / (aCount + bCount);
+    }
+
+    private static boolean startsWithAny(char[] text, int from, int length, String[] prefixes) {
+        for (String prefix : prefixes) {
+            if (startsWith(text, from, length, prefix)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean containsAny(char[] text, int from, int length, String[] words) {
+        for (int i = from; i < length; i++) {
+            boolean wordStart = i == from || !Character.isLetterOrDigit(text[i - 1]);
+            if (wordStart && startsWithAny(text, i, length, words)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean startsWith(char[] text, int from, int length, String prefix) {
+        if (from + prefix.length() > length) {
+            return false;
+        }
+        for (int i = 0; i < prefix.length(); i++) {
+            if (text[from + i] != prefix.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int trimEnd(char[] text, int end) {
+        while (end > 0 && text[end - 1] == ' ') {
+            end--;
+        }
+        return end;
+    }
+
+    private static char[] ensureCapacity(char[] buffer, int length) {
+        return buffer.length >= length ? buffer : Arrays.copyOf(buffer, Math.max(length, buffer.length * 2));
+    }
+
+    private static long[] ensureCapacity(long[] buffer, int length) {
+        return buffer.length >= length ? buffer : Arrays.copyOf(buffer, Math.max(length, buffer.length * 2));
+    }
+
+    private static char[] buildFoldTable() {
+        char[] fold = new char[0x0250];
+        for (char c = 0; c < fold.length; c++) {
+            String decomposed = Normalizer.normalize(String.valueOf(c), Normalizer.Form.NFD);
+            fold[c] = Character.toLowerCase(decomposed.charAt(0));
+        }
+        return fold;
+    }
+}
@@ -1,21 +1,154 @@
 package com.playlistgenerator.service;
 
+import com.playlistgenerator.config.PlaylistGenerationConfig;
+import com.playlistgenerator.service.cache.RecommendationPool;
+import com.playlistgenerator.service.metrics.PlaylistMetrics;
+import io.micrometer.core.instrument.Timer;
 import org.springframework.stereotype.Service;
 import se.michaelthelin.spotify.model_objects.specification.Track;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
 
 @Service
 public class TrackProcessingService {
 
     private final TrackSearchService trackSearchService;
+    private final GoogleGeminiService googleGeminiService;
+    private final PlaylistGenerationConfig config;
+    private final PlaylistMetrics metrics;
+    private final RecommendationPool recommendationPool;
 
-    public TrackProcessingService(TrackSearchService trackSearchService) {
+    public TrackProcessingService(TrackSearchService trackSearchService, GoogleGeminiService googleGeminiService,
+                                  PlaylistGenerationConfig config, PlaylistMetrics metrics,
+                                  RecommendationPool recommendationPool) {
         this.trackSearchService = trackSearchService;
+        this.googleGeminiService = googleGeminiService;
+        this.config = config;
+        this.metrics = metrics;
+        this.recommendationPool = recommendationPool;
     }
 
     public List<Track> processAndFilterTracks(List<String> recommendedTracks) {
         List<Track> trackDetails = trackSearchService.searchTracksWithStrategies(recommendedTracks);
         return trackSearchService.validateAndFilterResults(trackDetails);
     }
+
+    /**
+     * Ask Gemini for recommendations and resolve them on Spotify.
+     * With streaming enabled each track is searched as soon as Gemini emits it, so resolution
+     * overlaps with generation. The search deadline starts at the first streamed track.
+     */
+    public List<Track> recommendAndResolveTracks(String prompt) {
+        return recommendAndResolveTracks(prompt, GenerationListener.NONE);
+    }
+
+    /**
+     * As {@link #recommendAndResolveTracks(String)}, reporting progress to {@code listener}
+     * and each distinct valid track as soon as it resolves.
+     */
+    public List<Track> recommendAndResolveTracks(String prompt, GenerationListener listener) {
+        return recommendAndResolveTracks(prompt, null, listener);
+    }
+
+    /**
+     * As {@link #recommendAndResolveTracks(String, GenerationListener)}, drawing on the
+     * recommendation pool for {@code fingerprint}: a filled pool is sampled instead of calling
+     * Gemini, otherwise the fresh recommendations are added to it. A null fingerprint bypasses the pool.
+     * <p>
+     * {@code recommendationSurplus} extra candidates are requested or sampled, and resolution
+     * stops as soon as the playlist is full.
+     */
+    public List<Track> recommendAndResolveTracks(String prompt, String fingerprint, GenerationListener listener) {
+        int targetCount = config.getDefaultPlaylistSize();
+        int candidateCount = targetCount + Math.max(0, config.getRecommendationSurplus());
+        AtomicInteger resolvedCount = new AtomicInteger();
+        Consumer<Track> onResolved = track ->
+                listener.onTrackResolved(track, resolvedCount.incrementAndGet(), targetCount);
+
+        boolean pooled = fingerprint != null && recommendationPool.isEnabled();
+        if (pooled) {
+            List<GoogleGeminiService.Track> sampled = recommendationPool.sample(fingerprint, candidateCount);
+            if (sampled != null) {
+                System.out.println("Sampled " + sampled.size() + " recommendations from the pool of "
+                        + recommendationPool.size(fingerprint));
+                return resolve(sampled, listener, onResolved);
+            }
+        }
+
+        String surplusPrompt = PlaylistPromptService.withSurplus(prompt, targetCount, config.getRecommendationSurplus());
+        List<GoogleGeminiService.Track> recommendations = new ArrayList<>();
+        List<Track> tracks = config.isStreamingRecommendations()
+                ? resolveStreaming(surplusPrompt, listener, onResolved, recommendations)
+                : resolveBlocking(surplusPrompt, listener, onResolved, recommendations);
+        if (pooled) {
+            recommendationPool.add(fingerprint, recommendations);
+        }
+        return tracks;
+    }
+
+    private List<Track> resolveStreaming(String prompt, GenerationListener listener, Consumer<Track> onResolved,
+                                         List<GoogleGeminiService.Track> recommendations) {
+        TrackSearchService.ResolutionSession[] session = new TrackSearchService.ResolutionSession[1];
+        // Resolution overlaps with the stream; the resolution stage only covers what is left afterwards
+        Timer.Sample llmStage = metrics.startTimer();
+        boolean fallBackToBlocking = false;
+        try {
+            googleGeminiService.streamMusicRecommendations(prompt, track -> {
+                if (session[0] == null) {
+                    session[0] = trackSearchService.openSession(onResolved);
+                    listener.onResolutionStarted(session[0]);
+                }
+                recommendations.add(track);
+                session[0].submit(track);
+            });
+        } catch (GoogleGeminiService.GeminiApiException e) {
+            if (session[0] == null) {
+                System.out.println("Streaming recommendations failed before any track arrived, retrying without streaming");
+                fallBackToBlocking = true;
+            } else {
+                System.out.println("Streaming recommendations interrupted after " + session[0].getSubmittedCount()
+                        + " tracks, keeping what was received");
+            }
+        } finally {
+            // Also covers a failed stream; the blocking retry is timed as an llm stage of its own
+            llmStage.stop(metrics.stageTimer("llm"));
+        }
+
+        if (fallBackToBlocking) {
+            return resolveBlocking(prompt, listener, onResolved, recommendations);
+        }
+
+        if (session[0] == null) {
+            listener.onRecommendationsReceived(0);
+            return List.of();
+        }
+        listener.onRecommendationsReceived(session[0].getSubmittedCount());
+        return session[0].awaitResults();
+    }
+
+    private List<Track> resolveBlocking(String prompt, GenerationListener listener, Consumer<Track> onResolved,
+                                        List<GoogleGeminiService.Track> recommendations) {
+        List<GoogleGeminiService.Track> recommendedTracks = metrics.timeStage("llm",
+                () -> googleGeminiService.getMusicRecommendations(prompt));
+        recommendations.addAll(recommendedTracks);
+        listener.onRecommendationsReceived(recommendedTracks.size());
+
+        TrackSearchService.ResolutionSession session = trackSearchService.openSession(onResolved);
+        listener.onResolutionStarted(session);
+        recommendedTracks.forEach(session::submit);
+        return session.awaitResults();
+    }
+
+    private List<Track> resolve(List<GoogleGeminiService.Track> recommendedTracks, GenerationListener listener,
+                                Consumer<Track> onResolved) {
+        listener.onRecommendationsReceived(recommendedTracks.size());
+
+        TrackSearchService.ResolutionSession session = trackSearchService.openSession(onResolved);
+        listener.onResolutionStarted(session);
+        recommendedTracks.forEach(session::submit);
+        return session.awaitResults();
+    }
 }
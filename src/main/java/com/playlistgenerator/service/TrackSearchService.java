@@ -1,129 +1,448 @@
 package com.playlistgenerator.service;
 
+import com.playlistgenerator.config.PlaylistGenerationConfig;
+import com.playlistgenerator.enums.TrackSearchStrategy;
+import com.playlistgenerator.service.cache.LocalCatalogIndex;
+import com.playlistgenerator.service.cache.TrackResolutionCache;
+import com.playlistgenerator.service.metrics.PlaylistMetrics;
+import com.playlistgenerator.service.spotify.SpotifyUserContext;
+import io.micrometer.core.instrument.Timer;
 import org.apache.hc.core5.http.ParseException;
 import org.springframework.stereotype.Service;
 import se.michaelthelin.spotify.exceptions.SpotifyWebApiException;
-import se.michaelthelin.spotify.model_objects.specification.Paging;
 import se.michaelthelin.spotify.model_objects.specification.Track;
 
 import java.io.IOException;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Objects;
+import java.util.Set;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 @Service
 public class TrackSearchService {
 
+    private static final String[] TITLE_ARTIST_SEPARATORS = {" - ", " by ", " ft. ", " feat. "};
+
     private final SpotifyService spotifyService;
+    private final ExecutorService upstreamExecutor;
+    private final PlaylistGenerationConfig config;
+    private final TrackResolutionCache trackResolutionCache;
+    private final LocalCatalogIndex catalogIndex;
+    private final TrackSearchStatistics searchStatistics;
+    private final PlaylistMetrics metrics;
+    // Idle scorers; each search borrows one so its buffers are reused across searches
+    private final ConcurrentLinkedQueue<TrackMatchScorer> scorers = new ConcurrentLinkedQueue<>();
 
-    public TrackSearchService(SpotifyService spotifyService) {
+    public TrackSearchService(SpotifyService spotifyService, ExecutorService upstreamExecutor,
+                              PlaylistGenerationConfig config, TrackResolutionCache trackResolutionCache,
+                              LocalCatalogIndex catalogIndex, TrackSearchStatistics searchStatistics,
+                              PlaylistMetrics metrics) {
         this.spotifyService = spotifyService;
+        this.upstreamExecutor = upstreamExecutor;
+        this.config = config;
+        this.trackResolutionCache = trackResolutionCache;
+        this.catalogIndex = catalogIndex;
+        this.searchStatistics = searchStatistics;
+        this.metrics = metrics;
     }
 
+    /**
+     * Resolve recommended tracks on Spotify concurrently. At most {@code searchConcurrency}
+     * searches of this request run at once, and whatever has resolved when
+     * {@code searchTimeoutSeconds} elapses is returned.
+     */
     public List<Track> searchTracksWithStrategies(List<String> recommendedTracks) {
-        List<CompletableFuture<Track>> futures = new ArrayList<>();
+        ResolutionSession session = openSession();
+        recommendedTracks.forEach(session::submit);
+        return session.awaitResults();
+    }
+
+    /**
+     * Start a resolution session that accepts tracks one at a time, so searching can begin
+     * while recommendations are still arriving. The search deadline starts now.
+     */
+    public ResolutionSession openSession() {
+        return openSession(track -> {});
+    }
+
+    /**
+     * As {@link #openSession()}, calling {@code onResolved} once per distinct valid track as soon as
+     * it resolves, up to the result limit. The callback runs on upstream worker threads.
+     */
+    public ResolutionSession openSession(Consumer<Track> onResolved) {
+        return openSession(onResolved, config.getSearchConcurrency());
+    }
+
+    /**
+     * As {@link #openSession(Consumer)} with at most {@code concurrency} searches at once, e.g. a
+     * lower limit for background work
+     */
+    public ResolutionSession openSession(Consumer<Track> onResolved, int concurrency) {
+        return new ResolutionSession(System.nanoTime() + TimeUnit.SECONDS.toNanos(config.getSearchTimeoutSeconds()),
+                onResolved, concurrency);
+    }
+
+    /**
+     * Concurrent Spotify resolution of tracks submitted incrementally. Results keep submission order.
+     * Once the playlist size in distinct valid tracks has resolved the session is filled: later
+     * submissions are skipped, queued searches give up their turn and running cascades stop before
+     * their next Spotify call. {@link #cancel()} stops the session the same way.
+     * <p>
+     * A search is only handed to the upstream executor once one of the session's
+     * {@code concurrency} slots is free; the rest wait in the session's own queue and are started
+     * as running searches finish, so waiting searches never hold a worker thread.
+     */
+    public class ResolutionSession {
+        private final long deadlineNanos;
+        private final Consumer<Track> onResolved;
+        private final int concurrency;
+        private final List<CompletableFuture<Track>> futures = new ArrayList<>();
+        // Searches waiting for a slot, in submission order; guarded by this, as is running
+        private final ArrayDeque<QueuedSearch> queued = new ArrayDeque<>();
+        private int running;
+        private final Set<String> notifiedUris = new HashSet<>();
+        // Completed once the session is filled or cancelled
+        private final CompletableFuture<Void> filled = new CompletableFuture<>();
+        private volatile boolean cancelled;
+        private int skipped;
+
+        private ResolutionSession(long deadlineNanos, Consumer<Track> onResolved, int concurrency) {
+            this.deadlineNanos = deadlineNanos;
+            this.onResolved = onResolved;
+            this.concurrency = Math.max(1, concurrency);
+        }
+
+        /**
+         * Submit a recommendation given as one string. Title and artist are split from it on a
+         * separator such as " - " where present, otherwise guessed by halving the words.
+         */
+        public CompletableFuture<Track> submit(String trackString) {
+            return submit(Recommendation.parse(trackString));
+        }
 
-        for (String trackString : recommendedTracks) {
-            CompletableFuture<Track> future = CompletableFuture.supplyAsync(() -> {
+        /**
+         * Submit a recommendation with the title and artist Gemini returned, so lookups do not
+         * depend on splitting the search string
+         */
+        public CompletableFuture<Track> submit(GoogleGeminiService.Track track) {
+            return submit(Recommendation.of(track));
+        }
+
+        private synchronized CompletableFuture<Track> submit(Recommendation recommendation) {
+            if (isFilled()) {
+                skipped++;
+                return CompletableFuture.completedFuture(null);
+            }
+            CompletableFuture<Track> future = new CompletableFuture<>();
+            future.thenAccept(this::notifyResolved);
+            futures.add(future);
+            queued.add(new QueuedSearch(future, SpotifyUserContext.wrap(() -> resolve(recommendation, this))));
+            dispatch();
+            return future;
+        }
+
+        /**
+         * Start queued searches while a slot is free. Once the session is filled, cancelled or
+         * past its deadline the queue is drained instead, completing those searches with no track.
+         */
+        private synchronized void dispatch() {
+            while (!queued.isEmpty()) {
+                boolean stopped = isFilled() || isPastDeadline(deadlineNanos);
+                QueuedSearch search = queued.peek();
+                if (!stopped && !search.future.isDone() && running >= concurrency) {
+                    return;
+                }
+                queued.poll();
+                if (search.future.isDone()) {
+                    continue;
+                }
+                if (stopped) {
+                    search.future.complete(null);
+                    continue;
+                }
+                running++;
                 try {
-                    Paging<Track> searchResult = searchSingleTrack(trackString);
-                    if (searchResult.getItems().length > 0) {
-                        Track track = searchResult.getItems()[0];
-                        if (isValidTrack(track)) {
-                            System.out.println("Found: " + track.getName() + " by " + track.getArtists()[0].getName());
-                            return track;
-                        }
-                    } else {
-                        System.out.println("Not found: " + trackString);
-                    }
-                } catch (Exception e) {
-                    System.err.println("Error searching for track '" + trackString + "': " + e.getMessage());
+                    upstreamExecutor.execute(() -> run(search));
+                } catch (RejectedExecutionException e) {
+                    running--;
+                    search.future.completeExceptionally(e);
                 }
-                return null;
-            });
-            futures.add(future);
+            }
         }
 
-        // Wait for all futures to complete and collect the results
-        List<Track> trackDetails = futures.stream()
-                .map(future -> {
-                    try {
-                        return future.get();
-                    } catch (InterruptedException | ExecutionException e) {
-                        System.err.println("Error getting future result: " + e.getMessage());
-                        return null;
-                    }
-                })
-                .filter(track -> track != null)
-                .collect(Collectors.toList());
+        private void run(QueuedSearch search) {
+            try {
+                // Skipped when cancelled between dispatch and start
+                if (!search.future.isDone()) {
+                    search.future.complete(search.task.get());
+                }
+            } catch (RuntimeException e) {
+                search.future.completeExceptionally(e);
+            } finally {
+                synchronized (this) {
+                    running--;
+                    dispatch();
+                }
+            }
+        }
 
-        return validateAndFilterResults(trackDetails);
-    }
+        private void notifyResolved(Track track) {
+            if (track == null) {
+                return;
+            }
+            boolean nowFilled;
+            synchronized (notifiedUris) {
+                if (notifiedUris.size() >= config.getDefaultPlaylistSize() || !notifiedUris.add(track.getUri())) {
+                    return;
+                }
+                nowFilled = notifiedUris.size() == config.getDefaultPlaylistSize();
+            }
+            try {
+                onResolved.accept(track);
+            } catch (RuntimeException e) {
+                System.err.println("Resolved-track callback failed: " + e.getMessage());
+            }
+            if (nowFilled) {
+                filled.complete(null);
+            }
+        }
 
-    private Paging<Track> searchSingleTrack(String trackString) {
-        try {
-            Paging<Track> searchResult = executeFullStringSearchStrategy(trackString);
+        private boolean isFilled() {
+            return filled.isDone();
+        }
 
-            if (searchResult.getItems().length == 0) {
-                searchResult = executeQuotedSearchStrategy(trackString, searchResult);
+        /**
+         * Stop the session because its generation was cancelled: later submissions are skipped,
+         * searches not yet started are cancelled and running cascades stop before their next call
+         */
+        public void cancel() {
+            cancelled = true;
+            filled.complete(null);
+            List<CompletableFuture<Track>> submitted;
+            synchronized (this) {
+                submitted = new ArrayList<>(futures);
             }
+            submitted.forEach(future -> future.cancel(false));
+            // Drop the cancelled searches still queued
+            dispatch();
+        }
 
-            if (searchResult.getItems().length == 0) {
-                searchResult = executeArtistAndTitleSearchStrategy(trackString, searchResult);
+        public synchronized int getSubmittedCount() {
+            return futures.size();
+        }
+
+        /**
+         * Wait for submitted searches until the session is filled or the deadline passes, then
+         * return the valid tracks resolved so far. Searches still outstanding are cancelled.
+         */
+        public List<Track> awaitResults() {
+            List<CompletableFuture<Track>> submitted;
+            synchronized (this) {
+                submitted = new ArrayList<>(futures);
             }
 
-            if (searchResult.getItems().length == 0) {
-                searchResult = executeSimpleSearchStrategy(trackString, searchResult);
+            Timer.Sample resolutionStage = metrics.startTimer();
+            try {
+                CompletableFuture.anyOf(CompletableFuture.allOf(submitted.toArray(new CompletableFuture[0])), filled)
+                        .get(Math.max(0, deadlineNanos - System.nanoTime()), TimeUnit.NANOSECONDS);
+                if (isFilled()) {
+                    cancelOutstanding(submitted);
+                }
+            } catch (TimeoutException e) {
+                long pending = submitted.stream().filter(future -> !future.isDone()).count();
+                System.out.println("Search deadline reached, returning partial results (" + pending + " searches still pending)");
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (ExecutionException e) {
+                System.err.println("Error getting future result: " + e.getMessage());
             }
 
-            return searchResult;
-        } catch (IOException | SpotifyWebApiException | ParseException e) {
-            System.err.println("Error searching for track '" + trackString + "': " + e.getMessage());
-            return createEmptyPaging();
+            List<Track> trackDetails = submitted.stream()
+                    .filter(future -> future.isDone() && !future.isCompletedExceptionally())
+                    .map(future -> future.getNow(null))
+                    .filter(Objects::nonNull)
+                    .collect(Collectors.toList());
+            resolutionStage.stop(metrics.stageTimer("resolution"));
+
+            return metrics.timeStage("validation", () -> validateAndFilterResults(trackDetails));
+        }
+
+        private void cancelOutstanding(List<CompletableFuture<Track>> submitted) {
+            long cancelled = submitted.stream().filter(future -> future.cancel(false)).count();
+            int skippedSubmissions;
+            synchronized (this) {
+                skippedSubmissions = skipped;
+            }
+            if (cancelled + skippedSubmissions > 0) {
+                System.out.println((this.cancelled ? "Generation cancelled" : "Playlist filled") + ", cancelled "
+                        + cancelled + " outstanding searches and skipped " + skippedSubmissions + " late recommendations");
+                metrics.countSkippedSearches(cancelled + skippedSubmissions);
+            }
         }
     }
 
-    private Paging<Track> createEmptyPaging() {
-        return new Paging.Builder<Track>().setItems(new Track[0]).build();
+    private Track resolve(Recommendation recommendation, ResolutionSession session) {
+        String trackString = recommendation.query;
+        String scope = spotifyService.catalogScope();
+        String cacheKey = TrackResolutionCache.canonicalKey(scope, recommendation.title, recommendation.artist);
+        TrackResolutionCache.ResolvedTrack cached = trackResolutionCache.get(cacheKey);
+        if (cached != null) {
+            searchStatistics.recordCascade(0, !cached.isNegative());
+            return cached.getTrack();
+        }
+
+        // A confident match among tracks resolved before, possibly by another instance run. Only
+        // asked with a known title and artist, a word-halving guess would hardly ever match.
+        Track indexed = config.isCatalogIndexEnabled() && recommendation.structured
+                ? catalogIndex.find(scope, recommendation.title, recommendation.artist) : null;
+        if (indexed != null) {
+            searchStatistics.recordCascade(0, true);
+            trackResolutionCache.putResolved(cacheKey, indexed, null);
+            return indexed;
+        }
+
+        if (session.isFilled()) {
+            return null;
+        }
+        try {
+            SearchOutcome outcome = searchSingleTrack(recommendation, session);
+            boolean resolved = outcome.track != null && isValidTrack(outcome.track);
+            searchStatistics.recordCascade(outcome.calls, resolved);
+
+            if (outcome.track != null) {
+                Track track = outcome.track;
+                if (resolved) {
+                    System.out.println("Found: " + track.getName() + " by " + track.getArtists()[0].getName());
+                    trackResolutionCache.putResolved(cacheKey, track, outcome.strategy);
+                    spotifyService.cacheTrack(track);
+                    // A session-bound scope would never be asked again once the session ends
+                    if (config.isCatalogIndexEnabled() && !scope.startsWith(SpotifyService.SESSION_SCOPE_PREFIX)) {
+                        catalogIndex.add(scope, track);
+                    }
+                    return track;
+                }
+                trackResolutionCache.putNotFound(cacheKey);
+            } else if (outcome.exhausted) {
+                System.out.println("Not found: " + trackString);
+                trackResolutionCache.putNotFound(cacheKey);
+            }
+        } catch (Exception e) {
+            System.err.println("Error searching for track '" + trackString + "': " + e.getMessage());
+        }
+        return null;
     }
 
-    private Paging<Track> executeSimpleSearchStrategy(String trackString, Paging<Track> searchResult) throws IOException, SpotifyWebApiException, ParseException {
-        if (searchResult.getItems().length == 0) {
-            searchResult = spotifyService.searchTracks(trackString.replace("\"", ""));
+    /**
+     * Run the search strategies in order until one returns an acceptable match. The outcome is
+     * only marked exhausted when every applicable strategy ran without error and found nothing.
+     */
+    private SearchOutcome searchSingleTrack(Recommendation recommendation, ResolutionSession session) {
+        TrackMatchScorer scorer = scorers.poll();
+        if (scorer == null) {
+            scorer = new TrackMatchScorer();
+        }
+        try {
+            // A word-halving guess would score the right track low, so it is matched as one string
+            if (recommendation.structured) {
+                scorer.setQuery(recommendation.title, recommendation.artist);
+            } else {
+                scorer.setQuery(recommendation.query, "");
+            }
+            return searchSingleTrack(recommendation, session, scorer);
+        } finally {
+            scorers.offer(scorer);
         }
-        return searchResult;
     }
 
-    private Paging<Track> executeArtistAndTitleSearchStrategy(String trackString, Paging<Track> searchResult) throws IOException, SpotifyWebApiException, ParseException {
-        if (searchResult.getItems().length == 0) {
-            String[] trackParts = extractTitleAndArtist(trackString);
-            if (trackParts.length == 2) {
-                String title = trackParts[0];
-                String artist = trackParts[1];
-                searchResult = spotifyService.searchTracks("track:\"" + title + "\" artist:\"" + artist + "\"");
+    private SearchOutcome searchSingleTrack(Recommendation recommendation, ResolutionSession session,
+                                           TrackMatchScorer scorer) {
+        String trackString = recommendation.query;
+        List<TrackSearchStrategy> strategies = config.isAdaptiveSearchOrdering()
+                ? searchStatistics.orderFor(recommendation.structured)
+                : List.of(TrackSearchStrategy.values());
+
+        Set<String> triedQueries = new HashSet<>();
+        int calls = 0;
+        for (TrackSearchStrategy strategy : strategies) {
+            // The first strategy always runs unless the playlist is already full
+            if (session.isFilled() || (calls > 0 && isPastDeadline(session.deadlineNanos))) {
+                return SearchOutcome.notFound(false, calls);
+            }
+
+            // Skip strategies that would repeat a query already sent for this track
+            String query = buildQuery(strategy, recommendation);
+            if (query == null || !triedQueries.add(query)) {
+                continue;
+            }
+
+            long start = System.nanoTime();
+            try {
+                calls++;
+                Track[] items = spotifyService.searchTracks(query).getItems();
+                int match = bestMatch(items, scorer);
+                searchStatistics.recordAttempt(strategy, match >= 0, System.nanoTime() - start);
+                if (match >= 0) {
+                    return SearchOutcome.found(items[match], strategy, calls);
+                }
+            } catch (IOException | SpotifyWebApiException | ParseException e) {
+                System.err.println("Error searching for track '" + trackString + "': " + e.getMessage());
+                return SearchOutcome.notFound(false, calls);
             }
         }
-        return searchResult;
+        return SearchOutcome.notFound(true, calls);
     }
 
-    private Paging<Track> executeQuotedSearchStrategy(String trackString, Paging<Track> searchResult) throws IOException, SpotifyWebApiException, ParseException {
-        if (searchResult.getItems().length == 0) {
-            searchResult = spotifyService.searchTracks("\"" + trackString + "\"");
+    /**
+     * Index of the search result to accept, or -1 so the next strategy is tried. Without
+     * verification the first result is taken as is.
+     */
+    private int bestMatch(Track[] items, TrackMatchScorer scorer) {
+        if (!config.isSearchMatchVerification()) {
+            return items.length > 0 ? 0 : -1;
         }
-        return searchResult;
+        return scorer.bestMatch(items, config.getSearchMatchTopK(), config.getSearchMatchMinScore());
     }
 
-    private Paging<Track> executeFullStringSearchStrategy(String trackString) throws IOException, SpotifyWebApiException, ParseException {
-        return spotifyService.searchTracks(trackString);
+    private boolean isPastDeadline(long deadlineNanos) {
+        return System.nanoTime() - deadlineNanos > 0;
     }
 
-    public String[] extractTitleAndArtist(String trackString) {
-        String[] separators = {" - ", " by ", " ft. ", " feat. "};
+    /**
+     * Spotify query for a strategy, or null when the strategy does not apply to this input
+     */
+    private String buildQuery(TrackSearchStrategy strategy, Recommendation recommendation) {
+        switch (strategy) {
+            case FULL_STRING:
+                return recommendation.query;
+            case QUOTED:
+                return "\"" + recommendation.query + "\"";
+            case ARTIST_AND_TITLE:
+                if (!recommendation.artist.isEmpty()) {
+                    return "track:\"" + recommendation.title + "\" artist:\"" + recommendation.artist + "\"";
+                }
+                return null;
+            case SIMPLE:
+                return recommendation.query.replace("\"", "");
+            default:
+                return null;
+        }
+    }
 
-        for (String separator : separators) {
+    public static String[] extractTitleAndArtist(String trackString) {
+        for (String separator : TITLE_ARTIST_SEPARATORS) {
             if (trackString.contains(separator)) {
                 String[] parts = trackString.split(separator, 2);
                 if (parts.length == 2) {
@@ -143,6 +462,49 @@ public class TrackSearchService {
         return new String[]{trackString, ""};
     }
 
+    /**
+     * Whether the string has an explicit title/artist separator, as opposed to the
+     * word-halving fallback in {@link #extractTitleAndArtist(String)}
+     */
+    public static boolean hasTitleArtistSeparator(String trackString) {
+        for (String separator : TITLE_ARTIST_SEPARATORS) {
+            if (trackString.contains(separator)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * A recommendation as resolved: the string sent to Spotify, and the title and artist used for
+     * cache keys, index lookups and the artist/title query. {@code structured} is false when the
+     * title and artist were guessed by halving the words of the string.
+     */
+    static class Recommendation {
+        final String query;
+        final String title;
+        final String artist;
+        final boolean structured;
+
+        Recommendation(String query, String title, String artist, boolean structured) {
+            this.query = query;
+            this.title = title;
+            this.artist = artist;
+            this.structured = structured;
+        }
+
+        static Recommendation of(GoogleGeminiService.Track track) {
+            String title = track.getTitle() != null ? track.getTitle().trim() : "";
+            String artist = track.getArtist() != null ? track.getArtist().trim() : "";
+            return new Recommendation(track.toSearchString(), title, artist, !title.isEmpty() && !artist.isEmpty());
+        }
+
+        static Recommendation parse(String trackString) {
+            String[] trackParts = extractTitleAndArtist(trackString);
+            return new Recommendation(trackString, trackParts[0], trackParts[1], hasTitleArtistSeparator(trackString));
+        }
+    }
+
     private boolean isValidTrack(Track track) {
         return track != null &&
                 track.getName() != null &&
@@ -155,11 +517,43 @@ public class TrackSearchService {
                 track.getIsPlayable();
     }
 
+    private static class QueuedSearch {
+        private final CompletableFuture<Track> future;
+        private final Supplier<Track> task;
+
+        private QueuedSearch(CompletableFuture<Track> future, Supplier<Track> task) {
+            this.future = future;
+            this.task = task;
+        }
+    }
+
+    private static class SearchOutcome {
+        private final Track track;
+        private final TrackSearchStrategy strategy;
+        private final boolean exhausted;
+        private final int calls;
+
+        private SearchOutcome(Track track, TrackSearchStrategy strategy, boolean exhausted, int calls) {
+            this.track = track;
+            this.strategy = strategy;
+            this.exhausted = exhausted;
+            this.calls = calls;
+        }
+
+        static SearchOutcome found(Track track, TrackSearchStrategy strategy, int calls) {
+            return new SearchOutcome(track, strategy, false, calls);
+        }
+
+        static SearchOutcome notFound(boolean exhausted, int calls) {
+            return new SearchOutcome(null, null, exhausted, calls);
+        }
+    }
+
     public List<Track> validateAndFilterResults(List<Track> tracks) {
         return tracks.stream()
                 .filter(this::isValidTrack)
                 .distinct()
-                .limit(30)
+                .limit(config.getDefaultPlaylistSize())
                 .collect(Collectors.toList());
     }
 }
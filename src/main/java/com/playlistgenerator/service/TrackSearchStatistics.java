@@ -0,0 +1,137 @@
+package com.playlistgenerator.service;
+
+import com.playlistgenerator.enums.TrackSearchStrategy;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Records how each search strategy performs and derives the order in which
+ * {@link TrackSearchService} should try them.
+ */
+@Component
+public class TrackSearchStatistics {
+
+    // Below this many observed attempts the default order is kept
+    private static final long MIN_ATTEMPTS_FOR_ADAPTATION = 50;
+    // A strategy that succeeds less often than this after enough attempts is skipped
+    private static final long MIN_ATTEMPTS_FOR_SKIPPING = 200;
+    private static final double SKIP_HIT_RATE = 0.02;
+    // Every this many orderings a skipped strategy is tried anyway, last, so it can recover
+    private static final long EXPLORATION_INTERVAL = 50;
+
+    private final Map<TrackSearchStrategy, StrategyCounters> counters = new EnumMap<>(TrackSearchStrategy.class);
+    private final LongAdder cascades = new LongAdder();
+    private final LongAdder resolvedTracks = new LongAdder();
+    private final LongAdder spotifyCalls = new LongAdder();
+    private final AtomicLong adaptedOrders = new AtomicLong();
+
+    public TrackSearchStatistics() {
+        for (TrackSearchStrategy strategy : TrackSearchStrategy.values()) {
+            counters.put(strategy, new StrategyCounters());
+        }
+    }
+
+    public void recordAttempt(TrackSearchStrategy strategy, boolean hit, long latencyNanos) {
+        StrategyCounters strategyCounters = counters.get(strategy);
+        strategyCounters.attempts.increment();
+        strategyCounters.latencyNanos.add(latencyNanos);
+        if (hit) {
+            strategyCounters.hits.increment();
+        }
+    }
+
+    public void recordCascade(int callsMade, boolean resolved) {
+        cascades.increment();
+        spotifyCalls.add(callsMade);
+        if (resolved) {
+            resolvedTracks.increment();
+        }
+    }
+
+    /**
+     * Order in which to try the strategies for one track.
+     * <p>
+     * Until enough attempts have been seen the declared order is used. After that strategies are
+     * ranked by smoothed hit rate, then by mean latency, and persistently failing ones are dropped.
+     * Every {@value #EXPLORATION_INTERVAL}th order keeps them at the end instead, so a strategy that
+     * starts working again gets the attempts to show it.
+     * When the title and artist are known, from Gemini's structured output or an explicit
+     * "title - artist" separator, the field-qualified query leads because its fields are reliable.
+     */
+    public List<TrackSearchStrategy> orderFor(boolean knownTitleAndArtist) {
+        List<TrackSearchStrategy> order = new ArrayList<>(List.of(TrackSearchStrategy.values()));
+
+        long totalAttempts = counters.values().stream().mapToLong(c -> c.attempts.sum()).sum();
+        if (totalAttempts >= MIN_ATTEMPTS_FOR_ADAPTATION) {
+            order.sort(Comparator
+                    .comparingDouble((TrackSearchStrategy strategy) -> counters.get(strategy).smoothedHitRate())
+                    .reversed()
+                    .thenComparingDouble(strategy -> counters.get(strategy).meanLatencyNanos()));
+
+            if (adaptedOrders.incrementAndGet() % EXPLORATION_INTERVAL != 0) {
+                List<TrackSearchStrategy> kept = new ArrayList<>(order);
+                kept.removeIf(strategy -> counters.get(strategy).isPersistentlyFailing());
+                if (!kept.isEmpty()) {
+                    order = kept;
+                }
+            }
+        }
+
+        if (knownTitleAndArtist) {
+            order.remove(TrackSearchStrategy.ARTIST_AND_TITLE);
+            order.add(0, TrackSearchStrategy.ARTIST_AND_TITLE);
+        }
+        return order;
+    }
+
+    public Map<TrackSearchStrategy, StrategyCounters> getCounters() {
+        return counters;
+    }
+
+    public long getCascadeCount() { return cascades.sum(); }
+    public long getResolvedTrackCount() { return resolvedTracks.sum(); }
+    public long getSpotifyCallCount() { return spotifyCalls.sum(); }
+
+    public double getCallsPerResolvedTrack() {
+        long resolved = resolvedTracks.sum();
+        return resolved == 0 ? 0.0 : (double) spotifyCalls.sum() / resolved;
+    }
+
+    public static class StrategyCounters {
+        private final LongAdder attempts = new LongAdder();
+        private final LongAdder hits = new LongAdder();
+        private final LongAdder latencyNanos = new LongAdder();
+
+        public long getAttempts() { return attempts.sum(); }
+        public long getHits() { return hits.sum(); }
+
+        public double getHitRate() {
+            long count = attempts.sum();
+            return count == 0 ? 0.0 : (double) hits.sum() / count;
+        }
+
+        public double getMeanLatencyMillis() {
+            return meanLatencyNanos() / 1_000_000.0;
+        }
+
+        double smoothedHitRate() {
+            return (hits.sum() + 1.0) / (attempts.sum() + 2.0);
+        }
+
+        double meanLatencyNanos() {
+            long count = attempts.sum();
+            return count == 0 ? 0.0 : (double) latencyNanos.sum() / count;
+        }
+
+        boolean isPersistentlyFailing() {
+            return attempts.sum() >= MIN_ATTEMPTS_FOR_SKIPPING && getHitRate() < SKIP_HIT_RATE;
+        }
+    }
+}
@@ -0,0 +1,182 @@
+package com.playlistgenerator.service.cache;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.*;
+
+/**
+ * Disk tier of {@link TieredResponseCache}.
+ * Records are appended as length-prefixed JSON documents; an in-memory index maps each key
+ * to the offset of its newest record. The log is compacted when superseded records pile up.
+ */
+class AppendOnlyCacheStore implements Closeable {
+
+    private static final Logger logger = LoggerFactory.getLogger(AppendOnlyCacheStore.class);
+
+    private final Path file;
+    private final int maxEntries;
+    private final ObjectMapper objectMapper;
+
+    private final Map<String, Long> offsets = new HashMap<>();
+    private RandomAccessFile log;
+    private long recordCount;
+
+    AppendOnlyCacheStore(Path file, int maxEntries, ObjectMapper objectMapper) throws IOException {
+        this.file = file;
+        this.maxEntries = maxEntries;
+        this.objectMapper = objectMapper;
+
+        Files.createDirectories(file.toAbsolutePath().getParent());
+        this.log = new RandomAccessFile(file.toFile(), "rw");
+        loadIndex();
+
+        if (needsCompaction()) {
+            compact();
+        }
+    }
+
+    synchronized CachedValue read(String key) throws IOException {
+        Long offset = offsets.get(key);
+        if (offset == null) {
+            return null;
+        }
+        log.seek(offset);
+        byte[] bytes = new byte[log.readInt()];
+        log.readFully(bytes);
+        return decode(bytes).value;
+    }
+
+    synchronized void write(String key, CachedValue value) throws IOException {
+        long offset = append(log, key, value);
+        offsets.put(key, offset);
+        recordCount++;
+
+        if (needsCompaction()) {
+            compact();
+        }
+    }
+
+    synchronized int size() {
+        return offsets.size();
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        log.close();
+    }
+
+    private boolean needsCompaction() {
+        return recordCount > 2L * maxEntries;
+    }
+
+    private void loadIndex() throws IOException {
+        long length = log.length();
+        long position = 0;
+        log.seek(0);
+
+        while (position + Integer.BYTES <= length) {
+            int size = log.readInt();
+            if (size <= 0 || position + Integer.BYTES + size > length) {
+                break;
+            }
+            byte[] bytes = new byte[size];
+            log.readFully(bytes);
+            try {
+                offsets.put(decode(bytes).key, position);
+            } catch (IOException e) {
+                break;
+            }
+            recordCount++;
+            position += Integer.BYTES + size;
+        }
+
+        if (position < length) {
+            logger.warn("Truncating {} trailing bytes of corrupt cache log {}", length - position, file);
+            log.setLength(position);
+        }
+        logger.info("Loaded {} cached entries from {}", offsets.size(), file);
+    }
+
+    /**
+     * Rewrites the log with only the newest record per key, keeping at most {@code maxEntries}
+     * of the most recently fetched entries.
+     */
+    private void compact() throws IOException {
+        List<Record> live = new ArrayList<>(offsets.size());
+        for (Map.Entry<String, Long> entry : offsets.entrySet()) {
+            log.seek(entry.getValue());
+            byte[] bytes = new byte[log.readInt()];
+            log.readFully(bytes);
+            live.add(decode(bytes));
+        }
+        live.sort(Comparator.comparingLong((Record r) -> r.value.getStoredAtMillis()).reversed());
+        if (live.size() > maxEntries) {
+            live = live.subList(0, maxEntries);
+        }
+
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        Map<String, Long> newOffsets = new HashMap<>();
+        try (RandomAccessFile out = new RandomAccessFile(tmp.toFile(), "rw")) {
+            out.setLength(0);
+            // Oldest first so that append order matches fetch order
+            for (int i = live.size() - 1; i >= 0; i--) {
+                Record record = live.get(i);
+                newOffsets.put(record.key, append(out, record.key, record.value));
+            }
+        }
+
+        log.close();
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        log = new RandomAccessFile(file.toFile(), "rw");
+
+        offsets.clear();
+        offsets.putAll(newOffsets);
+        recordCount = newOffsets.size();
+        logger.debug("Compacted cache log {} to {} entries", file, recordCount);
+    }
+
+    private long append(RandomAccessFile target, String key, CachedValue value) throws IOException {
+        Map<String, Object> record = new LinkedHashMap<>();
+        record.put("k", key);
+        record.put("t", value.getStoredAtMillis());
+        record.put("v", value.getValue());
+        byte[] bytes = objectMapper.writeValueAsBytes(record);
+
+        long offset = target.length();
+        target.seek(offset);
+        target.writeInt(bytes.length);
+        target.write(bytes);
+        return offset;
+    }
+
+    private Record decode(byte[] bytes) throws IOException {
+        JsonNode node = objectMapper.readTree(bytes);
+        if (node == null || !node.hasNonNull("k") || !node.path("v").isArray()) {
+            throw new IOException("Malformed cache record");
+        }
+        List<String> values = new ArrayList<>(node.path("v").size());
+        for (JsonNode item : node.path("v")) {
+            values.add(item.asText());
+        }
+        return new Record(node.path("k").asText(), new CachedValue(values, node.path("t").asLong()));
+    }
+
+    private static class Record {
+        private final String key;
+        private final CachedValue value;
+
+        Record(String key, CachedValue value) {
+            this.key = key;
+            this.value = value;
+        }
+    }
+}
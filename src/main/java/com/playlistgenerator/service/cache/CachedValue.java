@@ -0,0 +1,28 @@
+package com.playlistgenerator.service.cache;
+
+import java.util.List;
+
+/**
+ * Immutable cached response together with the time it was fetched from upstream.
+ */
+class CachedValue {
+    private final List<String> value;
+    private final long storedAtMillis;
+
+    CachedValue(List<String> value, long storedAtMillis) {
+        this.value = List.copyOf(value);
+        this.storedAtMillis = storedAtMillis;
+    }
+
+    List<String> getValue() {
+        return value;
+    }
+
+    long getStoredAtMillis() {
+        return storedAtMillis;
+    }
+
+    long ageMillis(long now) {
+        return now - storedAtMillis;
+    }
+}
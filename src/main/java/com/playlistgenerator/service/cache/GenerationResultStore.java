@@ -0,0 +1,88 @@
+package com.playlistgenerator.service.cache;
+
+import com.playlistgenerator.config.PlaylistGenerationConfig;
+import org.springframework.stereotype.Component;
+import se.michaelthelin.spotify.model_objects.specification.Track;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Resolved tracks of recent generations, keyed by generation id, so confirming a playlist can
+ * reuse the Track objects the generation already holds instead of fetching them again by URI.
+ * Bounded in size and expired after {@code generationResultTtlMinutes}.
+ */
+@Component
+public class GenerationResultStore {
+
+    private final LruCache<String, StoredGeneration> entries;
+    private final long ttlMillis;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong expirations = new AtomicLong();
+
+    public GenerationResultStore(PlaylistGenerationConfig config) {
+        this.entries = new LruCache<>(config.getGenerationResultMaxEntries());
+        this.ttlMillis = Duration.ofMinutes(config.getGenerationResultTtlMinutes()).toMillis();
+    }
+
+    /**
+     * @return the new generation id
+     */
+    public String put(List<Track> tracks) {
+        String generationId = UUID.randomUUID().toString();
+        entries.put(generationId, new StoredGeneration(List.copyOf(tracks), System.currentTimeMillis()));
+        return generationId;
+    }
+
+    /**
+     * @return the stored tracks, or null when the id is unknown, evicted or expired
+     */
+    public List<Track> get(String generationId) {
+        if (generationId == null || generationId.isEmpty()) {
+            misses.incrementAndGet();
+            return null;
+        }
+
+        StoredGeneration stored = entries.get(generationId);
+        if (stored == null) {
+            misses.incrementAndGet();
+            return null;
+        }
+        if (System.currentTimeMillis() - stored.storedAtMillis > ttlMillis) {
+            entries.remove(generationId);
+            expirations.incrementAndGet();
+            misses.incrementAndGet();
+            return null;
+        }
+
+        hits.incrementAndGet();
+        return stored.tracks;
+    }
+
+    // Statistics
+    public int getSize() { return entries.size(); }
+    public int getMaxEntries() { return entries.getMaxEntries(); }
+    public long getHitCount() { return hits.get(); }
+    public long getMissCount() { return misses.get(); }
+    public long getExpiredCount() { return expirations.get(); }
+    public long getEvictionCount() { return entries.getEvictionCount(); }
+
+    public double getHitRate() {
+        long total = hits.get() + misses.get();
+        return total == 0 ? 0.0 : (double) hits.get() / total;
+    }
+
+    private static class StoredGeneration {
+        private final List<Track> tracks;
+        private final long storedAtMillis;
+
+        StoredGeneration(List<Track> tracks, long storedAtMillis) {
+            this.tracks = tracks;
+            this.storedAtMillis = storedAtMillis;
+        }
+    }
+}
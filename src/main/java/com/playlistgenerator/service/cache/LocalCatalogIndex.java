@@ -0,0 +1,587 @@
+package com.playlistgenerator.service.cache;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import se.michaelthelin.spotify.model_objects.specification.AlbumSimplified;
+import se.michaelthelin.spotify.model_objects.specification.ArtistSimplified;
+import se.michaelthelin.spotify.model_objects.specification.Image;
+import se.michaelthelin.spotify.model_objects.specification.Track;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.LongSupplier;
+
+/**
+ * Local full-text index of every track resolved on Spotify, searched before the Spotify search
+ * cascade. Titles are indexed by character trigram; a lookup only answers when both the title and
+ * one of the artists score at least {@code minScore} (Dice coefficient over trigrams), otherwise
+ * the caller searches Spotify as before. Tracks are indexed per catalog scope, the market they
+ * were resolved in, and only answer lookups from the same scope, since playability varies by market.
+ * <p>
+ * Tracks are appended to a binary log on disk as length-prefixed records. At startup the log is
+ * memory-mapped and the postings are rebuilt from it, so a restarted instance starts warm.
+ * <p>
+ * Entries older than {@code maxAge} are no longer answered, so the track is searched on Spotify
+ * again and the fresh result replaces the old entry. When more than {@code maxEntries} tracks are
+ * indexed, or superseded records make up half the log, the log is compacted: expired and replaced
+ * records are dropped and, if still over the limit, the oldest quarter of the tracks is evicted.
+ */
+public class LocalCatalogIndex implements Closeable {
+
+    private static final Logger logger = LoggerFactory.getLogger(LocalCatalogIndex.class);
+
+    // Candidates verified per lookup at most, taken from the rarest trigrams first
+    private static final int MAX_CANDIDATES = 256;
+
+    private final int maxEntries;
+    private final double minScore;
+    private final long maxAgeMillis;
+    private final LongSupplier clock;
+    private final Path file;
+    private FileChannel log; // null when the index could not be opened on disk
+
+    // By doc id; null once the track was replaced or evicted. Postings may still point at such slots
+    // until the next compaction.
+    private final List<IndexedTrack> tracks = new ArrayList<>();
+    // By scope and URI, see IndexedTrack.key()
+    private final Map<String, Integer> docIdsByKey = new HashMap<>();
+    private final Map<Long, IntList> postings = new HashMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    // Records written or loaded since the last compaction, superseded ones included
+    private int records;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    public LocalCatalogIndex(Path directory, int maxEntries, double minScore, Duration maxAge) {
+        this(directory, maxEntries, minScore, maxAge, System::currentTimeMillis);
+    }
+
+    /**
+     * As {@link #LocalCatalogIndex(Path, int, double, Duration)}, reading the time in epoch
+     * milliseconds from {@code clock}
+     */
+    public LocalCatalogIndex(Path directory, int maxEntries, double minScore, Duration maxAge, LongSupplier clock) {
+        this.maxEntries = maxEntries;
+        this.minScore = minScore;
+        this.maxAgeMillis = maxAge.toMillis();
+        this.clock = clock;
+        this.file = directory != null ? directory.resolve("catalog-index.bin") : null;
+        this.log = open();
+        if (needsCompaction()) {
+            compact(clock.getAsLong());
+        }
+    }
+
+    /**
+     * The track indexed in {@code scope} confidently matching the title and artist, or null
+     */
+    public Track find(String scope, String title, String artist) {
+        String canonicalTitle = TrackResolutionCache.canonicalize(title);
+        String canonicalArtist = TrackResolutionCache.canonicalize(artist);
+        if (canonicalTitle.isEmpty() || canonicalArtist.isEmpty()) {
+            misses.incrementAndGet();
+            return null;
+        }
+
+        Set<Long> titleTrigrams = trigrams(canonicalTitle);
+        Set<Long> artistTrigrams = trigrams(canonicalArtist);
+        IndexedTrack best = null;
+        double bestScore = 0;
+        long now = clock.getAsLong();
+
+        lock.readLock().lock();
+        try {
+            for (int docId : candidates(titleTrigrams)) {
+                IndexedTrack candidate = tracks.get(docId);
+                if (candidate == null || !candidate.scope.equals(scope) || isExpired(candidate, now)) {
+                    continue;
+                }
+                double titleScore = dice(titleTrigrams, trigrams(candidate.canonicalTitle));
+                if (titleScore < minScore) {
+                    continue;
+                }
+                double artistScore = 0;
+                for (String candidateArtist : candidate.canonicalArtists) {
+                    artistScore = Math.max(artistScore, dice(artistTrigrams, trigrams(candidateArtist)));
+                }
+                double score = Math.min(titleScore, artistScore);
+                if (score >= minScore && score > bestScore) {
+                    best = candidate;
+                    bestScore = score;
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        if (best == null) {
+            misses.incrementAndGet();
+            return null;
+        }
+        hits.incrementAndGet();
+        return best.toTrack();
+    }
+
+    /**
+     * Index a track resolved in catalog {@code scope}. A track indexed in the scope before is
+     * replaced once its entry has expired and ignored until then.
+     */
+    public void add(String scope, Track track) {
+        if (scope == null || track == null || track.getUri() == null || track.getName() == null
+                || track.getArtists() == null) {
+            return;
+        }
+
+        lock.writeLock().lock();
+        try {
+            long now = clock.getAsLong();
+            Integer previous = docIdsByKey.get(IndexedTrack.key(scope, track.getUri()));
+            if (previous != null) {
+                if (!isExpired(tracks.get(previous), now)) {
+                    return;
+                }
+                remove(previous);
+            }
+            IndexedTrack indexed = IndexedTrack.of(scope, track, now);
+            index(indexed);
+            append(indexed);
+            records++;
+            if (needsCompaction()) {
+                compact(now);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return docIdsByKey.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        lock.writeLock().lock();
+        try {
+            if (log != null) {
+                log.close();
+                log = null;
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Statistics
+    public int getMaxEntries() { return maxEntries; }
+    public long getHitCount() { return hits.get(); }
+    public long getMissCount() { return misses.get(); }
+    public long getEvictionCount() { return evictions.get(); }
+
+    public double getHitRate() {
+        long total = hits.get() + misses.get();
+        return total == 0 ? 0.0 : (double) hits.get() / total;
+    }
+
+    /**
+     * Documents sharing at least one of the query's rarest trigrams. A title with Dice score
+     * {@code minScore} shares at least {@code minScore * n / (2 - minScore)} of the query's
+     * {@code n} trigrams, so any match must contain one of the first
+     * {@code n - minShared + 1} of them in rarity order.
+     */
+    private Set<Integer> candidates(Set<Long> queryTrigrams) {
+        List<IntList> lists = new ArrayList<>(queryTrigrams.size());
+        for (Long trigram : queryTrigrams) {
+            IntList list = postings.get(trigram);
+            lists.add(list != null ? list : IntList.EMPTY);
+        }
+        lists.sort(Comparator.comparingInt(IntList::size));
+
+        int minShared = (int) Math.ceil(minScore * queryTrigrams.size() / (2 - minScore));
+        int prefix = Math.max(1, queryTrigrams.size() - minShared + 1);
+
+        Set<Integer> candidates = new HashSet<>();
+        for (int i = 0; i < Math.min(prefix, lists.size()) && candidates.size() < MAX_CANDIDATES; i++) {
+            IntList list = lists.get(i);
+            for (int j = 0; j < list.size() && candidates.size() < MAX_CANDIDATES; j++) {
+                candidates.add(list.get(j));
+            }
+        }
+        return candidates;
+    }
+
+    private boolean isExpired(IndexedTrack indexed, long now) {
+        return maxAgeMillis > 0 && now - indexed.indexedAtMillis > maxAgeMillis;
+    }
+
+    private boolean needsCompaction() {
+        return docIdsByKey.size() > maxEntries || records > 2L * maxEntries;
+    }
+
+    private void remove(int docId) {
+        IndexedTrack removed = tracks.set(docId, null);
+        docIdsByKey.remove(removed.key());
+    }
+
+    /**
+     * Drop expired and superseded records and, above {@code maxEntries}, evict the oldest tracks
+     * down to three quarters of it. Postings are rebuilt and the log is rewritten to match.
+     */
+    private void compact(long now) {
+        List<IndexedTrack> live = new ArrayList<>(docIdsByKey.size());
+        for (int docId : docIdsByKey.values()) {
+            IndexedTrack indexed = tracks.get(docId);
+            if (!isExpired(indexed, now)) {
+                live.add(indexed);
+            }
+        }
+        // Oldest first, the order they were indexed in
+        live.sort(Comparator.comparingLong(indexed -> indexed.indexedAtMillis));
+        if (live.size() > maxEntries) {
+            live = live.subList(live.size() - (maxEntries - maxEntries / 4), live.size());
+        }
+        evictions.addAndGet(docIdsByKey.size() - live.size());
+
+        tracks.clear();
+        docIdsByKey.clear();
+        postings.clear();
+        for (IndexedTrack indexed : live) {
+            index(indexed);
+        }
+        records = live.size();
+        rewrite(live);
+        logger.info("Compacted catalog index to {} tracks", live.size());
+    }
+
+    private void index(IndexedTrack indexed) {
+        int docId = tracks.size();
+        tracks.add(indexed);
+        docIdsByKey.put(indexed.key(), docId);
+        for (Long trigram : trigrams(indexed.canonicalTitle)) {
+            postings.computeIfAbsent(trigram, key -> new IntList()).add(docId);
+        }
+    }
+
+    static Set<Long> trigrams(String canonical) {
+        String padded = "  " + canonical + " ";
+        Set<Long> trigrams = new HashSet<>();
+        for (int i = 0; i + 3 <= padded.length(); i++) {
+            trigrams.add(((long) padded.charAt(i) << 32) | ((long) padded.charAt(i + 1) << 16) | padded.charAt(i + 2));
+        }
+        return trigrams;
+    }
+
+    static double dice(Set<Long> a, Set<Long> b) {
+        if (a.isEmpty() || b.isEmpty()) {
+            return 0;
+        }
+        Set<Long> smaller = a.size() <= b.size() ? a : b;
+        Set<Long> larger = smaller == a ? b : a;
+        int shared = 0;
+        for (Long trigram : smaller) {
+            if (larger.contains(trigram)) {
+                shared++;
+            }
+        }
+        return 2.0 * shared / (a.size() + b.size());
+    }
+
+    private FileChannel open() {
+        if (file == null) {
+            return null;
+        }
+        try {
+            Files.createDirectories(file.toAbsolutePath().getParent());
+            FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                    StandardOpenOption.WRITE);
+            load(channel);
+            return channel;
+        } catch (IOException e) {
+            logger.warn("Could not open catalog index {}, continuing in memory only", file, e);
+            return null;
+        }
+    }
+
+    private void load(FileChannel channel) throws IOException {
+        long length = channel.size();
+        long position = 0;
+        if (length > 0) {
+            MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, length);
+            while (mapped.remaining() >= Integer.BYTES) {
+                int size = mapped.getInt();
+                if (size <= 0 || size > mapped.remaining()) {
+                    break;
+                }
+                byte[] bytes = new byte[size];
+                mapped.get(bytes);
+                try {
+                    IndexedTrack indexed = IndexedTrack.decode(bytes);
+                    // Records written before tracks were scoped are dropped, their market is unknown
+                    if (indexed.scope != null) {
+                        // A later record for the same track replaced the earlier one
+                        Integer previous = docIdsByKey.get(indexed.key());
+                        if (previous != null) {
+                            remove(previous);
+                        }
+                        index(indexed);
+                    }
+                    records++;
+                } catch (IOException e) {
+                    break;
+                }
+                position += Integer.BYTES + size;
+            }
+        }
+
+        if (position < length) {
+            logger.warn("Truncating {} trailing bytes of catalog index {}", length - position, file);
+            channel.truncate(position);
+        }
+        channel.position(position);
+        logger.info("Loaded {} indexed tracks from {}", docIdsByKey.size(), file);
+    }
+
+    private void append(IndexedTrack indexed) {
+        if (log == null) {
+            return;
+        }
+        try {
+            write(log, indexed);
+        } catch (IOException e) {
+            logger.warn("Could not append to catalog index {}, continuing in memory only", file, e);
+            try {
+                log.close();
+            } catch (IOException ignored) {
+                // Already failing; the index stays usable in memory
+            }
+            log = null;
+        }
+    }
+
+    /**
+     * Replace the log with one holding only {@code live}, through a temporary file so a crash
+     * leaves either the old or the new log in place
+     */
+    private void rewrite(List<IndexedTrack> live) {
+        if (log == null) {
+            return;
+        }
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        try {
+            try (FileChannel out = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING)) {
+                for (IndexedTrack indexed : live) {
+                    write(out, indexed);
+                }
+                out.force(false);
+            }
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            // The old log is still complete; load drops its superseded records next time
+            logger.warn("Could not compact catalog index {}", file, e);
+            return;
+        }
+
+        try {
+            log.close();
+            log = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            log.position(log.size());
+        } catch (IOException e) {
+            logger.warn("Could not reopen catalog index {}, continuing in memory only", file, e);
+            log = null;
+        }
+    }
+
+    private static void write(FileChannel channel, IndexedTrack indexed) throws IOException {
+        byte[] bytes = indexed.encode();
+        ByteBuffer record = ByteBuffer.allocate(Integer.BYTES + bytes.length);
+        record.putInt(bytes.length).put(bytes).flip();
+        while (record.hasRemaining()) {
+            channel.write(record);
+        }
+    }
+
+    private static class IndexedTrack {
+        private final String scope;
+        private final String id;
+        private final String uri;
+        private final String name;
+        private final String[] artists;
+        private final String albumName;
+        private final String imageUrl;
+        private final String previewUrl;
+        private final int durationMs;
+        private final boolean playable;
+        private final long indexedAtMillis;
+        private final String canonicalTitle;
+        private final String[] canonicalArtists;
+
+        IndexedTrack(String scope, String id, String uri, String name, String[] artists, String albumName,
+                     String imageUrl, String previewUrl, int durationMs, boolean playable, long indexedAtMillis) {
+            this.scope = scope;
+            this.id = id;
+            this.uri = uri;
+            this.name = name;
+            this.artists = artists;
+            this.albumName = albumName;
+            this.imageUrl = imageUrl;
+            this.previewUrl = previewUrl;
+            this.durationMs = durationMs;
+            this.playable = playable;
+            this.indexedAtMillis = indexedAtMillis;
+            this.canonicalTitle = TrackResolutionCache.canonicalize(name);
+            this.canonicalArtists = Arrays.stream(artists).map(TrackResolutionCache::canonicalize).toArray(String[]::new);
+        }
+
+        static String key(String scope, String uri) {
+            return scope + '|' + uri;
+        }
+
+        String key() {
+            return key(scope, uri);
+        }
+
+        static IndexedTrack of(String scope, Track track, long indexedAtMillis) {
+            String[] artists = Arrays.stream(track.getArtists())
+                    .map(ArtistSimplified::getName)
+                    .filter(Objects::nonNull)
+                    .toArray(String[]::new);
+            AlbumSimplified album = track.getAlbum();
+            Image[] images = album != null ? album.getImages() : null;
+            return new IndexedTrack(scope, track.getId(), track.getUri(), track.getName(), artists,
+                    album != null ? album.getName() : null,
+                    images != null && images.length > 0 ? images[0].getUrl() : null,
+                    track.getPreviewUrl(),
+                    track.getDurationMs() != null ? track.getDurationMs() : 0,
+                    Boolean.TRUE.equals(track.getIsPlayable()),
+                    indexedAtMillis);
+        }
+
+        Track toTrack() {
+            AlbumSimplified.Builder album = new AlbumSimplified.Builder().setName(albumName);
+            if (imageUrl != null) {
+                album.setImages(new Image.Builder().setUrl(imageUrl).build());
+            }
+            return new Track.Builder()
+                    .setId(id)
+                    .setUri(uri)
+                    .setName(name)
+                    .setArtists(Arrays.stream(artists)
+                            .map(artist -> new ArtistSimplified.Builder().setName(artist).build())
+                            .toArray(ArtistSimplified[]::new))
+                    .setAlbum(album.build())
+                    .setPreviewUrl(previewUrl)
+                    .setDurationMs(durationMs)
+                    .setIsPlayable(playable)
+                    .build();
+        }
+
+        byte[] encode() throws IOException {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(128);
+            try (DataOutputStream out = new DataOutputStream(bytes)) {
+                writeNullable(out, id);
+                out.writeUTF(uri);
+                out.writeUTF(name);
+                out.writeShort(artists.length);
+                for (String artist : artists) {
+                    out.writeUTF(artist);
+                }
+                writeNullable(out, albumName);
+                writeNullable(out, imageUrl);
+                writeNullable(out, previewUrl);
+                out.writeInt(durationMs);
+                out.writeBoolean(playable);
+                out.writeLong(indexedAtMillis);
+                out.writeUTF(scope);
+            }
+            return bytes.toByteArray();
+        }
+
+        static IndexedTrack decode(byte[] bytes) throws IOException {
+            DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes));
+            String id = readNullable(in);
+            String uri = in.readUTF();
+            String name = in.readUTF();
+            String[] artists = new String[in.readUnsignedShort()];
+            for (int i = 0; i < artists.length; i++) {
+                artists[i] = in.readUTF();
+            }
+            String albumName = readNullable(in);
+            String imageUrl = readNullable(in);
+            String previewUrl = readNullable(in);
+            int durationMs = in.readInt();
+            boolean playable = in.readBoolean();
+            long indexedAtMillis = in.readLong();
+            // Absent from records written before tracks were scoped
+            String scope = in.available() > 0 ? in.readUTF() : null;
+            return new IndexedTrack(scope, id, uri, name, artists, albumName, imageUrl, previewUrl, durationMs,
+                    playable, indexedAtMillis);
+        }
+
+        private static void writeNullable(DataOutputStream out, String value) throws IOException {
+            out.writeBoolean(value != null);
+            if (value != null) {
+                out.writeUTF(value);
+            }
+        }
+
+        private static String readNullable(DataInputStream in) throws IOException {
+            return in.readBoolean() ? in.readUTF() : null;
+        }
+    }
+
+    /**
+     * Growable list of doc ids, kept as primitives since there is one per trigram per title
+     */
+    private static class IntList {
+        static final IntList EMPTY = new IntList();
+
+        private int[] values = new int[4];
+        private int size;
+
+        void add(int value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+
+        int get(int index) {
+            return values[index];
+        }
+
+        int size() {
+            return size;
+        }
+    }
+}
@@ -0,0 +1,226 @@
+package com.playlistgenerator.service.cache;
+
+import com.playlistgenerator.config.PlaylistGenerationConfig;
+import com.playlistgenerator.dto.PlaylistRequest;
+import com.playlistgenerator.service.GoogleGeminiService;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.text.Normalizer;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Gemini recommendations pooled by request fingerprint. Requests that normalize to the same
+ * mode, mood, genres, decades and seeds would send the same prompt, so each fresh generation adds
+ * its recommendations to the pool for that fingerprint. Once a pool holds
+ * {@code recommendationPoolMinSize} distinct tracks, later requests get a random sample from it
+ * instead of waiting on the model. Pools are capped at {@code recommendationPoolMaxSize}, dropping
+ * the oldest tracks first, and are discarded after {@code recommendationPoolTtlMinutes}.
+ * <p>
+ * Recommendations are pooled as the title and artist Gemini returned, so a sample resolves exactly
+ * like a fresh recommendation.
+ */
+@Component
+public class RecommendationPool {
+
+    private final boolean enabled;
+    private final int minSize;
+    private final int maxSize;
+    private final long ttlMillis;
+    private final LruCache<String, Pool> pools;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong expirations = new AtomicLong();
+
+    public RecommendationPool(PlaylistGenerationConfig config) {
+        this.enabled = config.isRecommendationPoolEnabled();
+        this.minSize = config.getRecommendationPoolMinSize();
+        this.maxSize = Math.max(config.getRecommendationPoolMaxSize(), minSize);
+        this.ttlMillis = Duration.ofMinutes(config.getRecommendationPoolTtlMinutes()).toMillis();
+        this.pools = new LruCache<>(config.getRecommendationPoolMaxEntries());
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Canonical fingerprint of everything that shapes the recommendation prompt. Text is
+     * NFC-normalized, whitespace-collapsed and lower-cased; list fields are split on commas,
+     * de-duplicated and sorted. {@code variant} covers options outside the request, such as the
+     * artist selection.
+     */
+    public static String fingerprint(PlaylistRequest request, String variant) {
+        StringBuilder canonical = new StringBuilder()
+                .append("mode=").append(request.getMode())
+                .append("|quickType=").append(normalize(request.getQuickType()))
+                .append("|mood=").append(normalize(request.getMood()))
+                .append("|genres=").append(normalizeList(request.getGenres()))
+                .append("|decades=").append(normalizeList(request.getDecades()))
+                .append("|artists=").append(normalizeList(request.getSeedArtists()))
+                .append("|tracks=").append(normalizeList(request.getSeedTracks()))
+                .append("|albums=").append(normalizeList(request.getSeedAlbums()))
+                .append("|size=").append(request.getPlaylistSize())
+                .append("|variant=").append(normalize(variant));
+
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(canonical.toString().getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private static String normalize(String value) {
+        if (value == null) {
+            return "";
+        }
+        return Normalizer.normalize(value, Normalizer.Form.NFC)
+                .trim()
+                .replaceAll("\\s+", " ")
+                .toLowerCase(Locale.ROOT);
+    }
+
+    private static String normalizeList(List<String> values) {
+        TreeSet<String> normalized = new TreeSet<>();
+        if (values != null) {
+            for (String value : values) {
+                if (value == null) {
+                    continue;
+                }
+                for (String part : value.split(",")) {
+                    String item = normalize(part);
+                    if (!item.isEmpty()) {
+                        normalized.add(item);
+                    }
+                }
+            }
+        }
+        return String.join(",", normalized);
+    }
+
+    /**
+     * A random sample of {@code count} pooled recommendations (all of them if the pool is
+     * smaller), or null when there is no usable pool for the fingerprint yet
+     */
+    public List<GoogleGeminiService.Track> sample(String fingerprint, int count) {
+        Pool pool = pools.get(fingerprint);
+        if (pool == null) {
+            misses.incrementAndGet();
+            return null;
+        }
+        if (pool.isExpired(System.currentTimeMillis(), ttlMillis)) {
+            pools.remove(fingerprint);
+            expirations.incrementAndGet();
+            misses.incrementAndGet();
+            return null;
+        }
+
+        List<GoogleGeminiService.Track> sample = pool.sample(count, minSize);
+        if (sample == null) {
+            misses.incrementAndGet();
+            return null;
+        }
+        hits.incrementAndGet();
+        return sample;
+    }
+
+    /**
+     * Add the recommendations of a fresh generation. Tracks already pooled are ignored.
+     */
+    public void add(String fingerprint, List<GoogleGeminiService.Track> recommendations) {
+        if (recommendations.isEmpty()) {
+            return;
+        }
+        Pool pool;
+        synchronized (pools) {
+            pool = pools.get(fingerprint);
+            if (pool == null || pool.isExpired(System.currentTimeMillis(), ttlMillis)) {
+                pool = new Pool(System.currentTimeMillis());
+                pools.put(fingerprint, pool);
+            }
+        }
+        pool.addAll(recommendations, maxSize);
+    }
+
+    /**
+     * Distinct pooled tracks for the fingerprint, 0 when there is no live pool
+     */
+    public int size(String fingerprint) {
+        Pool pool = pools.get(fingerprint);
+        return pool != null && !pool.isExpired(System.currentTimeMillis(), ttlMillis) ? pool.size() : 0;
+    }
+
+    // Statistics
+    public int getSize() { return pools.size(); }
+    public int getMaxEntries() { return pools.getMaxEntries(); }
+    public long getHitCount() { return hits.get(); }
+    public long getMissCount() { return misses.get(); }
+    public long getExpiredCount() { return expirations.get(); }
+    public long getEvictionCount() { return pools.getEvictionCount(); }
+
+    public double getHitRate() {
+        long total = hits.get() + misses.get();
+        return total == 0 ? 0.0 : (double) hits.get() / total;
+    }
+
+    private static class Pool {
+        private final long createdAtMillis;
+        // Canonical track key to the recommendation as Gemini wrote it, oldest first
+        private final LinkedHashMap<String, GoogleGeminiService.Track> tracks = new LinkedHashMap<>();
+
+        Pool(long createdAtMillis) {
+            this.createdAtMillis = createdAtMillis;
+        }
+
+        boolean isExpired(long now, long ttlMillis) {
+            return now - createdAtMillis > ttlMillis;
+        }
+
+        synchronized int size() {
+            return tracks.size();
+        }
+
+        synchronized void addAll(List<GoogleGeminiService.Track> recommendations, int maxSize) {
+            for (GoogleGeminiService.Track recommendation : recommendations) {
+                tracks.putIfAbsent(TrackResolutionCache.canonicalKey(recommendation.getTitle(), recommendation.getArtist()),
+                        recommendation);
+            }
+            Iterator<Map.Entry<String, GoogleGeminiService.Track>> oldest = tracks.entrySet().iterator();
+            while (tracks.size() > maxSize && oldest.hasNext()) {
+                oldest.next();
+                oldest.remove();
+            }
+        }
+
+        synchronized List<GoogleGeminiService.Track> sample(int count, int minSize) {
+            if (tracks.size() < minSize) {
+                return null;
+            }
+            // Partial Fisher-Yates over a copy: the first count slots become the sample
+            List<GoogleGeminiService.Track> candidates = new ArrayList<>(tracks.values());
+            int sampleSize = Math.min(count, candidates.size());
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            for (int i = 0; i < sampleSize; i++) {
+                int j = i + random.nextInt(candidates.size() - i);
+                GoogleGeminiService.Track swapped = candidates.get(i);
+                candidates.set(i, candidates.get(j));
+                candidates.set(j, swapped);
+            }
+            return new ArrayList<>(candidates.subList(0, sampleSize));
+        }
+    }
+}
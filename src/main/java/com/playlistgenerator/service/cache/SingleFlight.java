@@ -0,0 +1,98 @@
+package com.playlistgenerator.service.cache;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Coalesces concurrent identical calls: the first caller for a key runs the call, and callers
+ * arriving while it is in flight wait for and share its result or exception. Nothing is kept once
+ * the call completes, so this sits in front of a cache rather than replacing one.
+ * <p>
+ * An interrupted or cancelled leader says nothing about the call itself, so its waiters do not
+ * share that outcome: they retry, and one of them runs the call as the new leader.
+ */
+public class SingleFlight<V> {
+
+    private final String name;
+    private final ConcurrentHashMap<String, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+
+    private final AtomicLong executions = new AtomicLong();
+    private final AtomicLong coalesced = new AtomicLong();
+
+    public SingleFlight(String name) {
+        this.name = name;
+    }
+
+    public V execute(String key, Callable<V> call) throws Exception {
+        while (true) {
+            CompletableFuture<V> flight = new CompletableFuture<>();
+            CompletableFuture<V> existing = inFlight.putIfAbsent(key, flight);
+            if (existing == null) {
+                return lead(key, flight, call);
+            }
+            coalesced.incrementAndGet();
+            try {
+                return await(existing);
+            } catch (LeaderAbandonedException e) {
+                // Try again, as the leader unless another waiter got there first
+            }
+        }
+    }
+
+    private V lead(String key, CompletableFuture<V> flight, Callable<V> call) throws Exception {
+        executions.incrementAndGet();
+        try {
+            V value = call.call();
+            inFlight.remove(key, flight);
+            flight.complete(value);
+            return value;
+        } catch (Throwable e) {
+            // Removed first so retrying waiters start a new flight rather than find this one
+            inFlight.remove(key, flight);
+            flight.completeExceptionally(isAbandoned(e) ? new LeaderAbandonedException() : e);
+            throw e;
+        }
+    }
+
+    private static boolean isAbandoned(Throwable e) {
+        return e instanceof InterruptedException || e instanceof CancellationException
+                || Thread.currentThread().isInterrupted();
+    }
+
+    private V await(CompletableFuture<V> flight) throws Exception {
+        try {
+            return flight.get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof Exception exception) {
+                throw exception;
+            }
+            if (cause instanceof Error error) {
+                throw error;
+            }
+            throw e;
+        }
+    }
+
+    // Statistics
+    public String getName() { return name; }
+    public int getInFlightCount() { return inFlight.size(); }
+    public long getExecutionCount() { return executions.get(); }
+    public long getCoalescedCount() { return coalesced.get(); }
+
+    public double getCoalescedRate() {
+        long total = executions.get() + coalesced.get();
+        return total == 0 ? 0.0 : (double) coalesced.get() / total;
+    }
+
+    // Handed to waiters in place of the leader's interruption or cancellation
+    private static class LeaderAbandonedException extends RuntimeException {
+        LeaderAbandonedException() {
+            super(null, null, false, false);
+        }
+    }
+}
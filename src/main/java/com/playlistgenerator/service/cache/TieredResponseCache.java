@@ -0,0 +1,221 @@
+package com.playlistgenerator.service.cache;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.text.Normalizer;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * Two-tier cache for upstream API responses that are reduced to a list of strings.
+ * <p>
+ * Entries live in a bounded in-memory LRU in front of an append-only log on disk, so a restart
+ * keeps the warm set. Each lookup supplies its own TTL: fresh entries are served directly,
+ * entries inside the stale window are served immediately while a background refresh runs,
+ * anything older is reloaded synchronously. Concurrent misses for one key share a single load.
+ * Failed loads are never cached.
+ */
+public class TieredResponseCache implements Closeable {
+
+    private static final Logger logger = LoggerFactory.getLogger(TieredResponseCache.class);
+    private static final char KEY_SEPARATOR = '\u001F';
+
+    private final String name;
+    private final LruCache<String, CachedValue> memory;
+    private final AppendOnlyCacheStore disk; // null when the disk tier could not be opened
+    private final ExecutorService refreshExecutor;
+    private final Set<String> refreshesInFlight = ConcurrentHashMap.newKeySet();
+    private final SingleFlight<List<String>> loadsInFlight;
+
+    private final AtomicLong diskHits = new AtomicLong();
+    // Lookups by outcome: served fresh, served stale, or loaded (expired entries included)
+    private final AtomicLong freshHits = new AtomicLong();
+    private final AtomicLong staleHits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong loads = new AtomicLong();
+    private final AtomicLong refreshes = new AtomicLong();
+
+    public TieredResponseCache(String name, int maxMemoryEntries, int maxDiskEntries,
+                               Path directory, ObjectMapper objectMapper) {
+        this.name = name;
+        this.memory = new LruCache<>(maxMemoryEntries);
+        this.loadsInFlight = new SingleFlight<>(name);
+        this.disk = openDiskTier(directory, maxDiskEntries, objectMapper);
+        this.refreshExecutor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, name + "-cache-refresh");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Return the cached value for {@code method(args)}, loading it through {@code loader} when
+     * missing or expired. The returned list is a fresh mutable copy.
+     */
+    public List<String> get(String method, List<String> args, Duration ttl, Duration staleWindow,
+                            Loader loader) throws Exception {
+        String key = buildKey(method, args);
+        CachedValue cached = lookup(key);
+
+        if (cached != null) {
+            long age = cached.ageMillis(System.currentTimeMillis());
+            if (age < ttl.toMillis()) {
+                freshHits.incrementAndGet();
+                return new ArrayList<>(cached.getValue());
+            }
+            if (age < ttl.toMillis() + staleWindow.toMillis()) {
+                staleHits.incrementAndGet();
+                scheduleRefresh(key, loader);
+                return new ArrayList<>(cached.getValue());
+            }
+        }
+
+        misses.incrementAndGet();
+        return new ArrayList<>(load(key, loader));
+    }
+
+    /**
+     * Build the cache key for a method call. Arguments are trimmed, whitespace-collapsed,
+     * NFC-normalized and lower-cased, since Last.fm lookups are case-insensitive.
+     */
+    public static String buildKey(String method, List<String> args) {
+        return method + KEY_SEPARATOR + args.stream()
+                .map(TieredResponseCache::normalizeArgument)
+                .collect(Collectors.joining(String.valueOf(KEY_SEPARATOR)));
+    }
+
+    private static String normalizeArgument(String arg) {
+        if (arg == null) {
+            return "";
+        }
+        return Normalizer.normalize(arg, Normalizer.Form.NFC)
+                .trim()
+                .replaceAll("\\s+", " ")
+                .toLowerCase(Locale.ROOT);
+    }
+
+    private CachedValue lookup(String key) {
+        CachedValue cached = memory.get(key);
+        if (cached != null || disk == null) {
+            return cached;
+        }
+
+        try {
+            cached = disk.read(key);
+        } catch (IOException e) {
+            logger.warn("Failed to read {} cache entry from disk", name, e);
+            return null;
+        }
+        if (cached != null) {
+            diskHits.incrementAndGet();
+            memory.put(key, cached);
+        }
+        return cached;
+    }
+
+    /**
+     * Concurrent misses for the same key share one load; every caller copies the result
+     */
+    private List<String> load(String key, Loader loader) throws Exception {
+        return loadsInFlight.execute(key, () -> {
+            loads.incrementAndGet();
+            List<String> value = loader.load();
+            store(key, value);
+            return value;
+        });
+    }
+
+    private void store(String key, List<String> value) {
+        CachedValue entry = new CachedValue(value, System.currentTimeMillis());
+        memory.put(key, entry);
+        if (disk != null) {
+            try {
+                disk.write(key, entry);
+            } catch (IOException e) {
+                logger.warn("Failed to persist {} cache entry", name, e);
+            }
+        }
+    }
+
+    private void scheduleRefresh(String key, Loader loader) {
+        if (!refreshesInFlight.add(key)) {
+            return;
+        }
+        try {
+            refreshExecutor.execute(() -> {
+                try {
+                    refreshes.incrementAndGet();
+                    store(key, loader.load());
+                } catch (Exception e) {
+                    logger.debug("Background refresh of {} cache entry failed: {}", name, e.getMessage());
+                } finally {
+                    refreshesInFlight.remove(key);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            refreshesInFlight.remove(key);
+        }
+    }
+
+    private AppendOnlyCacheStore openDiskTier(Path directory, int maxDiskEntries, ObjectMapper objectMapper) {
+        if (directory == null || maxDiskEntries <= 0) {
+            return null;
+        }
+        try {
+            return new AppendOnlyCacheStore(directory.resolve(name + "-cache.log"), maxDiskEntries, objectMapper);
+        } catch (IOException e) {
+            logger.warn("Could not open disk tier for {} cache in {}, continuing in memory only", name, directory, e);
+            return null;
+        }
+    }
+
+    // Statistics
+    public String getName() { return name; }
+    public int getMemorySize() { return memory.size(); }
+    public int getDiskSize() { return disk != null ? disk.size() : 0; }
+    public long getMemoryHitCount() { return memory.getHitCount(); }
+    public long getDiskHitCount() { return diskHits.get(); }
+    public long getFreshHitCount() { return freshHits.get(); }
+    public long getStaleHitCount() { return staleHits.get(); }
+    public long getMissCount() { return misses.get(); }
+    public long getLoadCount() { return loads.get(); }
+    public long getRefreshCount() { return refreshes.get(); }
+    public SingleFlight<List<String>> getLoadFlight() { return loadsInFlight; }
+
+    /**
+     * Share of lookups answered from the cache, fresh or stale. Memory and disk hit counts also
+     * include entries found expired and reloaded, so they are not used here.
+     */
+    public double getHitRate() {
+        long hits = freshHits.get() + staleHits.get();
+        long total = hits + misses.get();
+        return total == 0 ? 0.0 : (double) hits / total;
+    }
+
+    @Override
+    public void close() throws IOException {
+        refreshExecutor.shutdownNow();
+        if (disk != null) {
+            disk.close();
+        }
+    }
+
+    @FunctionalInterface
+    public interface Loader {
+        List<String> load() throws Exception;
+    }
+}
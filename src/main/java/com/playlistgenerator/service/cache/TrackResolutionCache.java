@@ -0,0 +1,127 @@
+package com.playlistgenerator.service.cache;
+
+import com.playlistgenerator.config.PlaylistGenerationConfig;
+import com.playlistgenerator.enums.TrackSearchStrategy;
+import org.springframework.stereotype.Component;
+import se.michaelthelin.spotify.model_objects.specification.Track;
+
+import java.text.Normalizer;
+import java.time.Duration;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+
+/**
+ * Remembers how a recommended "title - artist" pair resolved on Spotify, so popular songs
+ * recommended to many users skip the search cascade. Misses are cached too, with a shorter TTL.
+ * Resolutions are keyed by catalog scope as well, since a track playable in one market may be
+ * unavailable in another.
+ */
+@Component
+public class TrackResolutionCache {
+
+    private static final Pattern DIACRITICS = Pattern.compile("\\p{M}+");
+    private static final Pattern NON_ALPHANUMERIC = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    private final LruCache<String, ResolvedTrack> entries;
+    private final long positiveTtlMillis;
+    private final long negativeTtlMillis;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong negativeHits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    public TrackResolutionCache(PlaylistGenerationConfig config) {
+        this.entries = new LruCache<>(config.getTrackCacheMaxEntries());
+        this.positiveTtlMillis = Duration.ofHours(config.getTrackCachePositiveTtlHours()).toMillis();
+        this.negativeTtlMillis = Duration.ofMinutes(config.getTrackCacheNegativeTtlMinutes()).toMillis();
+    }
+
+    /**
+     * Canonical cache key for a title/artist pair: accents stripped, lower-cased,
+     * punctuation and repeated whitespace collapsed.
+     */
+    public static String canonicalKey(String title, String artist) {
+        return canonicalize(title) + '\u0000' + canonicalize(artist);
+    }
+
+    /**
+     * As {@link #canonicalKey(String, String)}, for the resolution within a catalog scope such as
+     * {@code SpotifyService.catalogScope()}
+     */
+    public static String canonicalKey(String scope, String title, String artist) {
+        return scope + '\u0000' + canonicalKey(title, artist);
+    }
+
+    static String canonicalize(String value) {
+        if (value == null) {
+            return "";
+        }
+        String decomposed = Normalizer.normalize(value, Normalizer.Form.NFD);
+        String stripped = DIACRITICS.matcher(decomposed).replaceAll("");
+        return NON_ALPHANUMERIC.matcher(stripped.toLowerCase(Locale.ROOT)).replaceAll(" ").trim();
+    }
+
+    /**
+     * @return the cached resolution, or null when unknown or expired
+     */
+    public ResolvedTrack get(String key) {
+        ResolvedTrack resolved = entries.get(key);
+        if (resolved == null || resolved.isExpired(positiveTtlMillis, negativeTtlMillis)) {
+            if (resolved != null) {
+                entries.remove(key);
+            }
+            misses.incrementAndGet();
+            return null;
+        }
+
+        if (resolved.isNegative()) {
+            negativeHits.incrementAndGet();
+        } else {
+            hits.incrementAndGet();
+        }
+        return resolved;
+    }
+
+    public void putResolved(String key, Track track, TrackSearchStrategy strategy) {
+        entries.put(key, new ResolvedTrack(track, strategy));
+    }
+
+    public void putNotFound(String key) {
+        entries.put(key, new ResolvedTrack(null, null));
+    }
+
+    // Statistics
+    public int getSize() { return entries.size(); }
+    public long getHitCount() { return hits.get(); }
+    public long getNegativeHitCount() { return negativeHits.get(); }
+    public long getMissCount() { return misses.get(); }
+    public long getEvictionCount() { return entries.getEvictionCount(); }
+
+    public double getHitRate() {
+        long found = hits.get() + negativeHits.get();
+        long total = found + misses.get();
+        return total == 0 ? 0.0 : (double) found / total;
+    }
+
+    public static class ResolvedTrack {
+        private final Track track;
+        private final TrackSearchStrategy strategy;
+        private final long resolvedAt = System.currentTimeMillis();
+
+        ResolvedTrack(Track track, TrackSearchStrategy strategy) {
+            this.track = track;
+            this.strategy = strategy;
+        }
+
+        public Track getTrack() { return track; }
+        public String getUri() { return track != null ? track.getUri() : null; }
+        public TrackSearchStrategy getStrategy() { return strategy; }
+        public boolean isNegative() { return track == null; }
+
+        boolean isExpired(long positiveTtlMillis, long negativeTtlMillis) {
+            long ttl = isNegative() ? negativeTtlMillis : positiveTtlMillis;
+            return System.currentTimeMillis() - resolvedAt > ttl;
+        }
+    }
+}
@@ -45,6 +45,7 @@ public class CustomModeHandler implements PlaylistModeHandler {
                 .mode(GenerationMode.CUSTOM)
                 .mood(formData.getMood())
                 .genres(formData.getGenresList())
+                .decades(formData.getDecadesList())
                 .playlistSize(config.getDefaultPlaylistSize())
                 .addMetadata("originalArtistsInput", formData.getArtists())
                 .addMetadata("originalTracksInput", formData.getTracks())
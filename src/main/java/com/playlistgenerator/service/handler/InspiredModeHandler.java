@@ -48,6 +48,7 @@ public class InspiredModeHandler implements PlaylistModeHandler {
 
             return PlaylistRequest.builder()
                     .prompt(prompt)
+                    .seedArtists(formData.getArtistsList())
                     .mode(GenerationMode.INSPIRED)
                     .quickType(formData.getQuickType())
                     .playlistSize(config.getDefaultPlaylistSize())
@@ -0,0 +1,137 @@
+package com.playlistgenerator.service.job;
+
+import com.playlistgenerator.dto.PlaylistFormData;
+import com.playlistgenerator.dto.PlaylistResult;
+import com.playlistgenerator.enums.JobStatus;
+import com.playlistgenerator.service.TrackSearchService;
+
+import java.time.Instant;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+
+/**
+ * One submitted playlist generation and its progress. Updated by the worker thread, read by pollers.
+ * Only the HTTP session that submitted the job can see or cancel it.
+ */
+public class PlaylistJob {
+
+    private final String id;
+    private final String ownerSessionId;
+    private final PlaylistFormData formData;
+    private final Instant submittedAt = Instant.now();
+
+    private volatile JobStatus status = JobStatus.QUEUED;
+    private volatile String stage = "queued";
+    private volatile int resolvedCount;
+    private volatile int targetCount;
+    private volatile PlaylistResult result;
+    private volatile String error;
+    private volatile Instant finishedAt;
+    private volatile Future<?> future;
+    private TrackSearchService.ResolutionSession resolution; // guarded by this
+    private final CompletableFuture<PlaylistJob> completion = new CompletableFuture<>();
+
+    PlaylistJob(String id, String ownerSessionId, PlaylistFormData formData) {
+        this.id = id;
+        this.ownerSessionId = ownerSessionId;
+        this.formData = formData;
+    }
+
+    boolean isOwnedBy(String sessionId) {
+        return ownerSessionId.equals(sessionId);
+    }
+
+    synchronized boolean start() {
+        if (status != JobStatus.QUEUED) {
+            return false;
+        }
+        status = JobStatus.RUNNING;
+        stage = "started";
+        return true;
+    }
+
+    void succeed(PlaylistResult result) {
+        synchronized (this) {
+            if (status != JobStatus.RUNNING) {
+                return;
+            }
+            this.result = result;
+            finish(JobStatus.SUCCEEDED);
+        }
+        completion.complete(this);
+    }
+
+    void fail(String error) {
+        synchronized (this) {
+            if (status != JobStatus.RUNNING) {
+                return;
+            }
+            this.error = error;
+            finish(JobStatus.FAILED);
+        }
+        completion.complete(this);
+    }
+
+    boolean cancel() {
+        synchronized (this) {
+            if (status.isFinished()) {
+                return false;
+            }
+            finish(JobStatus.CANCELLED);
+            // Stop the searches first; they run on upstream threads the interrupt does not reach
+            if (resolution != null) {
+                resolution.cancel();
+            }
+            if (future != null) {
+                future.cancel(true);
+            }
+        }
+        completion.complete(this);
+        return true;
+    }
+
+    private void finish(JobStatus finalStatus) {
+        status = finalStatus;
+        stage = finalStatus.getValue();
+        finishedAt = Instant.now();
+    }
+
+    /**
+     * Run {@code action} once the job has succeeded, failed or been cancelled
+     */
+    public void whenFinished(Consumer<PlaylistJob> action) {
+        completion.thenAccept(action);
+    }
+
+    /**
+     * Track the resolution session of the running generation; cancelled right away if the job
+     * was cancelled before the session opened
+     */
+    synchronized void attachResolution(TrackSearchService.ResolutionSession resolution) {
+        if (status == JobStatus.CANCELLED) {
+            resolution.cancel();
+        } else {
+            this.resolution = resolution;
+        }
+    }
+
+    void setFuture(Future<?> future) { this.future = future; }
+    void setStage(String stage) { this.stage = stage; }
+
+    void setProgress(int resolvedCount, int targetCount) {
+        this.resolvedCount = resolvedCount;
+        this.targetCount = targetCount;
+    }
+
+    public String getId() { return id; }
+    public PlaylistFormData getFormData() { return formData; }
+    public Instant getSubmittedAt() { return submittedAt; }
+    public JobStatus getStatus() { return status; }
+    public String getStage() { return stage; }
+    public int getResolvedCount() { return resolvedCount; }
+    public int getTargetCount() { return targetCount; }
+    public PlaylistResult getResult() { return result; }
+    public String getError() { return error; }
+    public Instant getFinishedAt() { return finishedAt; }
+}
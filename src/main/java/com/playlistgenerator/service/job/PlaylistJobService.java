@@ -0,0 +1,136 @@
+package com.playlistgenerator.service.job;
+
+import com.playlistgenerator.config.PlaylistGenerationConfig;
+import com.playlistgenerator.dto.PlaylistFormData;
+import com.playlistgenerator.dto.PlaylistRequest;
+import com.playlistgenerator.dto.PlaylistResult;
+import com.playlistgenerator.exceptions.JobRejectedException;
+import com.playlistgenerator.service.GenerationListener;
+import com.playlistgenerator.service.PlaylistGenerationService;
+import com.playlistgenerator.service.TrackSearchService;
+import com.playlistgenerator.service.spotify.SpotifyUserContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import se.michaelthelin.spotify.model_objects.specification.Track;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Runs playlist generations as jobs on a bounded worker pool, so request threads only submit
+ * and poll. Submissions beyond the queue capacity are rejected; finished jobs are kept for the
+ * configured result TTL and then dropped. Jobs are looked up and cancelled by the HTTP session
+ * that submitted them.
+ */
+@Service
+public class PlaylistJobService {
+
+    private static final Logger logger = LoggerFactory.getLogger(PlaylistJobService.class);
+
+    private final PlaylistGenerationService playlistGenerationService;
+    private final ExecutorService generationJobExecutor;
+    private final PlaylistGenerationConfig config;
+    private final Map<String, PlaylistJob> jobs = new ConcurrentHashMap<>();
+
+    public PlaylistJobService(PlaylistGenerationService playlistGenerationService,
+                              @Qualifier("generationJobExecutor") ExecutorService generationJobExecutor,
+                              PlaylistGenerationConfig config) {
+        this.playlistGenerationService = playlistGenerationService;
+        this.generationJobExecutor = generationJobExecutor;
+        this.config = config;
+    }
+
+    public PlaylistJob submit(String sessionId, PlaylistFormData formData) {
+        return submit(sessionId, formData, GenerationListener.NONE);
+    }
+
+    /**
+     * Queue a generation. {@code listener} receives the same progress callbacks the job records.
+     *
+     * @throws JobRejectedException when all workers are busy and the queue is full
+     */
+    public PlaylistJob submit(String sessionId, PlaylistFormData formData, GenerationListener listener) {
+        PlaylistJob job = new PlaylistJob(UUID.randomUUID().toString(), sessionId, formData);
+        jobs.put(job.getId(), job);
+
+        try {
+            // The job acts for the submitting user's Spotify session
+            job.setFuture(generationJobExecutor.submit(SpotifyUserContext.wrap(() -> run(job, listener))));
+        } catch (RejectedExecutionException e) {
+            jobs.remove(job.getId());
+            throw new JobRejectedException("Too many playlist generations in progress, please try again shortly");
+        }
+        return job;
+    }
+
+    /**
+     * The job, or null when it does not exist or was submitted by another session
+     */
+    public PlaylistJob get(String jobId, String sessionId) {
+        PlaylistJob job = jobs.get(jobId);
+        return job != null && job.isOwnedBy(sessionId) ? job : null;
+    }
+
+    public boolean cancel(String jobId, String sessionId) {
+        PlaylistJob job = get(jobId, sessionId);
+        return job != null && job.cancel();
+    }
+
+    public Collection<PlaylistJob> getJobs() {
+        return jobs.values();
+    }
+
+    private void run(PlaylistJob job, GenerationListener listener) {
+        if (!job.start()) {
+            return;
+        }
+
+        try {
+            PlaylistResult result = playlistGenerationService.generate(job.getFormData(), new GenerationListener() {
+                @Override
+                public void onPromptBuilt(PlaylistRequest request) {
+                    job.setStage("prompt-built");
+                    listener.onPromptBuilt(request);
+                }
+
+                @Override
+                public void onRecommendationsReceived(int count) {
+                    job.setStage("recommendations-received");
+                    listener.onRecommendationsReceived(count);
+                }
+
+                @Override
+                public void onTrackResolved(Track track, int resolvedCount, int targetCount) {
+                    job.setStage("resolving");
+                    job.setProgress(resolvedCount, targetCount);
+                    listener.onTrackResolved(track, resolvedCount, targetCount);
+                }
+
+                @Override
+                public void onResolutionStarted(TrackSearchService.ResolutionSession session) {
+                    job.attachResolution(session);
+                    listener.onResolutionStarted(session);
+                }
+            });
+            job.succeed(result);
+        } catch (Exception e) {
+            logger.warn("Playlist generation job {} failed: {}", job.getId(), e.getMessage());
+            job.fail("Failed to generate playlist: " + e.getMessage());
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${playlist.generation.job-cleanup-interval-ms:60000}")
+    public void evictExpiredJobs() {
+        Instant cutoff = Instant.now().minus(Duration.ofMinutes(config.getJobResultTtlMinutes()));
+        jobs.values().removeIf(job -> job.getFinishedAt() != null && job.getFinishedAt().isBefore(cutoff));
+    }
+}
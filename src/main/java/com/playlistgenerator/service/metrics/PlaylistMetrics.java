@@ -0,0 +1,90 @@
+package com.playlistgenerator.service.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.util.function.Supplier;
+
+/**
+ * Timers and counters for upstream calls and generation stages.
+ * <p>
+ * {@code playlist.upstream.requests} is tagged with the upstream, the operation (Last.fm method,
+ * Spotify endpoint, Gemini method), the outcome and the exception class. {@code playlist.generation.stage}
+ * is tagged with the pipeline stage. Both publish histograms, so percentiles can be aggregated
+ * across instances.
+ */
+@Component
+public class PlaylistMetrics {
+
+    private static final String NONE = "none";
+
+    private final MeterRegistry registry;
+
+    public PlaylistMetrics(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    public MeterRegistry getRegistry() {
+        return registry;
+    }
+
+    public Timer.Sample startTimer() {
+        return Timer.start(registry);
+    }
+
+    /**
+     * Record one upstream call started with {@link #startTimer()}; {@code error} is null on success
+     */
+    public void recordUpstreamCall(Timer.Sample sample, String upstream, String operation, Throwable error) {
+        sample.stop(Timer.builder("playlist.upstream.requests")
+                .description("Calls to Last.fm, Spotify and Gemini")
+                .tag("upstream", upstream)
+                .tag("operation", operation)
+                .tag("outcome", error == null ? "success" : "error")
+                .tag("exception", error == null ? NONE : error.getClass().getSimpleName())
+                .publishPercentileHistogram()
+                .register(registry));
+    }
+
+    public <T> T timeUpstreamCall(String upstream, String operation, Supplier<T> call) {
+        Timer.Sample sample = startTimer();
+        try {
+            T result = call.get();
+            recordUpstreamCall(sample, upstream, operation, null);
+            return result;
+        } catch (RuntimeException e) {
+            recordUpstreamCall(sample, upstream, operation, e);
+            throw e;
+        }
+    }
+
+    public void countRetry(String upstream, String operation) {
+        Counter.builder("playlist.upstream.retries")
+                .description("Upstream calls repeated after a failure")
+                .tag("upstream", upstream)
+                .tag("operation", operation)
+                .register(registry)
+                .increment();
+    }
+
+    public void countSkippedSearches(long count) {
+        Counter.builder("playlist.resolution.skipped")
+                .description("Track searches cancelled or skipped because the playlist was already full")
+                .register(registry)
+                .increment(count);
+    }
+
+    public Timer stageTimer(String stage) {
+        return Timer.builder("playlist.generation.stage")
+                .description("Time spent in each stage of playlist generation")
+                .tag("stage", stage)
+                .publishPercentileHistogram()
+                .register(registry);
+    }
+
+    public <T> T timeStage(String stage, Supplier<T> work) {
+        return stageTimer(stage).record(work);
+    }
+}
@@ -0,0 +1,40 @@
+package com.playlistgenerator.service.ratelimit;
+
+import com.playlistgenerator.config.PlaylistGenerationConfig;
+import com.playlistgenerator.enums.UpstreamApi;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One token bucket per upstream API, sized from {@link PlaylistGenerationConfig}.
+ * Services share these instances so that every caller of an upstream draws from the same budget.
+ */
+@Component
+public class RateLimiterRegistry {
+
+    private final Map<UpstreamApi, TokenBucketRateLimiter> limiters = new EnumMap<>(UpstreamApi.class);
+
+    public RateLimiterRegistry(PlaylistGenerationConfig config) {
+        register(UpstreamApi.LAST_FM, config.getRateLimitDelayMs(), config.getRateLimitBurst());
+        register(UpstreamApi.SPOTIFY_SEARCH, config.getSpotifyRateLimitDelayMs(), config.getRateLimitBurst());
+        register(UpstreamApi.SPOTIFY_PLAYLISTS, config.getSpotifyRateLimitDelayMs(), config.getRateLimitBurst());
+        register(UpstreamApi.GEMINI, config.getGeminiRateLimitDelayMs(), config.getGeminiRateLimitBurst());
+    }
+
+    public TokenBucketRateLimiter get(UpstreamApi upstream) {
+        return limiters.get(upstream);
+    }
+
+    public Collection<TokenBucketRateLimiter> getAll() {
+        return Collections.unmodifiableCollection(limiters.values());
+    }
+
+    private void register(UpstreamApi upstream, long delayMs, int burst) {
+        limiters.put(upstream, new TokenBucketRateLimiter(upstream.getValue(), delayMs, TimeUnit.MILLISECONDS, burst));
+    }
+}
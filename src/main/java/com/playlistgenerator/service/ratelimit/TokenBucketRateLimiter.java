@@ -0,0 +1,101 @@
+package com.playlistgenerator.service.ratelimit;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Lock-free token bucket: permits are issued at a fixed interval and up to {@code burst}
+ * unused permits accumulate while the upstream is idle.
+ * <p>
+ * A permit is reserved with a single CAS on the next free time slot, so callers never queue on
+ * a monitor. {@link #acquire()} then sleeps only the calling thread, which is cheap on the
+ * virtual-thread upstream executor the callers run on.
+ */
+public class TokenBucketRateLimiter {
+
+    private final String name;
+    private final long intervalNanos;
+    private final int burst;
+    private final long burstNanos;
+    private final AtomicLong nextFreeNanos;
+
+    private final AtomicLong acquisitions = new AtomicLong();
+    private final AtomicLong delayedAcquisitions = new AtomicLong();
+    private final AtomicLong totalWaitNanos = new AtomicLong();
+    private final AtomicLong maxWaitNanos = new AtomicLong();
+
+    public TokenBucketRateLimiter(String name, long interval, TimeUnit unit, int burst) {
+        if (interval < 0 || burst < 1) {
+            throw new IllegalArgumentException("Invalid rate limit for " + name);
+        }
+        this.name = name;
+        this.intervalNanos = unit.toNanos(interval);
+        this.burst = burst;
+        this.burstNanos = (burst - 1) * intervalNanos;
+        this.nextFreeNanos = new AtomicLong(System.nanoTime() - burstNanos);
+    }
+
+    /**
+     * Block until a permit is available.
+     *
+     * @throws CancellationException if the calling thread is interrupted while waiting
+     */
+    public void acquire() {
+        long waitNanos = reserve();
+        if (waitNanos > 0) {
+            try {
+                TimeUnit.NANOSECONDS.sleep(waitNanos);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new CancellationException("Interrupted while waiting for " + name + " rate limit");
+            }
+        }
+    }
+
+    /**
+     * Claim the next permit and return how long the caller has to wait before using it.
+     */
+    long reserve() {
+        while (true) {
+            long now = System.nanoTime();
+            long previous = nextFreeNanos.get();
+            long slot = Math.max(previous, now - burstNanos);
+            if (nextFreeNanos.compareAndSet(previous, slot + intervalNanos)) {
+                long waitNanos = Math.max(0, slot - now);
+                recordWait(waitNanos);
+                return waitNanos;
+            }
+        }
+    }
+
+    /**
+     * Whether a full burst is available, i.e. nobody has taken a permit for a while. Background
+     * work checks this to stay out of the way of interactive callers.
+     */
+    public boolean isIdle() {
+        return nextFreeNanos.get() <= System.nanoTime() - burstNanos;
+    }
+
+    private void recordWait(long waitNanos) {
+        acquisitions.incrementAndGet();
+        if (waitNanos > 0) {
+            delayedAcquisitions.incrementAndGet();
+            totalWaitNanos.addAndGet(waitNanos);
+            maxWaitNanos.accumulateAndGet(waitNanos, Math::max);
+        }
+    }
+
+    public String getName() { return name; }
+    public long getIntervalMillis() { return TimeUnit.NANOSECONDS.toMillis(intervalNanos); }
+    public int getBurst() { return burst; }
+    public long getAcquisitionCount() { return acquisitions.get(); }
+    public long getDelayedAcquisitionCount() { return delayedAcquisitions.get(); }
+    public long getTotalWaitMillis() { return TimeUnit.NANOSECONDS.toMillis(totalWaitNanos.get()); }
+    public long getMaxWaitMillis() { return TimeUnit.NANOSECONDS.toMillis(maxWaitNanos.get()); }
+
+    public double getAverageWaitMillis() {
+        long count = acquisitions.get();
+        return count == 0 ? 0.0 : totalWaitNanos.get() / 1_000_000.0 / count;
+    }
+}
@@ -0,0 +1,93 @@
+package com.playlistgenerator.service.spotify;
+
+import com.playlistgenerator.service.metrics.PlaylistMetrics;
+import io.micrometer.core.instrument.Timer;
+import org.apache.hc.core5.http.Header;
+import org.apache.hc.core5.http.HttpEntity;
+import org.apache.hc.core5.http.ParseException;
+import se.michaelthelin.spotify.IHttpManager;
+import se.michaelthelin.spotify.exceptions.SpotifyWebApiException;
+
+import java.io.IOException;
+import java.net.URI;
+import java.util.Set;
+
+/**
+ * Times every Spotify request by endpoint. Ids in the path are replaced with {@code {id}}, so the
+ * operation tag stays low-cardinality ("GET /v1/playlists/{id}/tracks").
+ */
+class MeteredHttpManager implements IHttpManager {
+
+    private static final String UPSTREAM = "spotify";
+    // Path segments that are followed by an id
+    private static final Set<String> ID_PARENTS = Set.of("users", "playlists", "albums", "artists", "tracks", "shows", "episodes");
+
+    private final IHttpManager delegate;
+    private final PlaylistMetrics metrics;
+
+    MeteredHttpManager(IHttpManager delegate, PlaylistMetrics metrics) {
+        this.delegate = delegate;
+        this.metrics = metrics;
+    }
+
+    @Override
+    public String get(URI uri, Header[] headers) throws IOException, SpotifyWebApiException, ParseException {
+        Timer.Sample sample = metrics.startTimer();
+        try {
+            String response = delegate.get(uri, headers);
+            metrics.recordUpstreamCall(sample, UPSTREAM, operation("GET", uri), null);
+            return response;
+        } catch (IOException | SpotifyWebApiException | ParseException | RuntimeException e) {
+            metrics.recordUpstreamCall(sample, UPSTREAM, operation("GET", uri), e);
+            throw e;
+        }
+    }
+
+    @Override
+    public String post(URI uri, Header[] headers, HttpEntity body) throws IOException, SpotifyWebApiException, ParseException {
+        Timer.Sample sample = metrics.startTimer();
+        try {
+            String response = delegate.post(uri, headers, body);
+            metrics.recordUpstreamCall(sample, UPSTREAM, operation("POST", uri), null);
+            return response;
+        } catch (IOException | SpotifyWebApiException | ParseException | RuntimeException e) {
+            metrics.recordUpstreamCall(sample, UPSTREAM, operation("POST", uri), e);
+            throw e;
+        }
+    }
+
+    @Override
+    public String put(URI uri, Header[] headers, HttpEntity body) throws IOException, SpotifyWebApiException, ParseException {
+        Timer.Sample sample = metrics.startTimer();
+        try {
+            String response = delegate.put(uri, headers, body);
+            metrics.recordUpstreamCall(sample, UPSTREAM, operation("PUT", uri), null);
+            return response;
+        } catch (IOException | SpotifyWebApiException | ParseException | RuntimeException e) {
+            metrics.recordUpstreamCall(sample, UPSTREAM, operation("PUT", uri), e);
+            throw e;
+        }
+    }
+
+    @Override
+    public String delete(URI uri, Header[] headers, HttpEntity body) throws IOException, SpotifyWebApiException, ParseException {
+        Timer.Sample sample = metrics.startTimer();
+        try {
+            String response = delegate.delete(uri, headers, body);
+            metrics.recordUpstreamCall(sample, UPSTREAM, operation("DELETE", uri), null);
+            return response;
+        } catch (IOException | SpotifyWebApiException | ParseException | RuntimeException e) {
+            metrics.recordUpstreamCall(sample, UPSTREAM, operation("DELETE", uri), e);
+            throw e;
+        }
+    }
+
+    static String operation(String method, URI uri) {
+        String[] segments = uri.getPath().split("/");
+        StringBuilder path = new StringBuilder();
+        for (int i = 1; i < segments.length; i++) {
+            path.append('/').append(ID_PARENTS.contains(segments[i - 1]) ? "{id}" : segments[i]);
+        }
+        return method + " " + path;
+    }
+}
@@ -0,0 +1,65 @@
+package com.playlistgenerator.service.spotify;
+
+import org.apache.hc.core5.http.Header;
+import org.apache.hc.core5.http.HttpEntity;
+import org.apache.hc.core5.http.ParseException;
+import se.michaelthelin.spotify.IHttpManager;
+import se.michaelthelin.spotify.SpotifyApi;
+import se.michaelthelin.spotify.SpotifyHttpManager;
+import se.michaelthelin.spotify.exceptions.SpotifyWebApiException;
+
+import java.io.IOException;
+import java.net.URI;
+
+/**
+ * Sends Spotify Web API and accounts requests to other roots, such as a local stub.
+ * <p>
+ * The client library always addresses token requests to accounts.spotify.com, whatever host the
+ * client is built with, so redirection happens here on the finished request URI instead.
+ */
+class RedirectingHttpManager implements IHttpManager {
+
+    private final IHttpManager delegate = new SpotifyHttpManager.Builder().build();
+    private final URI apiBase;
+    private final URI accountsBase;
+
+    RedirectingHttpManager(URI apiBase, URI accountsBase) {
+        this.apiBase = apiBase;
+        this.accountsBase = accountsBase;
+    }
+
+    @Override
+    public String get(URI uri, Header[] headers) throws IOException, SpotifyWebApiException, ParseException {
+        return delegate.get(redirect(uri), headers);
+    }
+
+    @Override
+    public String post(URI uri, Header[] headers, HttpEntity body) throws IOException, SpotifyWebApiException, ParseException {
+        return delegate.post(redirect(uri), headers, body);
+    }
+
+    @Override
+    public String put(URI uri, Header[] headers, HttpEntity body) throws IOException, SpotifyWebApiException, ParseException {
+        return delegate.put(redirect(uri), headers, body);
+    }
+
+    @Override
+    public String delete(URI uri, Header[] headers, HttpEntity body) throws IOException, SpotifyWebApiException, ParseException {
+        return delegate.delete(redirect(uri), headers, body);
+    }
+
+    private URI redirect(URI uri) {
+        URI target;
+        if (SpotifyApi.DEFAULT_AUTHENTICATION_HOST.equals(uri.getHost())) {
+            target = accountsBase;
+        } else if (SpotifyApi.DEFAULT_HOST.equals(uri.getHost())) {
+            target = apiBase;
+        } else {
+            return uri;
+        }
+
+        // Raw components, so the already-encoded path and query are kept byte for byte
+        return URI.create(target.getScheme() + "://" + target.getRawAuthority() + uri.getRawPath()
+                + (uri.getRawQuery() != null ? "?" + uri.getRawQuery() : ""));
+    }
+}
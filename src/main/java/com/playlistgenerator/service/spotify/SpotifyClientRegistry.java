@@ -0,0 +1,126 @@
+package com.playlistgenerator.service.spotify;
+
+import com.playlistgenerator.config.PlaylistGenerationConfig;
+import com.playlistgenerator.config.SpotifyConfig;
+import com.playlistgenerator.service.metrics.PlaylistMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import se.michaelthelin.spotify.IHttpManager;
+import se.michaelthelin.spotify.SpotifyApi;
+import se.michaelthelin.spotify.SpotifyHttpManager;
+import se.michaelthelin.spotify.model_objects.credentials.AuthorizationCodeCredentials;
+import se.michaelthelin.spotify.model_objects.credentials.ClientCredentials;
+
+import java.net.URI;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Spotify clients keyed by HTTP session id, so each user has their own tokens and profile and
+ * concurrent users never share a mutable client. Sessions idle longer than
+ * {@code spotifySessionIdleMinutes} are evicted.
+ * <p>
+ * Also owns a client-credentials client for catalog calls made outside any user session.
+ */
+@Component
+public class SpotifyClientRegistry {
+
+    private static final Logger logger = LoggerFactory.getLogger(SpotifyClientRegistry.class);
+    private static final long APP_TOKEN_REFRESH_MARGIN_SECONDS = 60;
+
+    private final SpotifyConfig spotifyConfig;
+    private final PlaylistGenerationConfig config;
+    private final Map<String, SpotifyUserSession> sessions = new ConcurrentHashMap<>();
+    private final IHttpManager httpManager;
+
+    private final SpotifyApi appClient;
+    private volatile Instant appTokenExpiresAt = Instant.EPOCH;
+
+    public SpotifyClientRegistry(SpotifyConfig spotifyConfig, PlaylistGenerationConfig config, PlaylistMetrics metrics) {
+        this.spotifyConfig = spotifyConfig;
+        this.config = config;
+        this.httpManager = new MeteredHttpManager(createHttpManager(spotifyConfig), metrics);
+        this.appClient = newClientBuilder().build();
+    }
+
+    /**
+     * A client without user tokens, for building the authorization URI and exchanging the code
+     */
+    public SpotifyApi authorizationClient() {
+        return newClientBuilder().build();
+    }
+
+    public SpotifyUserSession register(String sessionId, AuthorizationCodeCredentials credentials) {
+        SpotifyApi userClient = newClientBuilder()
+                .setAccessToken(credentials.getAccessToken())
+                .setRefreshToken(credentials.getRefreshToken())
+                .build();
+        SpotifyUserSession session = new SpotifyUserSession(sessionId, userClient, credentials);
+        sessions.put(sessionId, session);
+        return session;
+    }
+
+    public SpotifyUserSession get(String sessionId) {
+        return sessionId != null ? sessions.get(sessionId) : null;
+    }
+
+    public void remove(String sessionId) {
+        sessions.remove(sessionId);
+    }
+
+    public int getSessionCount() {
+        return sessions.size();
+    }
+
+    /**
+     * Client-credentials client for catalog endpoints (search, track lookup) when no user is bound
+     */
+    public SpotifyApi appClient() {
+        if (Instant.now().plusSeconds(APP_TOKEN_REFRESH_MARGIN_SECONDS).isAfter(appTokenExpiresAt)) {
+            refreshAppToken();
+        }
+        return appClient;
+    }
+
+    private synchronized void refreshAppToken() {
+        if (Instant.now().plusSeconds(APP_TOKEN_REFRESH_MARGIN_SECONDS).isBefore(appTokenExpiresAt)) {
+            return;
+        }
+        try {
+            ClientCredentials credentials = appClient.clientCredentials().build().execute();
+            appClient.setAccessToken(credentials.getAccessToken());
+            appTokenExpiresAt = Instant.now().plusSeconds(credentials.getExpiresIn());
+        } catch (Exception e) {
+            logger.warn("Failed to obtain Spotify client-credentials token: {}", e.getMessage());
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${playlist.generation.spotify-session-sweep-interval-ms:300000}")
+    public void evictIdleSessions() {
+        Instant cutoff = Instant.now().minus(Duration.ofMinutes(config.getSpotifySessionIdleMinutes()));
+        sessions.values().removeIf(session -> session.getLastAccessedAt().isBefore(cutoff));
+    }
+
+    private SpotifyApi.Builder newClientBuilder() {
+        return new SpotifyApi.Builder()
+                .setClientId(spotifyConfig.getClientId())
+                .setClientSecret(spotifyConfig.getClientSecret())
+                .setRedirectUri(URI.create(spotifyConfig.getRedirectUri()))
+                .setHttpManager(httpManager);
+    }
+
+    private static IHttpManager createHttpManager(SpotifyConfig spotifyConfig) {
+        URI apiBase = URI.create(spotifyConfig.getApiBaseUrl());
+        URI accountsBase = URI.create(spotifyConfig.getAccountsBaseUrl());
+        if (SpotifyApi.DEFAULT_HOST.equals(apiBase.getHost())
+                && SpotifyApi.DEFAULT_AUTHENTICATION_HOST.equals(accountsBase.getHost())) {
+            return new SpotifyHttpManager.Builder().build();
+        }
+        logger.info("Sending Spotify requests to {} and {}", apiBase, accountsBase);
+        return new RedirectingHttpManager(apiBase, accountsBase);
+    }
+}
@@ -0,0 +1,61 @@
+package com.playlistgenerator.service.spotify;
+
+import java.util.function.Supplier;
+
+/**
+ * The Spotify user session the current thread acts for. Set per request by
+ * {@code SpotifySessionInterceptor}; work handed to other threads carries it along via {@code wrap}.
+ */
+public final class SpotifyUserContext {
+
+    private static final ThreadLocal<SpotifyUserSession> CURRENT = new ThreadLocal<>();
+
+    private SpotifyUserContext() {
+    }
+
+    public static SpotifyUserSession current() {
+        return CURRENT.get();
+    }
+
+    public static void set(SpotifyUserSession session) {
+        CURRENT.set(session);
+    }
+
+    public static void clear() {
+        CURRENT.remove();
+    }
+
+    public static Runnable wrap(Runnable task) {
+        SpotifyUserSession captured = CURRENT.get();
+        return () -> {
+            SpotifyUserSession previous = CURRENT.get();
+            CURRENT.set(captured);
+            try {
+                task.run();
+            } finally {
+                restore(previous);
+            }
+        };
+    }
+
+    public static <T> Supplier<T> wrap(Supplier<T> task) {
+        SpotifyUserSession captured = CURRENT.get();
+        return () -> {
+            SpotifyUserSession previous = CURRENT.get();
+            CURRENT.set(captured);
+            try {
+                return task.get();
+            } finally {
+                restore(previous);
+            }
+        };
+    }
+
+    private static void restore(SpotifyUserSession previous) {
+        if (previous == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(previous);
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package com.playlistgenerator.service.spotify;
+
+import se.michaelthelin.spotify.SpotifyApi;
+import se.michaelthelin.spotify.model_objects.credentials.AuthorizationCodeCredentials;
+import se.michaelthelin.spotify.model_objects.specification.User;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+
+/**
+ * One logged-in user's Spotify client and user-scoped data. The access token is refreshed
+ * shortly before it expires; only this session's callers wait on the refresh.
+ */
+public class SpotifyUserSession {
+
+    private static final long REFRESH_MARGIN_SECONDS = 60;
+    // Pre-resolved quick-type tracks already served to this user, oldest first
+    private static final int SERVED_TRACKS_REMEMBERED = 500;
+
+    private final String sessionId;
+    private final SpotifyApi spotifyApi;
+
+    private volatile Instant accessTokenExpiresAt;
+    private volatile Instant lastAccessedAt = Instant.now();
+    private volatile User currentUser;
+    private final LinkedHashSet<String> servedTrackIds = new LinkedHashSet<>();
+
+    SpotifyUserSession(String sessionId, SpotifyApi spotifyApi, AuthorizationCodeCredentials credentials) {
+        this.sessionId = sessionId;
+        this.spotifyApi = spotifyApi;
+        applyCredentials(credentials);
+    }
+
+    /**
+     * The client for this user, with a token that is valid for at least the refresh margin
+     */
+    public SpotifyApi getSpotifyApi() {
+        lastAccessedAt = Instant.now();
+        if (isExpiring()) {
+            refreshAccessToken();
+        }
+        return spotifyApi;
+    }
+
+    private boolean isExpiring() {
+        return Instant.now().plusSeconds(REFRESH_MARGIN_SECONDS).isAfter(accessTokenExpiresAt);
+    }
+
+    private synchronized void refreshAccessToken() {
+        if (!isExpiring() || spotifyApi.getRefreshToken() == null) {
+            return;
+        }
+        try {
+            applyCredentials(spotifyApi.authorizationCodeRefresh().build().execute());
+        } catch (Exception e) {
+            // Keep the current token; the call will surface a 401 if it has really expired
+            System.err.println("Failed to refresh Spotify token for session " + sessionId + ": " + e.getMessage());
+        }
+    }
+
+    private void applyCredentials(AuthorizationCodeCredentials credentials) {
+        spotifyApi.setAccessToken(credentials.getAccessToken());
+        // Spotify only returns a new refresh token when it rotates it
+        if (credentials.getRefreshToken() != null) {
+            spotifyApi.setRefreshToken(credentials.getRefreshToken());
+        }
+        int expiresIn = credentials.getExpiresIn() != null ? credentials.getExpiresIn() : 3600;
+        accessTokenExpiresAt = Instant.now().plusSeconds(expiresIn);
+    }
+
+    public synchronized boolean wasServed(String trackId) {
+        return servedTrackIds.contains(trackId);
+    }
+
+    public synchronized void markServed(Collection<String> trackIds) {
+        for (String trackId : trackIds) {
+            servedTrackIds.remove(trackId);
+            servedTrackIds.add(trackId);
+        }
+        while (servedTrackIds.size() > SERVED_TRACKS_REMEMBERED) {
+            servedTrackIds.remove(servedTrackIds.iterator().next());
+        }
+    }
+
+    public String getSessionId() { return sessionId; }
+    public Instant getLastAccessedAt() { return lastAccessedAt; }
+    public User getCurrentUser() { return currentUser; }
+    public void setCurrentUser(User currentUser) { this.currentUser = currentUser; }
+}
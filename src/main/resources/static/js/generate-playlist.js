@@ -215,6 +215,13 @@ document.addEventListener('DOMContentLoaded', function() {
     // Form submission logic - show spinner when form is submitted
     if (playlistForm) {
         playlistForm.addEventListener('submit', function(e) {
+            // Stream results into the page when the browser can read a fetch body incrementally
+            if (window.PlaylistStream && window.PlaylistStream.isSupported()) {
+                e.preventDefault();
+                window.PlaylistStream.start(this);
+                return;
+            }
+
             // Show spinner using shared utility
             if (window.SpinnerUtils) {
                 window.SpinnerUtils.show();
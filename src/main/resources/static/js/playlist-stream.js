@@ -0,0 +1,156 @@
+// playlist-stream.js - Progressive playlist generation over server-sent events
+window.PlaylistStream = {
+    isSupported: function() {
+        return !!(window.fetch && window.ReadableStream && window.TextDecoder);
+    },
+
+    start: function(form) {
+        const panel = document.getElementById('stream-results');
+        const status = document.getElementById('stream-status');
+        const trackList = document.getElementById('stream-track-list');
+        const saveSection = document.getElementById('stream-save-section');
+        const saveForm = document.getElementById('stream-save-form');
+
+        form.style.display = 'none';
+        panel.style.display = 'block';
+        trackList.innerHTML = '';
+        saveSection.style.display = 'none';
+        status.textContent = 'Starting...';
+        status.parentElement.classList.remove('error');
+
+        const handlers = {
+            progress: data => {
+                status.textContent = this.describeProgress(data);
+            },
+            track: track => {
+                trackList.appendChild(this.renderTrack(track));
+            },
+            complete: data => {
+                status.textContent = data.count > 0
+                    ? `Done: ${data.count} tracks found`
+                    : 'No tracks could be found, please try again';
+                saveForm.querySelectorAll('input[type="hidden"]').forEach(input => input.remove());
+                const addHidden = (name, value) => {
+                    const input = document.createElement('input');
+                    input.type = 'hidden';
+                    input.name = name;
+                    input.value = value;
+                    saveForm.appendChild(input);
+                };
+                data.uris.forEach(uri => addHidden('tracks', uri));
+                if (data.generationId) {
+                    addHidden('generationId', data.generationId);
+                }
+                saveSection.style.display = data.count > 0 ? 'block' : 'none';
+            },
+            error: data => {
+                status.textContent = data.message;
+                status.parentElement.classList.add('error');
+            }
+        };
+
+        fetch('/api/generate-playlist/stream', {
+            method: 'POST',
+            headers: {'Accept': 'text/event-stream'},
+            body: new URLSearchParams(new FormData(form))
+        })
+            .then(response => {
+                if (!response.ok) {
+                    throw new Error('Request failed with status ' + response.status);
+                }
+                return this.readEvents(response.body, handlers);
+            })
+            .catch(error => {
+                console.error('Streaming generation failed:', error);
+                handlers.error({message: 'Failed to generate playlist: ' + error.message});
+            });
+    },
+
+    // Minimal text/event-stream reader: dispatches each "event:"/"data:" block to its handler
+    readEvents: function(body, handlers) {
+        const reader = body.getReader();
+        const decoder = new TextDecoder();
+        let buffer = '';
+
+        const dispatch = block => {
+            let name = 'message';
+            const data = [];
+            block.split('\n').forEach(line => {
+                if (line.startsWith('event:')) {
+                    name = line.substring(6).trim();
+                } else if (line.startsWith('data:')) {
+                    data.push(line.substring(5).trim());
+                }
+            });
+            if (handlers[name] && data.length > 0) {
+                handlers[name](JSON.parse(data.join('\n')));
+            }
+        };
+
+        const pump = () => reader.read().then(({done, value}) => {
+            if (done) {
+                if (buffer.trim()) {
+                    dispatch(buffer);
+                }
+                return;
+            }
+            buffer += decoder.decode(value, {stream: true}).replace(/\r\n/g, '\n');
+            let boundary;
+            while ((boundary = buffer.indexOf('\n\n')) >= 0) {
+                dispatch(buffer.substring(0, boundary));
+                buffer = buffer.substring(boundary + 2);
+            }
+            return pump();
+        });
+        return pump();
+    },
+
+    describeProgress: function(data) {
+        switch (data.stage) {
+            case 'started':
+                return 'Preparing your request...';
+            case 'prompt-built':
+                return 'Asking for recommendations...';
+            case 'recommendations-received':
+                return `Received ${data.count} recommendations, finding them on Spotify...`;
+            case 'resolving':
+                return `Found ${data.resolved}/${data.target} tracks on Spotify...`;
+            default:
+                return '';
+        }
+    },
+
+    renderTrack: function(track) {
+        const item = document.createElement('li');
+        item.className = 'track-item';
+
+        const images = track.album && track.album.images;
+        if (images && images.length > 0) {
+            const cover = document.createElement('img');
+            cover.className = 'album-cover';
+            cover.src = images[0].url;
+            cover.alt = track.album.name + ' cover';
+            item.appendChild(cover);
+        } else {
+            const placeholder = document.createElement('div');
+            placeholder.className = 'placeholder-cover';
+            placeholder.textContent = '🎵';
+            item.appendChild(placeholder);
+        }
+
+        const info = document.createElement('div');
+        info.className = 'track-info';
+        const name = document.createElement('p');
+        name.className = 'track-name';
+        name.textContent = track.name;
+        const details = document.createElement('p');
+        details.className = 'track-details';
+        details.textContent = (track.artists || []).map(artist => artist.name).join(', ')
+            + (track.album ? ' • ' + track.album.name : '');
+        info.appendChild(name);
+        info.appendChild(details);
+        item.appendChild(info);
+
+        return item;
+    }
+};
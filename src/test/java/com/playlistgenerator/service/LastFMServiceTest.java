@@ -0,0 +1,59 @@
+package com.playlistgenerator.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.playlistgenerator.service.cache.TieredResponseCache;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class LastFMServiceTest {
+
+    private static final String RATE_LIMITED =
+            "{\"error\":29,\"message\":\"Rate Limit Exceeded\",\"links\":[]}";
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void readsNamesFromAListResponse() {
+        String response = "{\"similarartists\":{\"artist\":[{\"name\":\"Blur\",\"match\":\"1\"},{\"name\":\"Pulp\"}]}}";
+
+        assertThat(LastFMService.parseNameList(response, "similarartists", "artist", 10))
+                .containsExactly("Blur", "Pulp");
+    }
+
+    @Test
+    void errorPayloadThrowsInsteadOfReadingAsEmpty() {
+        assertThatThrownBy(() -> LastFMService.parseNameList(RATE_LIMITED, "similarartists", "artist", 10))
+                .isInstanceOf(LastFMService.LastFmApiException.class)
+                .hasMessageContaining("Rate Limit Exceeded")
+                .extracting(e -> ((LastFMService.LastFmApiException) e).getCode())
+                .isEqualTo(29);
+    }
+
+    @Test
+    void errorPayloadIsNotCached() throws Exception {
+        AtomicInteger loads = new AtomicInteger();
+        try (TieredResponseCache cache = new TieredResponseCache("lastfm-test", 10, 10, directory, new ObjectMapper())) {
+            assertThatThrownBy(() -> cache.get("artist.getSimilar", List.of("Oasis"), Duration.ofDays(1), Duration.ofDays(1),
+                    () -> LastFMService.parseNameList(RATE_LIMITED, "similarartists", "artist", 10)))
+                    .isInstanceOf(LastFMService.LastFmApiException.class);
+
+            List<String> artists = cache.get("artist.getSimilar", List.of("Oasis"), Duration.ofDays(1), Duration.ofDays(1),
+                    () -> {
+                        loads.incrementAndGet();
+                        return List.of("Blur");
+                    });
+
+            assertThat(artists).containsExactly("Blur");
+            assertThat(loads).hasValue(1);
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package com.playlistgenerator.service;
+
+import org.junit.jupiter.api.Test;
+import se.michaelthelin.spotify.model_objects.specification.ArtistSimplified;
+import se.michaelthelin.spotify.model_objects.specification.Track;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TrackMatchScorerTest {
+
+    private static final double MIN_SCORE = 0.6;
+
+    private final GoogleGeminiService.Track recommendation =
+            new GoogleGeminiService.Track("Bohemian Rhapsody", "Queen");
+    private final Track original = track("Bohemian Rhapsody - Remastered 2011", "Queen");
+    private final Track cover = track("Bohemian Rhapsody", "The Braids");
+
+    @Test
+    void structuredRecommendationAcceptsTheOriginalAndRejectsACover() {
+        TrackSearchService.Recommendation structured = TrackSearchService.Recommendation.of(recommendation);
+        TrackMatchScorer scorer = new TrackMatchScorer();
+        scorer.setQuery(structured.title, structured.artist);
+
+        assertThat(scorer.score(original)).isGreaterThanOrEqualTo(MIN_SCORE);
+        assertThat(scorer.score(cover)).isLessThan(MIN_SCORE);
+        assertThat(scorer.bestMatch(new Track[]{cover, original}, 5, MIN_SCORE)).isEqualTo(1);
+    }
+
+    @Test
+    void searchStringAloneCannotTellACoverApart() {
+        TrackMatchScorer scorer = new TrackMatchScorer();
+        scorer.setQuery(recommendation.toSearchString(), "");
+
+        assertThat(scorer.score(cover)).isGreaterThanOrEqualTo(MIN_SCORE);
+    }
+
+    @Test
+    void wordHalvingGuessRejectsTheOriginal() {
+        String[] guessed = TrackSearchService.extractTitleAndArtist(recommendation.toSearchString());
+        TrackMatchScorer scorer = new TrackMatchScorer();
+        scorer.setQuery(guessed[0], guessed[1]);
+
+        assertThat(scorer.score(original)).isLessThan(MIN_SCORE);
+    }
+
+    @Test
+    void jointArtistCreditMatchesEachCreditedArtist() {
+        TrackMatchScorer scorer = new TrackMatchScorer();
+        scorer.setQuery("Get Lucky", "Daft Punk, Pharrell Williams");
+
+        assertThat(scorer.score(track("Get Lucky", "Daft Punk"))).isGreaterThanOrEqualTo(MIN_SCORE);
+        assertThat(scorer.score(track("Get Lucky (feat. Pharrell Williams & Nile Rodgers)",
+                "Daft Punk", "Pharrell Williams", "Nile Rodgers"))).isGreaterThanOrEqualTo(MIN_SCORE);
+        assertThat(scorer.score(track("Get Lucky", "The Braids"))).isLessThan(MIN_SCORE);
+
+        scorer.setQuery("The Sound of Silence", "Simon & Garfunkel");
+        assertThat(scorer.score(track("The Sound of Silence", "Simon & Garfunkel"))).isGreaterThanOrEqualTo(MIN_SCORE);
+    }
+
+    private static Track track(String name, String... artists) {
+        ArtistSimplified[] artistObjects = new ArtistSimplified[artists.length];
+        for (int i = 0; i < artists.length; i++) {
+            artistObjects[i] = new ArtistSimplified.Builder().setName(artists[i]).build();
+        }
+        return new Track.Builder()
+                .setName(name)
+                .setArtists(artistObjects)
+                .setDurationMs(354_000)
+                .setIsPlayable(true)
+                .build();
+    }
+}
@@ -0,0 +1,135 @@
+package com.playlistgenerator.service;
+
+import com.playlistgenerator.config.PlaylistGenerationConfig;
+import com.playlistgenerator.service.cache.LocalCatalogIndex;
+import com.playlistgenerator.service.cache.TrackResolutionCache;
+import com.playlistgenerator.service.metrics.PlaylistMetrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import se.michaelthelin.spotify.model_objects.specification.ArtistSimplified;
+import se.michaelthelin.spotify.model_objects.specification.Paging;
+import se.michaelthelin.spotify.model_objects.specification.Track;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class TrackSearchServiceTest {
+
+    private static final String SCOPE = "market:GB";
+
+    private final GoogleGeminiService.Track recommendation =
+            new GoogleGeminiService.Track("Bohemian Rhapsody", "Queen");
+
+    private SpotifyService spotifyService;
+    private ExecutorService executor;
+    private LocalCatalogIndex catalogIndex;
+    private TrackSearchService trackSearchService;
+
+    @BeforeEach
+    void setUp() {
+        PlaylistGenerationConfig config = new PlaylistGenerationConfig();
+        spotifyService = mock(SpotifyService.class);
+        executor = Executors.newFixedThreadPool(2);
+        catalogIndex = new LocalCatalogIndex(null, 100, config.getCatalogIndexMinScore(), Duration.ofDays(1));
+        catalogIndex.add(SCOPE, spotifyTrack("bohemian", "Bohemian Rhapsody", "Queen"));
+        when(spotifyService.catalogScope()).thenReturn(SCOPE);
+        trackSearchService = new TrackSearchService(spotifyService, executor, config, new TrackResolutionCache(config),
+                catalogIndex, new TrackSearchStatistics(), new PlaylistMetrics(new SimpleMeterRegistry()));
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void searchStringFromGeminiHasNoSeparatorToSplitOn() {
+        String[] guessed = TrackSearchService.extractTitleAndArtist(recommendation.toSearchString());
+
+        assertThat(TrackSearchService.hasTitleArtistSeparator(recommendation.toSearchString())).isFalse();
+        assertThat(catalogIndex.find(SCOPE, guessed[0], guessed[1])).isNull();
+    }
+
+    @Test
+    void structuredRecommendationIsAnsweredFromTheCatalogIndex() throws Exception {
+        TrackSearchService.ResolutionSession session = trackSearchService.openSession();
+        session.submit(recommendation);
+        List<Track> tracks = session.awaitResults();
+
+        assertThat(tracks).extracting(Track::getUri).containsExactly("spotify:track:bohemian");
+        verify(spotifyService, never()).searchTracks(anyString());
+    }
+
+    @Test
+    void recommendationParsedFromSearchStringKeepsTheWholeQuery() {
+        TrackSearchService.Recommendation structured = TrackSearchService.Recommendation.of(recommendation);
+        TrackSearchService.Recommendation parsed = TrackSearchService.Recommendation.parse(recommendation.toSearchString());
+
+        assertThat(structured.query).isEqualTo(recommendation.toSearchString());
+        assertThat(structured.title).isEqualTo("Bohemian Rhapsody");
+        assertThat(structured.artist).isEqualTo("Queen");
+        assertThat(structured.structured).isTrue();
+        assertThat(parsed.structured).isFalse();
+    }
+
+    @Test
+    void queuedSearchesDoNotHoldExecutorThreads() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        when(spotifyService.searchTracks(anyString())).thenAnswer(invocation -> {
+            release.await();
+            return new Paging.Builder<Track>().setItems(new Track[0]).build();
+        });
+
+        TrackSearchService.ResolutionSession session = trackSearchService.openSession(track -> {}, 1);
+        for (int i = 0; i < 3; i++) {
+            session.submit(new GoogleGeminiService.Track("Unknown Song " + i, "Nobody"));
+        }
+
+        // One search holds the session's only slot; the others wait in the session, not on a worker
+        assertThat(executor.submit(() -> true).get(1, TimeUnit.SECONDS)).isTrue();
+        release.countDown();
+        assertThat(session.awaitResults()).isEmpty();
+    }
+
+    @Test
+    void resolutionInOneMarketIsNotReusedInAnother() throws Exception {
+        GoogleGeminiService.Track wonderwall = new GoogleGeminiService.Track("Wonderwall", "Oasis");
+        when(spotifyService.searchTracks(anyString())).thenReturn(new Paging.Builder<Track>()
+                .setItems(new Track[]{spotifyTrack("wonderwall", "Wonderwall", "Oasis")}).build());
+        TrackSearchService.ResolutionSession gb = trackSearchService.openSession();
+        gb.submit(wonderwall);
+        assertThat(gb.awaitResults()).extracting(Track::getUri).containsExactly("spotify:track:wonderwall");
+
+        when(spotifyService.catalogScope()).thenReturn("market:US");
+        when(spotifyService.searchTracks(anyString())).thenReturn(new Paging.Builder<Track>()
+                .setItems(new Track[0]).build());
+        TrackSearchService.ResolutionSession us = trackSearchService.openSession();
+        us.submit(wonderwall);
+
+        assertThat(us.awaitResults()).isEmpty();
+    }
+
+    private static Track spotifyTrack(String id, String name, String artist) {
+        return new Track.Builder()
+                .setId(id)
+                .setUri("spotify:track:" + id)
+                .setName(name)
+                .setArtists(new ArtistSimplified.Builder().setName(artist).build())
+                .setDurationMs(354_000)
+                .setIsPlayable(true)
+                .build();
+    }
+}
@@ -0,0 +1,30 @@
+package com.playlistgenerator.service;
+
+import com.playlistgenerator.enums.TrackSearchStrategy;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TrackSearchStatisticsTest {
+
+    @Test
+    void skippedStrategyIsStillTriedOccasionally() {
+        TrackSearchStatistics statistics = new TrackSearchStatistics();
+        for (int i = 0; i < 200; i++) {
+            statistics.recordAttempt(TrackSearchStrategy.QUOTED, false, 1_000_000);
+            statistics.recordAttempt(TrackSearchStrategy.FULL_STRING, true, 1_000_000);
+        }
+
+        int explored = 0;
+        for (int i = 0; i < 100; i++) {
+            List<TrackSearchStrategy> order = statistics.orderFor(false);
+            if (order.contains(TrackSearchStrategy.QUOTED)) {
+                explored++;
+                assertThat(order).last().isEqualTo(TrackSearchStrategy.QUOTED);
+            }
+        }
+        assertThat(explored).isEqualTo(2);
+    }
+}
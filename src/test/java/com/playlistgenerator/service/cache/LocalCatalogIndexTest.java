@@ -0,0 +1,85 @@
+package com.playlistgenerator.service.cache;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import se.michaelthelin.spotify.model_objects.specification.ArtistSimplified;
+import se.michaelthelin.spotify.model_objects.specification.Track;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class LocalCatalogIndexTest {
+
+    private static final String SCOPE = "market:GB";
+
+    @TempDir
+    Path directory;
+
+    private final AtomicLong clock = new AtomicLong(1_000_000);
+
+    @Test
+    void evictsTheOldestTracksOnceFullAndKeepsThemEvictedAfterRestart() throws Exception {
+        try (LocalCatalogIndex index = index(directory, Duration.ofDays(1))) {
+            for (int i = 0; i < 20; i++) {
+                index.add(SCOPE, track(i, "Song Title Number " + i));
+                clock.addAndGet(1);
+            }
+            assertThat(index.size()).isLessThanOrEqualTo(8);
+            assertThat(index.getEvictionCount()).isPositive();
+        }
+
+        try (LocalCatalogIndex reloaded = index(directory, Duration.ofDays(1))) {
+            assertThat(reloaded.size()).isLessThanOrEqualTo(8);
+            assertThat(reloaded.find(SCOPE, "Song Title Number 19", "Artist 19")).isNotNull();
+            assertThat(reloaded.find(SCOPE, "Song Title Number 0", "Artist 0")).isNull();
+        }
+    }
+
+    @Test
+    void expiredEntryIsNotAnsweredAndIsReplacedWhenResolvedAgain() throws Exception {
+        try (LocalCatalogIndex index = index(null, Duration.ofMillis(200))) {
+            index.add(SCOPE, track(1, "Old Song Title"));
+            clock.addAndGet(300);
+            assertThat(index.find(SCOPE, "Old Song Title", "Artist 1")).isNull();
+
+            index.add(SCOPE, track(1, "New Song Title"));
+            assertThat(index.size()).isEqualTo(1);
+            assertThat(index.find(SCOPE, "New Song Title", "Artist 1")).isNotNull();
+        }
+    }
+
+    @Test
+    void trackIsOnlyAnsweredInTheScopeItWasResolvedIn() throws Exception {
+        try (LocalCatalogIndex index = index(directory, Duration.ofDays(1))) {
+            index.add(SCOPE, track(1, "Song Title"));
+            assertThat(index.find("market:US", "Song Title", "Artist 1")).isNull();
+
+            index.add("market:US", track(1, "Song Title"));
+            assertThat(index.size()).isEqualTo(2);
+        }
+
+        try (LocalCatalogIndex reloaded = index(directory, Duration.ofDays(1))) {
+            assertThat(reloaded.find(SCOPE, "Song Title", "Artist 1")).isNotNull();
+            assertThat(reloaded.find("market:US", "Song Title", "Artist 1")).isNotNull();
+            assertThat(reloaded.find("app", "Song Title", "Artist 1")).isNull();
+        }
+    }
+
+    private LocalCatalogIndex index(Path directory, Duration maxAge) {
+        return new LocalCatalogIndex(directory, 8, 0.85, maxAge, clock::get);
+    }
+
+    private static Track track(int number, String name) {
+        return new Track.Builder()
+                .setId("id" + number)
+                .setUri("spotify:track:" + number)
+                .setName(name)
+                .setArtists(new ArtistSimplified.Builder().setName("Artist " + number).build())
+                .setDurationMs(200_000)
+                .setIsPlayable(true)
+                .build();
+    }
+}
@@ -0,0 +1,69 @@
+package com.playlistgenerator.service.cache;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class SingleFlightTest {
+
+    private final SingleFlight<String> flight = new SingleFlight<>("test");
+    private final ExecutorService executor = Executors.newFixedThreadPool(2);
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void waiterTakesOverWhenTheLeaderIsInterrupted() throws Exception {
+        CountDownLatch leaderStarted = new CountDownLatch(1);
+        Future<String> leader = executor.submit(() -> flight.execute("key", () -> {
+            leaderStarted.countDown();
+            new CountDownLatch(1).await();
+            return "leader";
+        }));
+        leaderStarted.await();
+        Future<String> waiter = executor.submit(() -> flight.execute("key", () -> "waiter"));
+        awaitCoalesced();
+
+        leader.cancel(true);
+
+        assertThat(waiter.get(5, TimeUnit.SECONDS)).isEqualTo("waiter");
+        assertThat(flight.getExecutionCount()).isEqualTo(2);
+        assertThat(flight.getInFlightCount()).isZero();
+    }
+
+    @Test
+    void waiterSharesAnOrdinaryFailure() throws Exception {
+        Future<String> leader = executor.submit(() -> flight.execute("key", () -> {
+            awaitCoalesced();
+            throw new IOException("upstream down");
+        }));
+        while (flight.getExecutionCount() == 0) {
+            Thread.onSpinWait();
+        }
+        Future<String> waiter = executor.submit(() -> flight.execute("key", () -> "waiter"));
+
+        assertThatThrownBy(() -> waiter.get(5, TimeUnit.SECONDS))
+                .isInstanceOf(ExecutionException.class)
+                .hasCauseInstanceOf(IOException.class);
+        assertThatThrownBy(() -> leader.get(5, TimeUnit.SECONDS)).hasCauseInstanceOf(IOException.class);
+        assertThat(flight.getExecutionCount()).isEqualTo(1);
+    }
+
+    private void awaitCoalesced() {
+        while (flight.getCoalescedCount() == 0) {
+            Thread.onSpinWait();
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package com.playlistgenerator.service.cache;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TieredResponseCacheTest {
+
+    @Test
+    void hitRateCountsStaleAnswersAsHits() throws Exception {
+        try (TieredResponseCache cache = new TieredResponseCache("test", 10, 0, null, new ObjectMapper())) {
+            List<String> args = List.of("Oasis");
+            Duration day = Duration.ofDays(1);
+            cache.get("artist.getSimilar", args, day, day, () -> List.of("Blur"));
+            cache.get("artist.getSimilar", args, day, day, () -> List.of("Blur"));
+            cache.get("artist.getSimilar", args, Duration.ZERO, day, () -> List.of("Blur"));
+
+            assertThat(cache.getMissCount()).isEqualTo(1);
+            assertThat(cache.getFreshHitCount()).isEqualTo(1);
+            assertThat(cache.getStaleHitCount()).isEqualTo(1);
+            assertThat(cache.getHitRate()).isEqualTo(2.0 / 3);
+        }
+    }
+}